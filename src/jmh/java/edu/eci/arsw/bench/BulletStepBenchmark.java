@@ -0,0 +1,73 @@
+package edu.eci.arsw.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.escuelaing.co.leotankcicos.engine.BulletPool;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Avance de balas por tick (coordenadas nuevas, paredes y colisiones). Cada
+ * operación dispara una ráfaga de {@code bullets} balas a lo largo de la fila
+ * 8 y hace ticks hasta que todas chocan con la pared del otro extremo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BulletStepBenchmark {
+
+    @Param({"16", "256"})
+    int bullets;
+
+    GameFixture fixture;
+    Match match;
+    Tank shooter;
+    long volley;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new GameFixture(3);
+        shooter = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        // Los demás quedan fuera de la línea de tiro para que la partida no termine
+        match = fixture.match("1", shooter,
+                new Tank(13, 1, "#001ba1", 180, "Tank2"),
+                new Tank(1, 1, "#f1c40f", 0, "Tank3"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public int volley() {
+        BulletPool live = match.getBullets();
+        volley++;
+        for (int i = 0; i < bullets; i++) {
+            live.spawn(volley + "-" + i, shooter.getName(), shooter.getPosx(), shooter.getPosy(), 0, 1, 0);
+        }
+        int ticks = 0;
+        while (!live.isEmpty()) {
+            fixture.tankService.tick(match);
+            ticks++;
+        }
+        return ticks;
+    }
+}
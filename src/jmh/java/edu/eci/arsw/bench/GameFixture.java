@@ -0,0 +1,76 @@
+package edu.eci.arsw.bench;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.journal.MatchJournal;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
+import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
+import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+import edu.escuelaing.co.leotankcicos.service.TankService;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Un {@link TankService} completo sobre repositorios en memoria. Los
+ * mensajes STOMP se serializan con Jackson como en producción y luego se
+ * descartan. El loop de la partida no corre solo: el benchmark llama
+ * {@code tick} cuando lo necesita.
+ */
+final class GameFixture {
+
+    final TankRepository tanks;
+    final BoardRepository boards;
+    final MatchRegistry registry;
+    final WriteBehindStore writeBehindStore;
+    final TankService tankService;
+
+    GameFixture(int maxPlayers) {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(3_600_000);
+        properties.setBulletStepTicks(1);
+        properties.setMaxPlayers(maxPlayers);
+        properties.setMaxQueuedInputs(1 << 20);
+
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> true);
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+
+        tanks = InMemoryRepositories.tanks();
+        boards = InMemoryRepositories.boards();
+        registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+        writeBehindStore = new WriteBehindStore(tanks, boards, 1_000, 256);
+        tankService = new TankService(boards, new StateBroadcaster(template, true, false, false, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry()), tanks,
+                registry, writeBehindStore, new SessionTokens("jmh-benchmark-key", false),
+                new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, properties), ClusterNode.standalone(), MatchJournal.disabled());
+    }
+
+    /**
+     * Carga la partida con los tanques ya persistidos, como al reiniciar el
+     * servidor, sin pasar por el login.
+     */
+    Match match(String matchId, Tank... players) {
+        Board board = new Board(matchId);
+        for (Tank tank : players) {
+            tank.setMatchId(matchId);
+            tanks.save(tank);
+            board.putTank(tank.getName(), tank.getPosx(), tank.getPosy());
+        }
+        boards.save(board);
+        return tankService.getMatch(matchId);
+    }
+
+    void close() {
+        registry.shutdown();
+        writeBehindStore.shutdown();
+    }
+}
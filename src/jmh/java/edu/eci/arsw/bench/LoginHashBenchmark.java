@@ -0,0 +1,58 @@
+package edu.eci.arsw.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+
+/**
+ * Verificación del HMAC del login y de los tokens de sesión
+ * ({@link SessionTokens}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginHashBenchmark {
+
+    SessionTokens sessionTokens;
+    String hash;
+    String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionTokens = new SessionTokens("jmh-benchmark-key");
+        hash = sessionTokens.hash("Player-42");
+        token = sessionTokens.issue("1", "Player-42", 2);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return sessionTokens.verifyLoginHash("Player-42", hash);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean verifyContended() {
+        return sessionTokens.verifyLoginHash("Player-42", hash);
+    }
+
+    @Benchmark
+    public SessionTokens.Claims verifySessionToken() {
+        return sessionTokens.verify(token);
+    }
+}
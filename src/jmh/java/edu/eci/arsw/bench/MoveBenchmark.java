@@ -0,0 +1,100 @@
+package edu.eci.arsw.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * {@code TankService.updateTankPosition} con varios jugadores enviando
+ * movimientos a la vez mientras el hilo de la partida aplica los ticks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveBenchmark {
+
+    private static final String[] PLAYERS = {"Tank1", "Tank2", "Tank3"};
+
+    @State(Scope.Group)
+    public static class Game {
+        GameFixture fixture;
+        Match match;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fixture = new GameFixture(PLAYERS.length);
+            match = fixture.match("1",
+                    new Tank(1, 8, "#fa0a0a", 0, PLAYERS[0]),
+                    new Tank(13, 8, "#001ba1", 180, PLAYERS[1]),
+                    new Tank(13, 1, "#f1c40f", 180, PLAYERS[2]));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        String name;
+        int x;
+        int y;
+        boolean forward;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int index = NEXT.getAndIncrement() % PLAYERS.length;
+            name = PLAYERS[index];
+            x = index == 0 ? 1 : 12;
+            y = index == 2 ? 1 : 8;
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public boolean enqueue(Game game, Player player) {
+        int newX = player.forward ? player.x : player.x + 1;
+        int oldX = player.forward ? player.x + 1 : player.x;
+        player.forward = !player.forward;
+        return game.fixture.tankService.updateTankPosition(player.name, oldX, player.y, newX, player.y, 0);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int tick(Game game) {
+        game.fixture.tankService.tick(game.match);
+        return game.match.getLastDrainCount();
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public int moveAndTick(Game game, Player player) {
+        enqueue(game, player);
+        game.fixture.tankService.tick(game.match);
+        return game.match.getLastDrainCount();
+    }
+}
@@ -0,0 +1,82 @@
+package edu.eci.arsw.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.escuelaing.co.leotankcicos.broadcast.BulletState;
+import edu.escuelaing.co.leotankcicos.broadcast.CellChange;
+import edu.escuelaing.co.leotankcicos.broadcast.StateDelta;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Bullet;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Serialización Jackson de lo que se publica por STOMP y REST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    final ObjectMapper mapper = new ObjectMapper();
+    Tank tank;
+    Bullet bullet;
+    Board board;
+    StateDelta delta;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tank = new Tank(13, 8, "#001ba1", 180, "Player-42");
+        tank.setMatchId("1");
+        bullet = new Bullet("Player-7-1699999999999", 4, 8, 0, true, "Player-7");
+        bullet.setMatchId("1");
+        board = new Board("1");
+        board.putTank("Player-42", 13, 8);
+        board.putTank("Player-7", 1, 8);
+        delta = new StateDelta("1", 42, List.of(new CellChange(12, 8, "0"), new CellChange(13, 8, "Player-42")),
+                List.of(tank), List.of(), List.of(new BulletState(bullet.getId(), bullet.getX(), bullet.getY(), bullet.getDirection(), bullet.getTankId(), bullet.getSpeed(), 42, 1)), List.of());
+    }
+
+    @Benchmark
+    public byte[] tank() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(tank);
+    }
+
+    @Benchmark
+    public byte[] bullet() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(bullet);
+    }
+
+    @Benchmark
+    public byte[] board() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(board);
+    }
+
+    @Benchmark
+    public byte[] boardBoxes() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(board.getBoxes());
+    }
+
+    @Benchmark
+    public byte[] stateDelta() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(delta);
+    }
+}
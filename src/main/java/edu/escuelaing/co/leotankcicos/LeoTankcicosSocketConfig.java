@@ -1,19 +1,82 @@
 package edu.escuelaing.co.leotankcicos;
 
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import edu.escuelaing.co.leotankcicos.auth.SessionTokenInterceptor;
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.codec.BinaryFrameMessageConverter;
+import edu.escuelaing.co.leotankcicos.metrics.InboundMessageMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Con {@code spring.threads.virtual.enabled=true} en un JDK 21+ los canales
+ * clientInbound y clientOutbound usan un hilo virtual por mensaje (Tomcat lo
+ * hace por su cuenta con la misma propiedad). En JDK anteriores se mantienen
+ * los pools de hilos de plataforma por defecto.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class LeoTankcicosSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(LeoTankcicosSocketConfig.class);
+
+    private final boolean virtualThreads;
+    private final MeterRegistry meterRegistry;
+    private final SessionTokenInterceptor sessionTokenInterceptor;
+
+    public LeoTankcicosSocketConfig(Environment environment, MeterRegistry meterRegistry, SessionTokens sessionTokens) {
+        this.meterRegistry = meterRegistry;
+        this.sessionTokenInterceptor = new SessionTokenInterceptor(sessionTokens);
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            logger.warn("Virtual threads requested but not available on Java {}; using platform thread pools",
+                    Runtime.version().feature());
+        }
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        if (virtualThreads) {
+            // Sin un pool fijo los mensajes de una misma sesión pueden adelantarse entre sí
+            config.setPreservePublishOrder(true);
+        }
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(sessionTokenInterceptor, new InboundMessageMetrics(meterRegistry));
+        if (virtualThreads) {
+            registration.executor(virtualExecutor("clientInbound-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(virtualExecutor("clientOutbound-"));
+        }
+    }
+
+    private static TaskExecutor virtualExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
     }
 
     @Override
@@ -21,5 +84,15 @@ public class LeoTankcicosSocketConfig implements WebSocketMessageBrokerConfigure
         registry.addEndpoint("/stompendpoint")
             .setAllowedOrigins("https://frontarsw.z22.web.core.windows.net")
             .withSockJS();
+        // SockJS solo transporta texto; los clientes del códec binario usan WebSocket directo
+        registry.addEndpoint("/stompendpoint-ws")
+            .setAllowedOrigins("https://frontarsw.z22.web.core.windows.net");
+        registry.setPreserveReceiveOrder(virtualThreads);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new BinaryFrameMessageConverter());
+        return true;
     }
 }
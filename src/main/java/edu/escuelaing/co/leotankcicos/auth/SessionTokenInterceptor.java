@@ -0,0 +1,65 @@
+package edu.escuelaing.co.leotankcicos.auth;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Verifica el token de sesión una sola vez, en el CONNECT de STOMP, y guarda
+ * el jugador en los atributos de la sesión. Los mensajes siguientes lo leen
+ * de ahí sin volver a verificar nada. El jugador queda además como usuario
+ * de la sesión para los destinos {@code /user/...}.
+ */
+public class SessionTokenInterceptor implements ChannelInterceptor {
+
+    public static final String CLAIMS_ATTRIBUTE = "leotankcicos.session";
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenInterceptor.class);
+
+    private final SessionTokens sessionTokens;
+    private final boolean required;
+
+    public SessionTokenInterceptor(SessionTokens sessionTokens) {
+        this.sessionTokens = sessionTokens;
+        this.required = sessionTokens.isRequired();
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String token = accessor.getFirstNativeHeader(SessionTokens.HEADER);
+        if (token == null) {
+            if (required) {
+                throw new MessagingException(message, "Missing session token");
+            }
+            logger.warn("STOMP session {} connected without a session token; its inputs are trusted by username",
+                    accessor.getSessionId());
+            return message;
+        }
+        SessionTokens.Claims claims = sessionTokens.verify(token);
+        if (claims == null) {
+            throw new MessagingException(message, "Invalid session token");
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null) {
+            attributes.put(CLAIMS_ATTRIBUTE, claims);
+        }
+        accessor.setUser(claims);
+        return message;
+    }
+
+    public static SessionTokens.Claims claimsOf(Map<String, Object> sessionAttributes) {
+        return sessionAttributes != null ? (SessionTokens.Claims) sessionAttributes.get(CLAIMS_ATTRIBUTE) : null;
+    }
+}
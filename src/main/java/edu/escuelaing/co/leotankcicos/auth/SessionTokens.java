@@ -0,0 +1,186 @@
+package edu.escuelaing.co.leotankcicos.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * HMAC-SHA256 con la clave {@code TANK_SECRET_KEY}: verifica el hash del
+ * login y firma los tokens de sesión que se entregan al entrar a una
+ * partida. Cada hilo reutiliza su propio {@link Mac} ya inicializado y las
+ * firmas se comparan en tiempo constante.
+ *
+ * <p>El token es {@code base64url(matchId \0 slot \0 username)} seguido de
+ * un punto y los primeros 16 bytes de la firma, también en base64url.</p>
+ */
+@Component
+public class SessionTokens {
+
+    public static final String HEADER = "X-Session-Token";
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokens.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 16;
+    // Separa los tokens de sesión de los hashes de login
+    private static final byte[] TOKEN_DOMAIN = "session\0".getBytes(StandardCharsets.UTF_8);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final boolean required;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public SessionTokens(String secret) {
+        this(secret, true);
+    }
+
+    /**
+     * Con {@code required} en false (INSEGURO) se aceptan conexiones sin
+     * token y las entradas sin token se resuelven por el nombre de la ruta,
+     * así que cualquiera puede mover o disparar con el tanque de otro. Solo
+     * para clientes viejos o pruebas locales.
+     */
+    @Autowired
+    public SessionTokens(@Value("${TANK_SECRET_KEY:}") String secret,
+                         @Value("${leotankcicos.auth.require-session-token:true}") boolean required) {
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.required = required;
+        if (!required) {
+            logger.warn("leotankcicos.auth.require-session-token=false: inputs without a session token are trusted by username (insecure)");
+        }
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * Hash en hexadecimal que el cliente envía al hacer login.
+     */
+    public String hash(String message) {
+        return Hex.encodeHexString(mac().doFinal(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public boolean verifyLoginHash(String username, String receivedHash) {
+        if (username == null || receivedHash == null) {
+            return false;
+        }
+        byte[] received;
+        try {
+            received = Hex.decodeHex(receivedHash);
+        } catch (DecoderException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(mac().doFinal(username.getBytes(StandardCharsets.UTF_8)), received);
+    }
+
+    public String issue(String matchId, String username, int slot) {
+        byte[] payload = (matchId + '\0' + slot + '\0' + username).getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Devuelve los datos del token, o null si está mal formado o la firma
+     * no coincide.
+     */
+    public Claims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split("\0", 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new Claims(parts[0], parts[2], Integer.parseInt(parts[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        Mac mac = mac();
+        mac.update(TOKEN_DOMAIN);
+        return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_BYTES);
+    }
+
+    private Mac mac() {
+        if (key == null) {
+            throw new IllegalStateException("TANK_SECRET_KEY is not set");
+        }
+        return macs.get();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Jugador de una sesión STOMP; como {@link Principal} permite enviarle
+     * mensajes a {@code /user/...}.
+     */
+    public static final class Claims implements Principal {
+        private final String matchId;
+        private final String username;
+        private final int slot;
+
+        public Claims(String matchId, String username, int slot) {
+            this.matchId = matchId;
+            this.username = username;
+            this.slot = slot;
+        }
+
+        public String getMatchId() {
+            return matchId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public String getName() {
+            return username;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package edu.escuelaing.co.leotankcicos.broadcast;
+
+import edu.escuelaing.co.leotankcicos.engine.BulletPool;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+
+/**
+ * Fin de la trayectoria de una bala: la última casilla que ocupó, el tick y
+ * el motivo ({@code hit}, {@code wall} o {@code bounds}). El cliente deja de
+ * extrapolarla ahí.
+ */
+public class BulletEnd {
+
+    public static final String HIT = "hit";
+    public static final String WALL = "wall";
+    public static final String BOUNDS = "bounds";
+
+    private final String id;
+    private final int x;
+    private final int y;
+    private final long tick;
+    private final String reason;
+
+    public BulletEnd(String id, int x, int y, long tick, String reason) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.tick = tick;
+        this.reason = reason;
+    }
+
+    public static BulletEnd of(Match match, int slot) {
+        BulletPool bullets = match.getBullets();
+        return new BulletEnd(bullets.getId(slot), bullets.getX(slot), bullets.getY(slot), match.getTick(),
+                reasonOf(bullets.getEnd(slot)));
+    }
+
+    private static String reasonOf(int end) {
+        return switch (end) {
+            case BulletPool.END_HIT -> HIT;
+            case BulletPool.END_WALL -> WALL;
+            case BulletPool.END_BOUNDS -> BOUNDS;
+            default -> null;
+        };
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,71 @@
+package edu.escuelaing.co.leotankcicos.broadcast;
+
+import edu.escuelaing.co.leotankcicos.engine.BulletPool;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+
+/**
+ * Bala en la casilla {@code (x, y)} durante el tick {@code tick}. Su
+ * trayectoria es recta: en cada tick múltiplo de {@code stepTicks} avanza
+ * {@code speed} casillas en su dirección, así que el cliente la extrapola
+ * sin más mensajes hasta recibir su {@link BulletEnd}.
+ */
+public class BulletState {
+
+    private final String id;
+    private final int x;
+    private final int y;
+    private final int direction;
+    private final String tankId;
+    private final int speed;
+    private final long tick;
+    private final int stepTicks;
+
+    public BulletState(String id, int x, int y, int direction, String tankId, int speed, long tick, int stepTicks) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.direction = direction;
+        this.tankId = tankId;
+        this.speed = speed;
+        this.tick = tick;
+        this.stepTicks = stepTicks;
+    }
+
+    public static BulletState of(Match match, int slot) {
+        BulletPool bullets = match.getBullets();
+        return new BulletState(bullets.getId(slot), bullets.getX(slot), bullets.getY(slot), bullets.getDirection(slot),
+                bullets.getOwner(slot), bullets.getSpeed(slot), match.getTick(), match.getBulletStepTicks());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    public String getTankId() {
+        return tankId;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getStepTicks() {
+        return stepTicks;
+    }
+}
@@ -0,0 +1,26 @@
+package edu.escuelaing.co.leotankcicos.broadcast;
+
+public class CellChange {
+
+    private final int x;
+    private final int y;
+    private final String value;
+
+    public CellChange(int x, int y, String value) {
+        this.x = x;
+        this.y = y;
+        this.value = value;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
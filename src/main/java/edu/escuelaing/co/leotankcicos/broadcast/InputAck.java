@@ -0,0 +1,55 @@
+package edu.escuelaing.co.leotankcicos.broadcast;
+
+/**
+ * Confirmación de la última entrada aplicada a un jugador, con su posición
+ * autoritativa. El cliente descarta las entradas hasta {@code seq} y vuelve a
+ * aplicar las pendientes sobre esta posición.
+ */
+public class InputAck {
+
+    public static final String TYPE = "ack";
+
+    private final String matchId;
+    private final int seq;
+    private final int x;
+    private final int y;
+    private final int rotation;
+    private final long stateSeq;
+
+    public InputAck(String matchId, int seq, int x, int y, int rotation, long stateSeq) {
+        this.matchId = matchId;
+        this.seq = seq;
+        this.x = x;
+        this.y = y;
+        this.rotation = rotation;
+        this.stateSeq = stateSeq;
+    }
+
+    public String getType() {
+        return TYPE;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public int getSeq() {
+        return seq;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public long getStateSeq() {
+        return stateSeq;
+    }
+}
@@ -0,0 +1,437 @@
+package edu.escuelaing.co.leotankcicos.broadcast;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.escuelaing.co.leotankcicos.cluster.ClusterMessage;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.codec.GameFrames;
+import edu.escuelaing.co.leotankcicos.engine.AreaOfInterest;
+import edu.escuelaing.co.leotankcicos.engine.BulletPool;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchChanges;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publica el estado de cada partida en {@code /topic/matches/{id}/state}: un
+ * delta por tick con solo lo que cambió, o un snapshot completo cuando el
+ * tablero se reinicia. Los valores de los deltas son absolutos, así que
+ * aplicar un delta ya incluido en un snapshot no altera el resultado. Las
+ * balas van una vez al dispararse y otra al terminar (ver
+ * {@link BulletState} y {@link BulletEnd}).
+ */
+@Component
+public class StateBroadcaster {
+
+    private final SimpMessagingTemplate msgt;
+    private final boolean legacyEvents;
+    private final boolean binaryFrames;
+    private final boolean areaOfInterest;
+    private final ClusterNode clusterNode;
+    private final SpectatorHub spectators;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> sendTimers = new ConcurrentHashMap<>();
+    private final ObjectMapper clusterMapper = new ObjectMapper();
+
+    @Autowired
+    public StateBroadcaster(SimpMessagingTemplate msgt,
+                            @Value("${leotankcicos.broadcast.legacy-events:true}") boolean legacyEvents,
+                            @Value("${leotankcicos.codec.binary.enabled:false}") boolean binaryFrames,
+                            @Value("${leotankcicos.broadcast.aoi.enabled:false}") boolean areaOfInterest,
+                            ClusterNode clusterNode, SpectatorHub spectators, MeterRegistry meterRegistry) {
+        this.msgt = msgt;
+        this.legacyEvents = legacyEvents;
+        this.binaryFrames = binaryFrames;
+        this.areaOfInterest = areaOfInterest;
+        this.clusterNode = clusterNode;
+        this.spectators = spectators;
+        this.meterRegistry = meterRegistry;
+        clusterNode.setEventHandler(this::deliverForwarded);
+    }
+
+    // Con área de interés una bala se reenvía al cambiar de región, así que hay que detectar el cruce
+    public boolean isAreaOfInterest() {
+        return areaOfInterest;
+    }
+
+    /**
+     * Movimiento suelto: al tópico con {@code leotankcicos.broadcast.legacy-events},
+     * solo a los jugadores cercanos con área de interés, y como frame de
+     * {@link GameFrames} en {@code /topic/matches/{id}/bin/...} con
+     * {@code leotankcicos.codec.binary.enabled}.
+     */
+    public void movement(Match match, Tank tank) {
+        if (areaOfInterest) {
+            for (String viewer : match.getInterest().viewersOf(tank.getPosx(), tank.getPosy())) {
+                sendToUser(match, viewer, "movement", tank);
+            }
+        } else if (legacyEvents) {
+            send(match, "movement", tank);
+        }
+        if (binaryFrames) {
+            sendBinary(match, "bin/movement", GameFrames.encodeMovement(tank));
+        }
+    }
+
+    // Como movement, y además para los espectadores
+    public void collision(Match match, Tank tank, String bulletId) {
+        if (legacyEvents || areaOfInterest || spectators.isActive(match)) {
+            Map<String, String> response = new HashMap<>();
+            response.put("tank", tank.getName());
+            response.put("x", String.valueOf(tank.getPosx()));
+            response.put("y", String.valueOf(tank.getPosy()));
+            response.put("bulletId", bulletId);
+            if (areaOfInterest) {
+                for (String viewer : match.getInterest().viewersOf(tank.getPosx(), tank.getPosy())) {
+                    sendToUser(match, viewer, "collisionResult", response);
+                }
+                // El eliminado ya no está en el área de interés
+                sendToUser(match, tank.getName(), "collisionResult", response);
+            } else if (legacyEvents) {
+                send(match, "collisionResult", response);
+            }
+            spectators.publish(match, "collisionResult", response);
+        }
+        if (binaryFrames) {
+            sendBinary(match, "bin/collisionResult",
+                    GameFrames.encodeCollision(tank.getName(), tank.getPosx(), tank.getPosy(), bulletId));
+        }
+    }
+
+    public void winner(Match match, Tank winner) {
+        send(match, "winner", winner);
+        spectators.publish(match, "winner", winner);
+        if (binaryFrames) {
+            sendBinary(match, "bin/winner", GameFrames.encodeWinner(winner));
+        }
+    }
+
+    private void send(Match match, String event, Object payload) {
+        long start = System.nanoTime();
+        msgt.convertAndSend(match.topic(event), payload);
+        sendTimer(event).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        forward(match.topic(event), null, payload);
+    }
+
+    private void sendToUser(Match match, String user, String event, Object payload) {
+        long start = System.nanoTime();
+        msgt.convertAndSendToUser(user, match.queue(event), payload);
+        sendTimer(event).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        forward(match.queue(event), user, payload);
+    }
+
+    private void sendBinary(Match match, String event, byte[] frame) {
+        long start = System.nanoTime();
+        msgt.convertAndSend(match.topic(event), frame, binaryHeaders());
+        sendTimer(event).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        clusterNode.publish(match.topic(event), null, frame, GameFrames.MIME_TYPE.toString());
+    }
+
+    // En un clúster solo publica el nodo dueño; los demás entregan estos bytes sin convertirlos.
+    // Se serializa aquí, en el hilo dueño: los tanques y deltas siguen cambiando después del envío
+    private void forward(String destination, String user, Object payload) {
+        if (!clusterNode.isClustered()) {
+            return;
+        }
+        try {
+            clusterNode.publish(destination, user, clusterMapper.writeValueAsBytes(payload), MimeTypeUtils.APPLICATION_JSON_VALUE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageHeaders binaryHeaders() {
+        return headers(GameFrames.MIME_TYPE);
+    }
+
+    private static MessageHeaders headers(MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    // Eventos que el nodo dueño de la partida ya publicó, para las sesiones de este nodo.
+    // Los bytes ya vienen serializados: se mandan tal cual, sin pasar por el conversor
+    private void deliverForwarded(ClusterMessage message) {
+        String destination = message.getDestination();
+        if (message.getUser() != null) {
+            destination = msgt.getUserDestinationPrefix() + StringUtils.replace(message.getUser(), "/", "%2F") + destination;
+        }
+        MessageHeaders headers = headers(MimeTypeUtils.parseMimeType(message.getContentType()));
+        msgt.send(destination, MessageBuilder.createMessage(message.getPayload(), headers));
+    }
+
+    // Por evento y no por partida, para no multiplicar las series
+    private Timer sendTimer(String event) {
+        return sendTimers.computeIfAbsent(event, e -> Timer.builder("leotankcicos.broadcast.send")
+                .description("Latencia de convertAndSend por evento")
+                .tag("event", e)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Estado completo en la secuencia actual. Debe llamarse desde el hilo
+     * dueño de la partida; lleva copias de los tanques, así que se puede
+     * serializar desde otro hilo.
+     */
+    public StateSnapshot snapshot(Match match) {
+        Board board = match.getBoard();
+        List<BulletState> bullets = new ArrayList<>();
+        BulletPool pool = match.getBullets();
+        for (int i = 0; i < pool.size(); i++) {
+            if (pool.isAlive(pool.slotAt(i))) {
+                bullets.add(BulletState.of(match, pool.slotAt(i)));
+            }
+        }
+        return new StateSnapshot(match.getId(), match.getStateSeq(), board.getWidth(), board.getHeight(),
+                board.getBoxes(), match.getTanks().stream().map(Tank::copy).toList(), bullets);
+    }
+
+    /**
+     * Publica lo acumulado durante el tick, si hubo cambios, y después las
+     * confirmaciones de entrada. Debe llamarse desde el hilo dueño de la
+     * partida al final de cada tick.
+     */
+    public void publishTick(Match match) {
+        publishState(match);
+        publishKeyframe(match);
+        publishAcks(match);
+    }
+
+    // Entradas con número de secuencia, con la posición autoritativa del tanque en /user/queue/matches/{id}/ack.
+    // Va después del estado para que stateSeq ya incluya los movimientos confirmados
+    private void publishAcks(Match match) {
+        match.drainAcks((name, seq) -> {
+            Tank tank = match.getTank(name);
+            if (tank != null) {
+                sendToUser(match, name, "ack", new InputAck(match.getId(), seq, tank.getPosx(), tank.getPosy(),
+                        tank.getRotation(), match.getStateSeq()));
+            }
+        });
+    }
+
+    private void publishState(Match match) {
+        Board board = match.getBoard();
+        MatchChanges changes = match.getChanges();
+
+        if (board.drainReset()) {
+            board.clearDirtyCells();
+            changes.clear();
+            match.nextStateSeq();
+            StateSnapshot snapshot = snapshot(match);
+            send(match, "state", snapshot);
+            spectators.publishKeyframe(match, snapshot);
+            match.getInterest().reset();
+            match.getInterest().updateViewers(match.getTanks());
+            return;
+        }
+
+        List<CellChange> cells = new ArrayList<>();
+        board.drainDirtyCells(index -> cells.add(
+                new CellChange(index % board.getWidth(), index / board.getWidth(), board.getValue(index))));
+        if (areaOfInterest) {
+            long seq = publishInterest(match, cells);
+            if (seq >= 0 && spectators.isActive(match) && !(cells.isEmpty() && changes.isEmpty())) {
+                spectators.publish(match, "state", globalDelta(match, seq, cells));
+            }
+            changes.clear();
+            return;
+        }
+        if (cells.isEmpty() && changes.isEmpty()) {
+            return;
+        }
+
+        StateDelta delta = globalDelta(match, match.nextStateSeq(), cells);
+        changes.clear();
+        send(match, "state", delta);
+        spectators.publish(match, "state", delta);
+    }
+
+    // Mientras alguien mire la partida o se graben repeticiones, sus eventos van al anillo de SpectatorHub.
+    // El keyframe sale cada keyframe-every eventos, o en cuanto alguien empieza a mirar aunque esté quieta
+    private void publishKeyframe(Match match) {
+        if (spectators.needsKeyframe(match)) {
+            spectators.publishKeyframe(match, snapshot(match));
+        }
+    }
+
+    /**
+     * La partida se descargó: deja de alimentar a los espectadores.
+     */
+    public void matchEvicted(Match match) {
+        spectators.endFeed(match);
+    }
+
+    private StateDelta globalDelta(Match match, long seq, List<CellChange> cells) {
+        MatchChanges changes = match.getChanges();
+        List<Tank> tanks = new ArrayList<>();
+        for (String name : changes.getTanks()) {
+            Tank tank = match.getTank(name);
+            if (tank != null) {
+                tanks.add(tank);
+            }
+        }
+        List<BulletState> bullets = new ArrayList<>();
+        BitSet changed = changes.getBullets();
+        for (int slot = changed.nextSetBit(0); slot >= 0; slot = changed.nextSetBit(slot + 1)) {
+            bullets.add(BulletState.of(match, slot));
+        }
+        List<BulletEnd> endedBullets = new ArrayList<>();
+        BitSet removed = changes.getRemovedBullets();
+        for (int slot = removed.nextSetBit(0); slot >= 0; slot = removed.nextSetBit(slot + 1)) {
+            endedBullets.add(BulletEnd.of(match, slot));
+        }
+        return new StateDelta(match.getId(), seq, cells, tanks,
+                new ArrayList<>(changes.getRemovedTanks()), bullets, endedBullets);
+    }
+
+    /**
+     * Agrupa los cambios del tick por región y arma un delta por región
+     * ocupada con lo de sus nueve regiones, que se reparte a los jugadores
+     * de esa región. El trabajo por jugador depende de lo que hay cerca, no
+     * del total de la partida. Los deltas conservan el {@code seq} global y
+     * saltan los ticks en que el jugador no vio nada; quien entra en una
+     * región nueva recibe todo lo visible desde ella. Los snapshots y el
+     * ganador siguen yendo al tópico. Devuelve la secuencia usada, o -1 si no
+     * hubo nada que publicar.
+     */
+    private long publishInterest(Match match, List<CellChange> cells) {
+        AreaOfInterest interest = match.getInterest();
+        MatchChanges changes = match.getChanges();
+        Set<String> arrived = new HashSet<>(interest.updateViewers(match.getTanks()));
+        BitSet crossed = changes.getCrossedBullets();
+        if (cells.isEmpty() && changes.isEmpty() && crossed.isEmpty() && arrived.isEmpty()) {
+            return -1;
+        }
+
+        Map<Integer, RegionChanges> changed = new HashMap<>();
+        for (CellChange cell : cells) {
+            region(changed, interest.regionOf(cell.getX(), cell.getY())).cells.add(cell);
+        }
+        for (String name : changes.getTanks()) {
+            Tank tank = match.getTank(name);
+            if (tank != null) {
+                region(changed, interest.regionOf(tank.getPosx(), tank.getPosy())).tanks.add(tank);
+            }
+        }
+        BulletPool pool = match.getBullets();
+        // Quien ya veía la bala la reconoce por el id; quien la ve por primera vez empieza a extrapolarla
+        BitSet bullets = (BitSet) changes.getBullets().clone();
+        bullets.or(crossed);
+        for (int slot = bullets.nextSetBit(0); slot >= 0; slot = bullets.nextSetBit(slot + 1)) {
+            region(changed, interest.regionOf(pool.getX(slot), pool.getY(slot))).bullets.add(BulletState.of(match, slot));
+        }
+        BitSet removed = changes.getRemovedBullets();
+        for (int slot = removed.nextSetBit(0); slot >= 0; slot = removed.nextSetBit(slot + 1)) {
+            region(changed, interest.regionOf(pool.getX(slot), pool.getY(slot))).endedBullets.add(BulletEnd.of(match, slot));
+        }
+        Map<Integer, RegionChanges> visible = arrived.isEmpty() ? null : visibleByRegion(match);
+        List<String> removedTanks = new ArrayList<>(changes.getRemovedTanks());
+        long seq = match.nextStateSeq();
+
+        for (int region : interest.getOccupiedRegions()) {
+            StateDelta shared = null;
+            for (Tank viewer : interest.viewersIn(region)) {
+                StateDelta delta;
+                if (arrived.contains(viewer.getName())) {
+                    delta = regionDelta(match, seq, interest, region, changed, visible, removedTanks);
+                } else {
+                    if (shared == null) {
+                        shared = regionDelta(match, seq, interest, region, changed, null, removedTanks);
+                    }
+                    delta = shared;
+                }
+                if (hasChanges(delta)) {
+                    sendToUser(match, viewer.getName(), "state", delta);
+                }
+            }
+        }
+        return seq;
+    }
+
+    // Tanques y balas vivos por región, para quien acaba de entrar en una
+    private Map<Integer, RegionChanges> visibleByRegion(Match match) {
+        AreaOfInterest interest = match.getInterest();
+        Map<Integer, RegionChanges> visible = new HashMap<>();
+        for (Tank tank : match.getTanks()) {
+            region(visible, interest.regionOf(tank.getPosx(), tank.getPosy())).tanks.add(tank);
+        }
+        BulletPool pool = match.getBullets();
+        for (int i = 0; i < pool.size(); i++) {
+            int slot = pool.slotAt(i);
+            if (pool.isAlive(slot)) {
+                region(visible, interest.regionOf(pool.getX(slot), pool.getY(slot))).bullets.add(BulletState.of(match, slot));
+            }
+        }
+        return visible;
+    }
+
+    private StateDelta regionDelta(Match match, long seq, AreaOfInterest interest, int region,
+                                   Map<Integer, RegionChanges> changed, Map<Integer, RegionChanges> visible,
+                                   List<String> removedTanks) {
+        List<CellChange> cells = new ArrayList<>();
+        Map<String, Tank> tanks = new LinkedHashMap<>();
+        Map<String, BulletState> bullets = new LinkedHashMap<>();
+        List<BulletEnd> endedBullets = new ArrayList<>();
+        interest.forEachNeighbor(region, neighbor -> {
+            RegionChanges local = changed.get(neighbor);
+            if (local != null) {
+                cells.addAll(local.cells);
+                local.tanks.forEach(tank -> tanks.put(tank.getName(), tank));
+                local.bullets.forEach(bullet -> bullets.put(bullet.getId(), bullet));
+                endedBullets.addAll(local.endedBullets);
+            }
+            RegionChanges all = visible != null ? visible.get(neighbor) : null;
+            if (all != null) {
+                all.tanks.forEach(tank -> tanks.put(tank.getName(), tank));
+                all.bullets.forEach(bullet -> bullets.put(bullet.getId(), bullet));
+            }
+        });
+        return new StateDelta(match.getId(), seq, cells, new ArrayList<>(tanks.values()), removedTanks,
+                new ArrayList<>(bullets.values()), endedBullets);
+    }
+
+    private static boolean hasChanges(StateDelta delta) {
+        return !delta.getCells().isEmpty() || !delta.getTanks().isEmpty() || !delta.getRemovedTanks().isEmpty()
+                || !delta.getBullets().isEmpty() || !delta.getEndedBullets().isEmpty();
+    }
+
+    private static RegionChanges region(Map<Integer, RegionChanges> regions, int region) {
+        return regions.computeIfAbsent(region, r -> new RegionChanges());
+    }
+
+    private static final class RegionChanges {
+        private final List<CellChange> cells = new ArrayList<>();
+        private final List<Tank> tanks = new ArrayList<>();
+        private final List<BulletState> bullets = new ArrayList<>();
+        private final List<BulletEnd> endedBullets = new ArrayList<>();
+    }
+}
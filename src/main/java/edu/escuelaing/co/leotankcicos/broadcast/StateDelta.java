@@ -0,0 +1,75 @@
+package edu.escuelaing.co.leotankcicos.broadcast;
+
+import java.util.List;
+
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Cambios de un tick. Cada delta lleva {@code seq} igual al anterior más uno;
+ * si el cliente detecta un salto debe pedir un snapshot nuevo.
+ *
+ * <p>Una bala aparece en {@code bullets} una sola vez, al dispararse, y una
+ * vez en {@code endedBullets} cuando termina; {@code removedBullets} repite
+ * solo los ids para los clientes que no leen el motivo.</p>
+ */
+public class StateDelta {
+
+    public static final String TYPE = "delta";
+
+    private final String matchId;
+    private final long seq;
+    private final List<CellChange> cells;
+    private final List<Tank> tanks;
+    private final List<String> removedTanks;
+    private final List<BulletState> bullets;
+    private final List<String> removedBullets;
+    private final List<BulletEnd> endedBullets;
+
+    public StateDelta(String matchId, long seq, List<CellChange> cells, List<Tank> tanks, List<String> removedTanks,
+                      List<BulletState> bullets, List<BulletEnd> endedBullets) {
+        this.matchId = matchId;
+        this.seq = seq;
+        this.cells = cells;
+        this.tanks = tanks;
+        this.removedTanks = removedTanks;
+        this.bullets = bullets;
+        this.endedBullets = endedBullets;
+        this.removedBullets = endedBullets.stream().map(BulletEnd::getId).toList();
+    }
+
+    public String getType() {
+        return TYPE;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public List<CellChange> getCells() {
+        return cells;
+    }
+
+    public List<Tank> getTanks() {
+        return tanks;
+    }
+
+    public List<String> getRemovedTanks() {
+        return removedTanks;
+    }
+
+    public List<BulletState> getBullets() {
+        return bullets;
+    }
+
+    public List<String> getRemovedBullets() {
+        return removedBullets;
+    }
+
+    public List<BulletEnd> getEndedBullets() {
+        return endedBullets;
+    }
+}
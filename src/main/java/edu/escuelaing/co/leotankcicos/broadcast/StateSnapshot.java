@@ -0,0 +1,64 @@
+package edu.escuelaing.co.leotankcicos.broadcast;
+
+import java.util.List;
+
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Estado completo de la partida en la secuencia {@code seq}. Los deltas con
+ * secuencia menor o igual ya están incluidos y el cliente los descarta.
+ */
+public class StateSnapshot {
+
+    public static final String TYPE = "snapshot";
+
+    private final String matchId;
+    private final long seq;
+    private final int width;
+    private final int height;
+    private final String[][] boxes;
+    private final List<Tank> tanks;
+    private final List<BulletState> bullets;
+
+    public StateSnapshot(String matchId, long seq, int width, int height, String[][] boxes, List<Tank> tanks, List<BulletState> bullets) {
+        this.matchId = matchId;
+        this.seq = seq;
+        this.width = width;
+        this.height = height;
+        this.boxes = boxes;
+        this.tanks = tanks;
+        this.bullets = bullets;
+    }
+
+    public String getType() {
+        return TYPE;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String[][] getBoxes() {
+        return boxes;
+    }
+
+    public List<Tank> getTanks() {
+        return tanks;
+    }
+
+    public List<BulletState> getBullets() {
+        return bullets;
+    }
+}
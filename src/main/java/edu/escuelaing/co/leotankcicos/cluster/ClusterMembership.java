@@ -0,0 +1,14 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import java.util.List;
+
+/**
+ * Nodos vivos del clúster. Todos los nodos deben ver la misma lista para que
+ * coincidan en el dueño de cada partida.
+ */
+public interface ClusterMembership {
+
+    String getLocalNodeId();
+
+    List<String> getNodeIds();
+}
@@ -0,0 +1,83 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import edu.escuelaing.co.leotankcicos.engine.MatchCommand;
+
+/**
+ * Mensaje entre nodos: una entrada para la partida que el destino posee, o
+ * un evento ya publicado por el dueño que los demás nodos entregan a sus
+ * propias sesiones. Los eventos viajan ya serializados por el hilo dueño de
+ * la partida, así que no comparten objetos vivos con el nodo que los recibe.
+ */
+public final class ClusterMessage {
+
+    public enum Type {
+        INPUT, EVENT
+    }
+
+    private final Type type;
+    private final String sourceNodeId;
+    private final String matchId;
+    private final MatchCommand command;
+    private final String destination;
+    private final String user;
+    private final byte[] payload;
+    private final String contentType;
+
+    private ClusterMessage(Type type, String sourceNodeId, String matchId, MatchCommand command,
+                           String destination, String user, byte[] payload, String contentType) {
+        this.type = type;
+        this.sourceNodeId = sourceNodeId;
+        this.matchId = matchId;
+        this.command = command;
+        this.destination = destination;
+        this.user = user;
+        this.payload = payload;
+        this.contentType = contentType;
+    }
+
+    public static ClusterMessage input(String sourceNodeId, String matchId, MatchCommand command) {
+        return new ClusterMessage(Type.INPUT, sourceNodeId, matchId, command, null, null, null, null);
+    }
+
+    /**
+     * Evento para un destino STOMP. {@code user} es null para los tópicos
+     * compartidos. Los bytes pasan a ser del mensaje: quien lo envía no los
+     * vuelve a tocar y quien lo recibe los entrega tal cual.
+     */
+    public static ClusterMessage event(String sourceNodeId, String destination, String user, byte[] payload,
+                                       String contentType) {
+        return new ClusterMessage(Type.EVENT, sourceNodeId, null, null, destination, user, payload, contentType);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getSourceNodeId() {
+        return sourceNodeId;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public MatchCommand getCommand() {
+        return command;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,118 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import edu.escuelaing.co.leotankcicos.engine.MatchCommand;
+
+/**
+ * Vista del clúster desde un nodo. Cada partida tiene un único dueño, que la
+ * simula; los demás nodos le reenvían las entradas de sus sesiones y
+ * reciben de él los eventos ya publicados para entregarlos a las suyas. Con
+ * un solo nodo no se reenvía nada.
+ */
+public class ClusterNode {
+
+    private static final String STANDALONE = "local";
+
+    private final ClusterMembership membership;
+    private final ClusterTransport transport;
+    private final MatchRouter router;
+    private final AtomicLong forwardedInputs = new AtomicLong();
+    private final AtomicLong forwardedEvents = new AtomicLong();
+    private volatile BiConsumer<String, MatchCommand> inputHandler = (matchId, command) -> { };
+    private volatile Consumer<ClusterMessage> eventHandler = message -> { };
+
+    public ClusterNode(ClusterMembership membership, ClusterTransport transport, MatchRouter router) {
+        this.membership = membership;
+        this.transport = transport;
+        this.router = router;
+        transport.setReceiver(this::receive);
+    }
+
+    public static ClusterNode standalone() {
+        return new ClusterNode(new StaticMembership(STANDALONE, List.of(STANDALONE)), new ClusterTransport() {
+            @Override
+            public void send(String nodeId, ClusterMessage message) {
+                throw new IllegalStateException("Standalone node has no peers");
+            }
+
+            @Override
+            public void broadcast(ClusterMessage message) {
+                // Sin otros nodos
+            }
+
+            @Override
+            public void setReceiver(Consumer<ClusterMessage> receiver) {
+                // Nunca llega nada
+            }
+        }, new RendezvousRouter());
+    }
+
+    public String getLocalNodeId() {
+        return membership.getLocalNodeId();
+    }
+
+    public boolean isClustered() {
+        return membership.getNodeIds().size() > 1;
+    }
+
+    public String ownerOf(String matchId) {
+        return router.ownerOf(matchId, membership.getNodeIds());
+    }
+
+    public boolean isLocal(String matchId) {
+        return !isClustered() || getLocalNodeId().equals(ownerOf(matchId));
+    }
+
+    public void requireLocal(String matchId) {
+        if (!isLocal(matchId)) {
+            throw new NotMatchOwnerException(matchId, ownerOf(matchId));
+        }
+    }
+
+    /**
+     * Envía la entrada al dueño de la partida, que la encola como si hubiera
+     * llegado por una sesión propia.
+     */
+    public void forwardInput(String matchId, MatchCommand command) {
+        forwardedInputs.incrementAndGet();
+        transport.send(ownerOf(matchId), ClusterMessage.input(getLocalNodeId(), matchId, command));
+    }
+
+    /**
+     * Reenvía un evento ya entregado localmente a los demás nodos, serializado
+     * con su tipo de contenido.
+     */
+    public void publish(String destination, String user, byte[] payload, String contentType) {
+        if (isClustered()) {
+            forwardedEvents.incrementAndGet();
+            transport.broadcast(ClusterMessage.event(getLocalNodeId(), destination, user, payload, contentType));
+        }
+    }
+
+    public void setInputHandler(BiConsumer<String, MatchCommand> inputHandler) {
+        this.inputHandler = inputHandler;
+    }
+
+    public void setEventHandler(Consumer<ClusterMessage> eventHandler) {
+        this.eventHandler = eventHandler;
+    }
+
+    public long getForwardedInputs() {
+        return forwardedInputs.get();
+    }
+
+    public long getForwardedEvents() {
+        return forwardedEvents.get();
+    }
+
+    private void receive(ClusterMessage message) {
+        switch (message.getType()) {
+            case INPUT -> inputHandler.accept(message.getMatchId(), message.getCommand());
+            case EVENT -> eventHandler.accept(message);
+        }
+    }
+}
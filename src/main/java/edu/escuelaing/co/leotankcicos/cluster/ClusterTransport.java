@@ -0,0 +1,20 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Envío de mensajes entre nodos. Los mensajes de un nodo a otro deben llegar
+ * en el orden en que se enviaron. Los eventos ya vienen serializados y se
+ * entregan con los mismos bytes y tipo de contenido.
+ */
+public interface ClusterTransport {
+
+    void send(String nodeId, ClusterMessage message);
+
+    /**
+     * Envía el mensaje a todos los nodos menos el local.
+     */
+    void broadcast(ClusterMessage message);
+
+    void setReceiver(Consumer<ClusterMessage> receiver);
+}
@@ -0,0 +1,93 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Clúster de varios nodos dentro de la misma JVM, para pruebas y benchmarks.
+ * Cada nodo recibe sus mensajes en un hilo propio, en el orden de envío,
+ * igual que lo haría con un transporte de red. Los bytes de los eventos se
+ * reenvían tal cual, sin copiarlos ni volver a serializarlos.
+ */
+public class InProcessCluster {
+
+    private final List<String> nodeIds;
+    private final Map<String, Transport> transports = new LinkedHashMap<>();
+
+    public InProcessCluster(String... nodeIds) {
+        this.nodeIds = List.of(nodeIds);
+        for (String nodeId : nodeIds) {
+            transports.put(nodeId, new Transport(nodeId));
+        }
+    }
+
+    public List<String> getNodeIds() {
+        return nodeIds;
+    }
+
+    public ClusterNode node(String nodeId) {
+        return new ClusterNode(new StaticMembership(nodeId, nodeIds), transport(nodeId), new RendezvousRouter());
+    }
+
+    public ClusterTransport transport(String nodeId) {
+        Transport transport = transports.get(nodeId);
+        if (transport == null) {
+            throw new IllegalArgumentException("Unknown node " + nodeId);
+        }
+        return transport;
+    }
+
+    public void shutdown() {
+        transports.values().forEach(transport -> transport.inbox.shutdownNow());
+    }
+
+    private final class Transport implements ClusterTransport {
+
+        private final String nodeId;
+        private final ExecutorService inbox;
+        private volatile Consumer<ClusterMessage> receiver = message -> { };
+
+        private Transport(String nodeId) {
+            this.nodeId = nodeId;
+            this.inbox = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "cluster-" + nodeId);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void send(String target, ClusterMessage message) {
+            ((Transport) transport(target)).deliver(message);
+        }
+
+        @Override
+        public void broadcast(ClusterMessage message) {
+            for (Transport transport : transports.values()) {
+                if (transport != this) {
+                    transport.deliver(message);
+                }
+            }
+        }
+
+        @Override
+        public void setReceiver(Consumer<ClusterMessage> receiver) {
+            this.receiver = receiver;
+        }
+
+        private void deliver(ClusterMessage message) {
+            if (!inbox.isShutdown()) {
+                inbox.execute(() -> receiver.accept(message));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "in-process:" + nodeId;
+        }
+    }
+}
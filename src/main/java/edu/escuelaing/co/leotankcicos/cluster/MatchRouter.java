@@ -0,0 +1,12 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import java.util.List;
+
+/**
+ * Escoge el nodo dueño de una partida. Debe ser determinista: la misma
+ * partida y la misma lista de nodos dan siempre el mismo dueño.
+ */
+public interface MatchRouter {
+
+    String ownerOf(String matchId, List<String> nodeIds);
+}
@@ -0,0 +1,25 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+/**
+ * La partida pertenece a otro nodo; el cliente debe repetir la petición en
+ * {@link #getOwner()}.
+ */
+public class NotMatchOwnerException extends RuntimeException {
+
+    private final String matchId;
+    private final String owner;
+
+    public NotMatchOwnerException(String matchId, String owner) {
+        super("Match " + matchId + " is owned by node " + owner);
+        this.matchId = matchId;
+        this.owner = owner;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
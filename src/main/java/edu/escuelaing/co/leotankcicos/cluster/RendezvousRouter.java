@@ -0,0 +1,31 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import java.util.List;
+
+/**
+ * Hashing de rendezvous: el dueño es el nodo con el mayor hash de
+ * (partida, nodo). Si un nodo sale, solo se mueven sus partidas.
+ */
+public class RendezvousRouter implements MatchRouter {
+
+    @Override
+    public String ownerOf(String matchId, List<String> nodeIds) {
+        String owner = null;
+        long best = Long.MIN_VALUE;
+        for (String nodeId : nodeIds) {
+            long score = mix(matchId.hashCode() * 31L + nodeId.hashCode());
+            if (owner == null || score > best) {
+                best = score;
+                owner = nodeId;
+            }
+        }
+        return owner;
+    }
+
+    // Finalizador de SplitMix64, para que ids parecidos no den hashes parecidos
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
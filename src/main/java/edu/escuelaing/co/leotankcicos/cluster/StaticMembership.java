@@ -0,0 +1,30 @@
+package edu.escuelaing.co.leotankcicos.cluster;
+
+import java.util.List;
+
+/**
+ * Lista fija de nodos, configurada igual en todos ellos.
+ */
+public class StaticMembership implements ClusterMembership {
+
+    private final String localNodeId;
+    private final List<String> nodeIds;
+
+    public StaticMembership(String localNodeId, List<String> nodeIds) {
+        if (!nodeIds.contains(localNodeId)) {
+            throw new IllegalArgumentException("Node " + localNodeId + " is not in " + nodeIds);
+        }
+        this.localNodeId = localNodeId;
+        this.nodeIds = List.copyOf(nodeIds);
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    @Override
+    public List<String> getNodeIds() {
+        return nodeIds;
+    }
+}
@@ -0,0 +1,54 @@
+package edu.escuelaing.co.leotankcicos.codec;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+import edu.escuelaing.co.leotankcicos.model.MoveCommand;
+
+/**
+ * Convierte los frames binarios de {@link GameFrames} en los argumentos de
+ * los {@code @MessageMapping} de movimiento ({@link MoveCommand}) y disparo
+ * (el id de la bala). Solo actúa cuando el frame trae el content-type del
+ * códec, así que las sesiones que envían JSON siguen igual.
+ */
+public class BinaryFrameMessageConverter extends AbstractMessageConverter {
+
+    public BinaryFrameMessageConverter() {
+        super(GameFrames.MIME_TYPE);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MoveCommand.class == clazz || String.class == clazz;
+    }
+
+    @Override
+    protected boolean supportsMimeType(MessageHeaders headers) {
+        MimeType mimeType = getMimeType(headers);
+        return mimeType != null
+                && GameFrames.MIME_TYPE.equalsTypeAndSubtype(mimeType)
+                && GameFrames.MIME_TYPE.getParameter("codec").equals(mimeType.getParameter("codec"));
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] frame)) {
+            return null;
+        }
+        if (targetClass == MoveCommand.class) {
+            return GameFrames.decodeMove(frame);
+        }
+        return GameFrames.decodeShoot(frame);
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        if (payload instanceof MoveCommand move) {
+            return GameFrames.encodeMove(move);
+        }
+        return GameFrames.encodeShoot((String) payload);
+    }
+}
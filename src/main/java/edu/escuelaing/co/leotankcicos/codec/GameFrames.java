@@ -0,0 +1,215 @@
+package edu.escuelaing.co.leotankcicos.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.util.MimeType;
+
+import edu.escuelaing.co.leotankcicos.model.MoveCommand;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Formato binario de longitud fija para el tráfico STOMP del juego. Cada
+ * frame empieza con un byte de tipo; las coordenadas y la rotación van como
+ * {@code short} big-endian y los textos como un byte de longitud seguido de
+ * UTF-8 (máximo 255 bytes).
+ *
+ * <pre>
+ * MOVE      0x01  posX posY newPosX newPosY rotation [seq int]
+ * SHOOT     0x02  bulletId
+ * MOVEMENT  0x10  x y rotation name
+ * COLLISION 0x11  x y tank bulletId
+ * WINNER    0x12  x y name color
+ * </pre>
+ */
+public final class GameFrames {
+
+    // octet-stream hace que Spring envíe el frame como mensaje binario de WebSocket
+    public static final MimeType MIME_TYPE = new MimeType("application", "octet-stream", Map.of("codec", "leotank"));
+
+    public static final byte MOVE = 0x01;
+    public static final byte SHOOT = 0x02;
+    public static final byte MOVEMENT = 0x10;
+    public static final byte COLLISION = 0x11;
+    public static final byte WINNER = 0x12;
+
+    private static final int MAX_STRING_BYTES = 255;
+
+    private GameFrames() {
+    }
+
+    public static byte type(byte[] frame) {
+        if (frame.length == 0) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+        return frame[0];
+    }
+
+    // El seq solo viaja si el cliente pide confirmación; sin él el frame queda como antes
+    public static byte[] encodeMove(MoveCommand move) {
+        ByteBuffer buffer = ByteBuffer.allocate(move.getSeq() != 0 ? 15 : 11);
+        buffer.put(MOVE);
+        putShort(buffer, move.getPosX());
+        putShort(buffer, move.getPosY());
+        putShort(buffer, move.getNewPosX());
+        putShort(buffer, move.getNewPosY());
+        putShort(buffer, move.getRotation());
+        if (move.getSeq() != 0) {
+            buffer.putInt(move.getSeq());
+        }
+        return buffer.array();
+    }
+
+    public static MoveCommand decodeMove(byte[] frame) {
+        ByteBuffer buffer = open(frame, MOVE);
+        try {
+            MoveCommand move = new MoveCommand(buffer.getShort(), buffer.getShort(), buffer.getShort(), buffer.getShort(), buffer.getShort());
+            if (buffer.remaining() >= Integer.BYTES) {
+                move.setSeq(buffer.getInt());
+            }
+            return move;
+        } catch (BufferUnderflowException e) {
+            throw truncated(MOVE);
+        }
+    }
+
+    public static byte[] encodeShoot(String bulletId) {
+        byte[] id = utf8(bulletId);
+        ByteBuffer buffer = ByteBuffer.allocate(2 + id.length);
+        buffer.put(SHOOT);
+        putString(buffer, id);
+        return buffer.array();
+    }
+
+    public static String decodeShoot(byte[] frame) {
+        return getString(open(frame, SHOOT), SHOOT);
+    }
+
+    public static byte[] encodeMovement(Tank tank) {
+        byte[] name = utf8(tank.getName());
+        ByteBuffer buffer = ByteBuffer.allocate(8 + name.length);
+        buffer.put(MOVEMENT);
+        putShort(buffer, tank.getPosx());
+        putShort(buffer, tank.getPosy());
+        putShort(buffer, tank.getRotation());
+        putString(buffer, name);
+        return buffer.array();
+    }
+
+    public static Tank decodeMovement(byte[] frame) {
+        ByteBuffer buffer = open(frame, MOVEMENT);
+        try {
+            Tank tank = new Tank();
+            tank.setPosx(buffer.getShort());
+            tank.setPosy(buffer.getShort());
+            tank.setRotation(buffer.getShort());
+            tank.setName(getString(buffer, MOVEMENT));
+            tank.setAlive(true);
+            return tank;
+        } catch (BufferUnderflowException e) {
+            throw truncated(MOVEMENT);
+        }
+    }
+
+    public static byte[] encodeCollision(String tankName, int x, int y, String bulletId) {
+        byte[] tank = utf8(tankName);
+        byte[] bullet = utf8(bulletId);
+        ByteBuffer buffer = ByteBuffer.allocate(7 + tank.length + bullet.length);
+        buffer.put(COLLISION);
+        putShort(buffer, x);
+        putShort(buffer, y);
+        putString(buffer, tank);
+        putString(buffer, bullet);
+        return buffer.array();
+    }
+
+    /**
+     * Devuelve el mismo mapa que recibe el cliente por JSON en collisionResult.
+     */
+    public static Map<String, String> decodeCollision(byte[] frame) {
+        ByteBuffer buffer = open(frame, COLLISION);
+        try {
+            Map<String, String> collision = new HashMap<>();
+            collision.put("x", String.valueOf(buffer.getShort()));
+            collision.put("y", String.valueOf(buffer.getShort()));
+            collision.put("tank", getString(buffer, COLLISION));
+            collision.put("bulletId", getString(buffer, COLLISION));
+            return collision;
+        } catch (BufferUnderflowException e) {
+            throw truncated(COLLISION);
+        }
+    }
+
+    public static byte[] encodeWinner(Tank tank) {
+        byte[] name = utf8(tank.getName());
+        byte[] color = utf8(tank.getColor() != null ? tank.getColor() : "");
+        ByteBuffer buffer = ByteBuffer.allocate(7 + name.length + color.length);
+        buffer.put(WINNER);
+        putShort(buffer, tank.getPosx());
+        putShort(buffer, tank.getPosy());
+        putString(buffer, name);
+        putString(buffer, color);
+        return buffer.array();
+    }
+
+    public static Tank decodeWinner(byte[] frame) {
+        ByteBuffer buffer = open(frame, WINNER);
+        try {
+            Tank tank = new Tank();
+            tank.setPosx(buffer.getShort());
+            tank.setPosy(buffer.getShort());
+            tank.setName(getString(buffer, WINNER));
+            tank.setColor(getString(buffer, WINNER));
+            return tank;
+        } catch (BufferUnderflowException e) {
+            throw truncated(WINNER);
+        }
+    }
+
+    private static ByteBuffer open(byte[] frame, byte expectedType) {
+        if (type(frame) != expectedType) {
+            throw new IllegalArgumentException("Expected frame type " + expectedType + " but got " + frame[0]);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        buffer.get();
+        return buffer;
+    }
+
+    private static void putShort(ByteBuffer buffer, int value) {
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of range for binary frame: " + value);
+        }
+        buffer.putShort((short) value);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String too long for binary frame: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer, byte type) {
+        try {
+            int length = buffer.get() & 0xFF;
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw truncated(type);
+        }
+    }
+
+    private static IllegalArgumentException truncated(byte type) {
+        return new IllegalArgumentException("Truncated frame of type " + type);
+    }
+}
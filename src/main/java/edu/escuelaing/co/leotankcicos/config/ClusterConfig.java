@@ -0,0 +1,31 @@
+package edu.escuelaing.co.leotankcicos.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import edu.escuelaing.co.leotankcicos.cluster.ClusterMembership;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterTransport;
+import edu.escuelaing.co.leotankcicos.cluster.MatchRouter;
+import edu.escuelaing.co.leotankcicos.cluster.RendezvousRouter;
+
+/**
+ * Un solo nodo salvo que el contexto defina un {@link ClusterMembership} y un
+ * {@link ClusterTransport}; el {@link MatchRouter} por defecto es rendezvous.
+ */
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    public ClusterNode clusterNode(ObjectProvider<ClusterMembership> membership,
+                                   ObjectProvider<ClusterTransport> transport,
+                                   ObjectProvider<MatchRouter> router) {
+        ClusterMembership members = membership.getIfAvailable();
+        ClusterTransport peers = transport.getIfAvailable();
+        if (members == null || peers == null) {
+            return ClusterNode.standalone();
+        }
+        return new ClusterNode(members, peers, router.getIfAvailable(RendezvousRouter::new));
+    }
+}
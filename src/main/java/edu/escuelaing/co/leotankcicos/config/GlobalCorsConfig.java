@@ -1,9 +1,13 @@
 package edu.escuelaing.co.leotankcicos.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.controller.TankController;
+
 @Configuration
 public class GlobalCorsConfig implements WebMvcConfigurer {
 
@@ -13,6 +17,7 @@ public class GlobalCorsConfig implements WebMvcConfigurer {
         registry.addMapping("/**")
                 .allowedOrigins("https://frontarsw.z22.web.core.windows.net", "https://leotanksload.duckdns.org")  // Allowed origins for all HTTP endpoints
                 .allowedMethods("GET", "POST", "PUT", "DELETE")
-                .allowedHeaders("*");
+                .allowedHeaders("*")
+                .exposedHeaders(SessionTokens.HEADER, TankController.MATCH_OWNER_HEADER, HttpHeaders.ETAG);
     }
 }
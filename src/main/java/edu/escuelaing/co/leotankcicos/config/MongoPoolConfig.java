@@ -0,0 +1,26 @@
+package edu.escuelaing.co.leotankcicos.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Limita las conexiones simultáneas a MongoDB. Con hilos virtuales no hay un
+ * pool de hilos que frene la concurrencia, así que el límite lo pone el pool
+ * de conexiones del driver: el resto espera hasta {@code max-wait-millis}.
+ */
+@Configuration
+public class MongoPoolConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolLimits(
+            @Value("${leotankcicos.mongo.max-connections:50}") int maxConnections,
+            @Value("${leotankcicos.mongo.max-wait-millis:2000}") long maxWaitMillis) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxConnections)
+                .maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS));
+    }
+}
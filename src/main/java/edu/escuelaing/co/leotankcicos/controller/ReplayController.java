@@ -0,0 +1,49 @@
+package edu.escuelaing.co.leotankcicos.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+
+// Repeticiones grabadas por SpectatorHub; para verlas en vivo se usa /topic/replays/{name}/{clientId}
+@RestController
+@CrossOrigin(origins = {"https://frontarsw.z22.web.core.windows.net", "https://leotanksload.duckdns.org"})
+public class ReplayController {
+
+    private final SpectatorHub spectatorHub;
+
+    @Autowired
+    public ReplayController(SpectatorHub spectatorHub) {
+        this.spectatorHub = spectatorHub;
+    }
+
+    @GetMapping("/api/replays")
+    public ResponseEntity<List<String>> getReplays() throws IOException {
+        return new ResponseEntity<>(spectatorHub.getReplays(), HttpStatus.OK);
+    }
+
+    @GetMapping("/api/replays/{name}")
+    public ResponseEntity<Resource> downloadReplay(@PathVariable String name) {
+        Path replay = spectatorHub.getReplay(name);
+        if (replay == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                .body(new FileSystemResource(replay));
+    }
+}
@@ -4,29 +4,46 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.escuelaing.co.leotankcicos.auth.SessionTokenInterceptor;
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.broadcast.StateSnapshot;
+import edu.escuelaing.co.leotankcicos.cluster.NotMatchOwnerException;
+import edu.escuelaing.co.leotankcicos.engine.MatchNotFoundException;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.engine.SerializedState;
 import edu.escuelaing.co.leotankcicos.model.Bullet;
+import edu.escuelaing.co.leotankcicos.model.MoveCommand;
 import edu.escuelaing.co.leotankcicos.model.Tank;
 import edu.escuelaing.co.leotankcicos.service.TankService;
 import jakarta.servlet.http.HttpSession;
 
 @RestController
-@CrossOrigin(origins = {"https://frontarsw.z22.web.core.windows.net", "https://leotanksload.duckdns.org"})
+@CrossOrigin(origins = {"https://frontarsw.z22.web.core.windows.net", "https://leotanksload.duckdns.org"}, exposedHeaders = {SessionTokens.HEADER, TankController.MATCH_OWNER_HEADER, HttpHeaders.ETAG})
 public class TankController {
 
     private final TankService tankService;
-    Tank updatedTank;
     private static final String USERNAME_STRING = "username";
+    private static final String MATCH_ID_STRING = "matchId";
+    public static final String MATCH_OWNER_HEADER = "X-Match-Owner";
+    public static final String VIEW_SEQ_HEADER = "view-seq";
 
     @Autowired
     public TankController(TankService tankService) {
@@ -41,13 +58,26 @@ public class TankController {
     //Crea los tanques
     @PostMapping("/api/tanks/loginTank")
     public ResponseEntity<Tank> createTank(@RequestBody Map<String, Object> request,  HttpSession session) {
+        return createTankInMatch(MatchRegistry.DEFAULT_MATCH_ID, request, session);
+    }
+
+    //Crea el tanque dentro de una partida específica
+    @PostMapping("/api/tanks/matches/{matchId}/loginTank")
+    public ResponseEntity<Tank> createTankInMatch(@PathVariable String matchId, @RequestBody Map<String, Object> request, HttpSession session) {
         try {
             String username = (String) request.get(USERNAME_STRING);
             session.setAttribute(USERNAME_STRING, username);
+            session.setAttribute(MATCH_ID_STRING, matchId);
             String receivedHash = (String) request.get("hash");
 
-            Tank tank = tankService.saveTank(username, receivedHash);
-            return ResponseEntity.ok(tank);
+            Tank tank = tankService.saveTank(matchId, username, receivedHash);
+            String token = tankService.issueSessionToken(matchId, username);
+            if (token == null) {
+                return ResponseEntity.ok(tank);
+            }
+            return ResponseEntity.ok().header(SessionTokens.HEADER, token).body(tank);
+        } catch (NotMatchOwnerException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(null);
         }
@@ -57,7 +87,12 @@ public class TankController {
     //Obtiene todos los tanques
     @GetMapping("/api/tanks")
     public ResponseEntity<List<Tank>> getAllTanks() {
-        List<Tank> tanks = tankService.getAllTanks();
+        return getAllTanksInMatch(MatchRegistry.DEFAULT_MATCH_ID);
+    }
+
+    @GetMapping("/api/tanks/matches/{matchId}/tanks")
+    public ResponseEntity<List<Tank>> getAllTanksInMatch(@PathVariable String matchId) {
+        List<Tank> tanks = tankService.getAllTanks(matchId);
         return new ResponseEntity<>(tanks, HttpStatus.OK);
     }
 
@@ -74,13 +109,8 @@ public class TankController {
 
     // Mover tanque 
     @MessageMapping("/{username}/move")
-    public void moveTank(@DestinationVariable String username, @RequestBody Map<String, Integer> moveRequest) {
-        Integer posX = moveRequest.get("posX");
-        Integer posY = moveRequest.get("posY");
-        Integer newPosX = moveRequest.get("newPosX");
-        Integer newPosY = moveRequest.get("newPosY");
-        Integer rotation = moveRequest.get("rotation");
-            updatedTank = tankService.updateTankPosition(username, posX, posY, newPosX, newPosY, rotation);
+    public void moveTank(@DestinationVariable String username, @RequestBody MoveCommand move, SimpMessageHeaderAccessor headers) {
+        tankService.updateTankPosition(SessionTokenInterceptor.claimsOf(headers.getSessionAttributes()), username, move.getPosX(), move.getPosY(), move.getNewPosX(), move.getNewPosY(), move.getRotation(), move.getSeq());
     }
 
     // Obtener un tanque específico
@@ -95,13 +125,63 @@ public class TankController {
 
     @GetMapping("/api/tanks/board")
     public ResponseEntity<String[][]> getBoard() {
-        String[][] board = tankService.getBoardBoxes();
+        return getBoardInMatch(MatchRegistry.DEFAULT_MATCH_ID);
+    }
+
+    @GetMapping("/api/tanks/matches/{matchId}/board")
+    public ResponseEntity<String[][]> getBoardInMatch(@PathVariable String matchId) {
+        String[][] board = tankService.getBoardBoxes(matchId);
         if (board == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         return new ResponseEntity<>(board, HttpStatus.OK);
     }
 
+    // Snapshot inicial del flujo de estado; los deltas llegan por /topic/matches/{matchId}/state
+    // En otro nodo no hay snapshot; los deltas llegan reenviados por el dueño. Suscribirse no crea la partida
+    @SubscribeMapping("/matches/{matchId}/state")
+    public StateSnapshot subscribeState(@DestinationVariable String matchId) {
+        try {
+            return tankService.getStateSnapshot(matchId);
+        } catch (NotMatchOwnerException | MatchNotFoundException e) {
+            return null;
+        }
+    }
+
+    // Tanques, tablero y balas en una sola respuesta, para resincronizar o para clientes que sondean.
+    // El ETag es la secuencia del estado: repetir la petición con If-None-Match da 304 mientras no cambie
+    @GetMapping("/api/tanks/matches/{matchId}/state")
+    public ResponseEntity<byte[]> getState(@PathVariable String matchId,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        SerializedState state = tankService.getSerializedState(matchId);
+        if (state.getEtag() == null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).cacheControl(CacheControl.noStore())
+                    .body(state.getBody());
+        }
+        if (matches(ifNoneMatch, state.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(state.getEtag()).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(state.getEtag())
+                .cacheControl(CacheControl.noCache()).body(state.getBody());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Solo para resincronizar: el delta de estado trae la bala al dispararse y su fin, y el cliente la extrapola
     @GetMapping("/api/tanks/bullets/{bulletId}/position")
     public ResponseEntity<Bullet> getBulletPosition(@PathVariable String bulletId) {
         Bullet bullet = tankService.getBulletPosition(bulletId);
@@ -111,20 +191,45 @@ public class TankController {
         return new ResponseEntity<>(bullet, HttpStatus.OK);
     }
 
+    // El header view-seq opcional es el último seq de estado que el cliente aplicó; activa la compensación de latencia
     @MessageMapping("/{username}/shoot")
-    public void handleShootEvent(@DestinationVariable String username, @RequestBody String bulletId) {
-        tankService.shoot(username, bulletId);
+    public void handleShootEvent(@DestinationVariable String username, @RequestBody String bulletId, SimpMessageHeaderAccessor headers) {
+        tankService.shoot(SessionTokenInterceptor.claimsOf(headers.getSessionAttributes()), username, bulletId, viewSeqOf(headers));
     }
 
-    @MessageMapping("/matches/1/winner")
-    public void handleWinnerEvent() {
-        tankService.handleWinner();
+    private static long viewSeqOf(SimpMessageHeaderAccessor headers) {
+        String viewSeq = headers.getFirstNativeHeader(VIEW_SEQ_HEADER);
+        if (viewSeq == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(viewSeq);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
-    @GetMapping("/api/tanks/matches/1/reset")
-    public ResponseEntity<String> resetGame() {
-        tankService.reset();
+    @MessageMapping("/matches/{matchId}/winner")
+    public void handleWinnerEvent(@DestinationVariable String matchId) {
+        tankService.handleWinner(matchId);
+    }
+
+    @GetMapping("/api/tanks/matches/{matchId}/reset")
+    public ResponseEntity<String> resetGame(@PathVariable String matchId) {
+        tankService.reset(matchId);
         return new ResponseEntity<>("OK", HttpStatus.OK);
     }
 
+
+    // 421 Misdirected Request: la partida vive en otro nodo y el cliente debe repetir la petición allí
+    @ExceptionHandler(NotMatchOwnerException.class)
+    public ResponseEntity<Void> handleNotMatchOwner(NotMatchOwnerException e) {
+        return ResponseEntity.status(421).header(MATCH_OWNER_HEADER, e.getOwner()).build();
+    }
+
+    // Las lecturas no crean partidas: solo el login lo hace
+    @ExceptionHandler(MatchNotFoundException.class)
+    public ResponseEntity<Void> handleMatchNotFound(MatchNotFoundException e) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
 }
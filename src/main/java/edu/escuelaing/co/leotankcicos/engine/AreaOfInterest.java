@@ -0,0 +1,120 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Divide el tablero en regiones cuadradas y recuerda en cuál está cada
+ * jugador. Un jugador ve su región y las ocho vecinas, así que buscar quién
+ * ve una casilla solo recorre nueve regiones sin importar cuántos jugadores
+ * tenga la partida. Solo se usa desde el hilo dueño de la partida.
+ */
+public class AreaOfInterest {
+
+    private final int regionCells;
+    private final int regionsX;
+    private final int regionsY;
+    private final Map<Integer, List<Tank>> viewersByRegion = new HashMap<>();
+    private final Map<String, Integer> viewerRegions = new HashMap<>();
+
+    public AreaOfInterest(int width, int height, int regionCells) {
+        this.regionCells = Math.max(1, regionCells);
+        this.regionsX = (width + this.regionCells - 1) / this.regionCells;
+        this.regionsY = (height + this.regionCells - 1) / this.regionCells;
+    }
+
+    public int regionOf(int x, int y) {
+        return (y / regionCells) * regionsX + (x / regionCells);
+    }
+
+    /**
+     * Casillas que hay que avanzar desde {@code (x, y)} en la dirección
+     * {@code (dx, dy)} para entrar en otra región. Sin dirección no se sale
+     * nunca y se devuelve {@link Integer#MAX_VALUE}.
+     */
+    public int cellsToLeaveRegion(int x, int y, int dx, int dy) {
+        if (dx != 0) {
+            return dx > 0 ? regionCells - x % regionCells : x % regionCells + 1;
+        }
+        if (dy != 0) {
+            return dy > 0 ? regionCells - y % regionCells : y % regionCells + 1;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Recorre la región y sus vecinas dentro del tablero.
+     */
+    public void forEachNeighbor(int region, IntConsumer consumer) {
+        int rx = region % regionsX;
+        int ry = region / regionsX;
+        for (int y = Math.max(0, ry - 1); y <= Math.min(regionsY - 1, ry + 1); y++) {
+            for (int x = Math.max(0, rx - 1); x <= Math.min(regionsX - 1, rx + 1); x++) {
+                consumer.accept(y * regionsX + x);
+            }
+        }
+    }
+
+    /**
+     * Reubica a los jugadores según la posición actual de sus tanques y
+     * devuelve los que entraron en una región nueva (o a la partida), que
+     * necesitan recibir todo lo visible desde ahí.
+     */
+    public List<String> updateViewers(Collection<Tank> tanks) {
+        viewersByRegion.clear();
+        List<String> moved = new ArrayList<>();
+        Map<String, Integer> previous = new HashMap<>(viewerRegions);
+        viewerRegions.clear();
+        for (Tank tank : tanks) {
+            int region = regionOf(tank.getPosx(), tank.getPosy());
+            viewersByRegion.computeIfAbsent(region, r -> new ArrayList<>()).add(tank);
+            viewerRegions.put(tank.getName(), region);
+            if (!Integer.valueOf(region).equals(previous.get(tank.getName()))) {
+                moved.add(tank.getName());
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Jugadores que ven la casilla, según la última llamada a
+     * {@link #updateViewers}.
+     */
+    public List<String> viewersOf(int x, int y) {
+        List<String> viewers = new ArrayList<>();
+        forEachNeighbor(regionOf(x, y), region -> {
+            for (Tank tank : viewersIn(region)) {
+                viewers.add(tank.getName());
+            }
+        });
+        return viewers;
+    }
+
+    public List<Tank> viewersIn(int region) {
+        return viewersByRegion.getOrDefault(region, Collections.emptyList());
+    }
+
+    public Collection<Integer> getOccupiedRegions() {
+        return Collections.unmodifiableSet(viewersByRegion.keySet());
+    }
+
+    public Integer getRegion(String viewer) {
+        return viewerRegions.get(viewer);
+    }
+
+    /**
+     * Olvida las regiones conocidas: tras un reinicio todos reciben un
+     * snapshot y vuelven a contar como recién llegados.
+     */
+    public void reset() {
+        viewersByRegion.clear();
+        viewerRegions.clear();
+    }
+}
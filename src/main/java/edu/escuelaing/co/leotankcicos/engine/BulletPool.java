@@ -0,0 +1,413 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import edu.escuelaing.co.leotankcicos.model.Bullet;
+
+/**
+ * Balas de una partida en arreglos paralelos por slot: posición, dirección,
+ * velocidad, dueño y si sigue viva. Las balas duran unos segundos y no se
+ * guardan en MongoDB; si el nodo cae las recupera el diario.
+ *
+ * <p>Las balas vivas se recorren en orden de disparo con {@link #size()} y
+ * {@link #slotAt(int)}. Una bala que muere queda retirada hasta
+ * {@link #releaseRetired()}, que se llama después de publicar el tick: así el
+ * delta todavía puede leer su id y su última posición, y su slot no se
+ * reutiliza dentro del mismo tick. Avanzar las balas no asigna memoria; solo
+ * se crece si hay más balas vivas que la capacidad inicial. Solo se usa desde
+ * el hilo dueño de la partida.</p>
+ *
+ * <p>Cada bala retirada guarda por qué terminó ({@link #END_HIT},
+ * {@link #END_WALL} o {@link #END_BOUNDS}) para el aviso de fin de
+ * trayectoria.</p>
+ *
+ * <p>Las balas no se mueven una por una en cada paso: cada slot guarda la
+ * casilla en que estaba en un paso dado y {@link #getX(int)} y
+ * {@link #getY(int)} calculan dónde está en el paso actual. Solo se escribe
+ * una posición con {@link #moveTo} cuando la bala se revisa casilla por
+ * casilla. Las balas recién disparadas quedan anotadas hasta
+ * {@link #drainSpawned} para programar sus eventos.</p>
+ */
+public class BulletPool {
+
+    public static final int END_NONE = 0;
+    public static final int END_HIT = 1;
+    public static final int END_WALL = 2;
+    public static final int END_BOUNDS = 3;
+    public static final int NO_DIRECTION = Integer.MIN_VALUE;
+
+    private String[] ids;
+    private String[] owners;
+    private int[] xs;
+    private int[] ys;
+    private int[] directions;
+    private int[] speeds;
+    private int[] rewindTicks;
+    private boolean[] alive;
+    private int[] ends;
+    // Paso en que la bala estaba en (xs, ys)
+    private long[] anchors;
+    // Número de serie de la bala que ocupa el slot, en orden de disparo
+    private long[] serials;
+    private long[] dueSteps;
+    private long step;
+    private long nextSerial;
+    private int[] spawned;
+    private int spawnedCount;
+    private int[] due;
+    private int dueCount;
+    private boolean compactPending;
+    // Slots vivos en orden de disparo
+    private int[] active;
+    private int activeCount;
+    private int[] free;
+    private int freeCount;
+    private int[] retired;
+    private int retiredCount;
+    private final Map<String, Integer> slotsById = new HashMap<>();
+
+    public BulletPool(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Ocupa un slot con la bala nueva y devuelve su número. Un id repetido
+     * reemplaza a la bala anterior con ese id.
+     */
+    public int spawn(String id, String owner, int x, int y, int direction, int speed, int rewind) {
+        Integer previous = slotsById.get(id);
+        if (previous != null) {
+            kill(previous);
+            compact();
+        }
+        if (freeCount == 0) {
+            grow();
+        }
+        int slot = free[--freeCount];
+        ids[slot] = id;
+        owners[slot] = owner;
+        xs[slot] = x;
+        ys[slot] = y;
+        directions[slot] = direction;
+        speeds[slot] = Math.max(1, speed);
+        rewindTicks[slot] = rewind;
+        alive[slot] = true;
+        ends[slot] = END_NONE;
+        anchors[slot] = step;
+        serials[slot] = ++nextSerial;
+        dueSteps[slot] = -1;
+        active[activeCount++] = slot;
+        if (spawnedCount == spawned.length) {
+            spawned = Arrays.copyOf(spawned, spawnedCount * 2);
+        }
+        spawned[spawnedCount++] = slot;
+        slotsById.put(id, slot);
+        return slot;
+    }
+
+    public int size() {
+        return activeCount;
+    }
+
+    public boolean isEmpty() {
+        return activeCount == 0;
+    }
+
+    public int slotAt(int index) {
+        return active[index];
+    }
+
+    /**
+     * Slot de la bala viva con ese id, o -1.
+     */
+    public int find(String id) {
+        Integer slot = slotsById.get(id);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Deja la bala en la casilla durante el paso actual; desde ahí sigue
+     * avanzando sola.
+     */
+    public void moveTo(int slot, int x, int y) {
+        xs[slot] = x;
+        ys[slot] = y;
+        anchors[slot] = step;
+    }
+
+    /**
+     * Pasa al siguiente paso de bala; todas las balas vivas avanzan su
+     * velocidad sin tocarlas. Devuelve el número del paso.
+     */
+    public long nextStep() {
+        return ++step;
+    }
+
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * Casilla de la bala en el paso indicado, suponiendo que no choca antes.
+     * Una bala retirada se queda donde terminó.
+     */
+    public int xAt(int slot, long at) {
+        return alive[slot] ? xs[slot] + directionX(directions[slot]) * speeds[slot] * (int) (at - anchors[slot]) : xs[slot];
+    }
+
+    public int yAt(int slot, long at) {
+        return alive[slot] ? ys[slot] + directionY(directions[slot]) * speeds[slot] * (int) (at - anchors[slot]) : ys[slot];
+    }
+
+    /**
+     * Marca la bala para revisarla en el paso; devuelve false si ya estaba
+     * marcada, para no revisarla dos veces.
+     */
+    public boolean markDue(int slot, long dueStep) {
+        if (dueSteps[slot] == dueStep) {
+            return false;
+        }
+        dueSteps[slot] = dueStep;
+        due[dueCount++] = slot;
+        return true;
+    }
+
+    /**
+     * Entrega las balas marcadas en orden de disparo, como las recorría el
+     * avance paso a paso, y vacía la lista.
+     */
+    public void drainDue(IntConsumer consumer) {
+        // Casi siempre son pocas: inserción directa
+        for (int i = 1; i < dueCount; i++) {
+            int slot = due[i];
+            int j = i - 1;
+            while (j >= 0 && serials[due[j]] > serials[slot]) {
+                due[j + 1] = due[j];
+                j--;
+            }
+            due[j + 1] = slot;
+        }
+        for (int i = 0; i < dueCount; i++) {
+            consumer.accept(due[i]);
+        }
+        dueCount = 0;
+    }
+
+    /**
+     * Entrega los slots disparados desde la última llamada que siguen vivos.
+     */
+    public void drainSpawned(IntConsumer consumer) {
+        for (int i = 0; i < spawnedCount; i++) {
+            if (alive[spawned[i]]) {
+                consumer.accept(spawned[i]);
+            }
+        }
+        spawnedCount = 0;
+    }
+
+    /**
+     * Marca la bala como muerta. Sigue en la lista de vivas hasta
+     * {@link #compact()}, así que se puede llamar mientras se recorre.
+     */
+    public void kill(int slot) {
+        kill(slot, END_NONE);
+    }
+
+    public void kill(int slot, int end) {
+        if (!alive[slot]) {
+            return;
+        }
+        alive[slot] = false;
+        ends[slot] = end;
+        compactPending = true;
+        slotsById.remove(ids[slot]);
+        retired[retiredCount++] = slot;
+    }
+
+    /**
+     * Saca de la lista de vivas las que murieron, sin cambiar el orden.
+     */
+    public void compact() {
+        if (!compactPending) {
+            return;
+        }
+        compactPending = false;
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++) {
+            int slot = active[i];
+            if (alive[slot]) {
+                active[kept++] = slot;
+            }
+        }
+        activeCount = kept;
+    }
+
+    /**
+     * Devuelve al pool los slots de las balas retiradas.
+     */
+    public void releaseRetired() {
+        for (int i = 0; i < retiredCount; i++) {
+            int slot = retired[i];
+            ids[slot] = null;
+            owners[slot] = null;
+            free[freeCount++] = slot;
+        }
+        retiredCount = 0;
+    }
+
+    // Las balas quedan retiradas como si hubieran chocado; el reinicio publica un snapshot
+    public void clear() {
+        for (int i = 0; i < activeCount; i++) {
+            kill(active[i]);
+        }
+        activeCount = 0;
+        spawnedCount = 0;
+        compactPending = false;
+    }
+
+    public String getId(int slot) {
+        return ids[slot];
+    }
+
+    public String getOwner(int slot) {
+        return owners[slot];
+    }
+
+    public int getX(int slot) {
+        return xAt(slot, step);
+    }
+
+    public int getY(int slot) {
+        return yAt(slot, step);
+    }
+
+    public int getDirection(int slot) {
+        return directions[slot];
+    }
+
+    public int getSpeed(int slot) {
+        return speeds[slot];
+    }
+
+    public int getRewindTicks(int slot) {
+        return rewindTicks[slot];
+    }
+
+    public boolean isAlive(int slot) {
+        return alive[slot];
+    }
+
+    public int getEnd(int slot) {
+        return ends[slot];
+    }
+
+    public long getSerial(int slot) {
+        return serials[slot];
+    }
+
+    /**
+     * Lleva la rotación del cliente a una de las cuatro direcciones que
+     * avanzan las balas (270 es -90, -180 es 180). Cualquier otro ángulo
+     * devuelve {@link #NO_DIRECTION}: la bala no se movería nunca.
+     */
+    public static int normalizeDirection(int rotation) {
+        return switch (Math.floorMod(rotation, 360)) {
+            case 0 -> 0;
+            case 90 -> 90;
+            case 180 -> 180;
+            case 270 -> -90;
+            default -> NO_DIRECTION;
+        };
+    }
+
+    public static int directionX(int direction) {
+        return switch (direction) {
+            case 0 -> 1;
+            case 180 -> -1;
+            default -> 0;
+        };
+    }
+
+    public static int directionY(int direction) {
+        return switch (direction) {
+            case -90 -> -1;
+            case 90 -> 1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Copia de la bala para respuestas REST, snapshots del diario y pruebas.
+     */
+    public Bullet toBullet(int slot, String matchId) {
+        Bullet bullet = new Bullet(ids[slot], getX(slot), getY(slot), directions[slot], alive[slot], owners[slot]);
+        bullet.setMatchId(matchId);
+        bullet.setSpeed(speeds[slot]);
+        bullet.setRewindTicks(rewindTicks[slot]);
+        return bullet;
+    }
+
+    public List<Bullet> toBullets(String matchId) {
+        List<Bullet> bullets = new ArrayList<>(activeCount);
+        for (int i = 0; i < activeCount; i++) {
+            if (alive[active[i]]) {
+                bullets.add(toBullet(active[i], matchId));
+            }
+        }
+        return bullets;
+    }
+
+    private void allocate(int capacity) {
+        ids = new String[capacity];
+        owners = new String[capacity];
+        xs = new int[capacity];
+        ys = new int[capacity];
+        directions = new int[capacity];
+        speeds = new int[capacity];
+        rewindTicks = new int[capacity];
+        alive = new boolean[capacity];
+        ends = new int[capacity];
+        anchors = new long[capacity];
+        serials = new long[capacity];
+        dueSteps = new long[capacity];
+        spawned = new int[capacity];
+        due = new int[capacity];
+        active = new int[capacity];
+        free = new int[capacity];
+        retired = new int[capacity];
+        // Los slots bajos salen primero
+        for (int slot = capacity - 1; slot >= 0; slot--) {
+            free[freeCount++] = slot;
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length;
+        int newCapacity = capacity * 2;
+        ids = Arrays.copyOf(ids, newCapacity);
+        owners = Arrays.copyOf(owners, newCapacity);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        directions = Arrays.copyOf(directions, newCapacity);
+        speeds = Arrays.copyOf(speeds, newCapacity);
+        rewindTicks = Arrays.copyOf(rewindTicks, newCapacity);
+        alive = Arrays.copyOf(alive, newCapacity);
+        ends = Arrays.copyOf(ends, newCapacity);
+        anchors = Arrays.copyOf(anchors, newCapacity);
+        serials = Arrays.copyOf(serials, newCapacity);
+        dueSteps = Arrays.copyOf(dueSteps, newCapacity);
+        spawned = Arrays.copyOf(spawned, Math.max(newCapacity, spawned.length));
+        due = Arrays.copyOf(due, newCapacity);
+        active = Arrays.copyOf(active, newCapacity);
+        retired = Arrays.copyOf(retired, newCapacity);
+        free = Arrays.copyOf(free, newCapacity);
+        for (int slot = newCapacity - 1; slot >= capacity; slot--) {
+            free[freeCount++] = slot;
+        }
+    }
+}
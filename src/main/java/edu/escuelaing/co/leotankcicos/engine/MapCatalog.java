@@ -0,0 +1,80 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import edu.escuelaing.co.leotankcicos.model.GameMap;
+
+/**
+ * Mapas disponibles, leídos al arrancar desde
+ * {@code leotankcicos.maps.locations} (por defecto los {@code .map} del
+ * classpath). Las partidas nuevas usan {@code leotankcicos.match.map}.
+ */
+@Component
+public class MapCatalog {
+
+    public static final String DEFAULT_LOCATIONS = "classpath*:maps/*.map";
+
+    private final Map<String, GameMap> maps = new LinkedHashMap<>();
+    private final GameMap defaultMap;
+
+    @Autowired
+    public MapCatalog(@Value("${leotankcicos.maps.locations:" + DEFAULT_LOCATIONS + "}") String[] locations,
+                      MatchProperties properties) {
+        maps.put(GameMap.CLASSIC, GameMap.classic());
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        try {
+            for (String location : locations) {
+                for (Resource resource : resolver.getResources(location)) {
+                    GameMap map = load(resource);
+                    // El original ya está cargado: los tableros sin catálogo comparten esa instancia
+                    if (!GameMap.CLASSIC.equals(map.getName())) {
+                        maps.put(map.getName(), map);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.defaultMap = get(properties.getMap());
+    }
+
+    /**
+     * Mapa por nombre; null es el mapa original, para los tableros guardados
+     * antes de que existieran los mapas.
+     */
+    public GameMap get(String name) {
+        GameMap map = maps.get(name != null ? name : GameMap.CLASSIC);
+        if (map == null) {
+            throw new IllegalStateException("Unknown map " + name + ", available: " + maps.keySet());
+        }
+        return map;
+    }
+
+    public GameMap getDefault() {
+        return defaultMap;
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(maps.keySet());
+    }
+
+    private static GameMap load(Resource resource) throws IOException {
+        String filename = resource.getFilename() != null ? resource.getFilename() : "map";
+        String fallbackName = filename.endsWith(".map") ? filename.substring(0, filename.length() - 4) : filename;
+        try (InputStream in = resource.getInputStream()) {
+            return GameMap.parse(fallbackName, in);
+        }
+    }
+}
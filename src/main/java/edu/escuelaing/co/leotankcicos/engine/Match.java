@@ -0,0 +1,522 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Bullet;
+import edu.escuelaing.co.leotankcicos.model.GameMap;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Estado de una partida independiente: tablero, tanques, puntos de aparición,
+ * balas vivas y su espacio de tópicos. Este estado en memoria es la fuente de
+ * verdad; MongoDB solo recibe copias diferidas. Solo se modifica desde el
+ * hilo del {@link MatchWorker} que es dueño de la partida.
+ *
+ * <p>Los tanques se indexan por nombre y por slot del tablero; ambos índices
+ * se actualizan junto con las casillas en {@link #placeTank},
+ * {@link #removeTank} y {@link #clearTanks}, así que las colisiones y la
+ * victoria se resuelven en memoria sin consultar MongoDB.</p>
+ *
+ * <p>Las entradas de los jugadores llegan desde cualquier hilo a una cola sin
+ * locks y el dueño las aplica en orden al inicio de cada tick.</p>
+ */
+public class Match {
+
+    private static final int BULLET_TIMER_BUCKETS = 256;
+
+    private final String id;
+    private final Board board;
+    private final int maxPlayers;
+    private final int bulletStepTicks;
+    private final int bulletSpeed;
+    private final int maxQueuedInputs;
+    private final MatchWorker worker;
+    private final Queue<int[]> spawnPositions = new ArrayDeque<>();
+    private final Queue<String> spawnColors = new ArrayDeque<>();
+    private final BulletPool bullets;
+    // Pasos de bala en que hay que revisar cada bala; más allá de una vuelta las entradas esperan
+    private final TimerWheel bulletTimers = new TimerWheel(BULLET_TIMER_BUCKETS);
+    private final Map<String, Tank> tanks = new LinkedHashMap<>();
+    // Tanque de cada slot del tablero: una casilla se resuelve sin buscar por nombre
+    private Tank[] slotTanks = new Tank[8];
+    private final MatchChanges changes = new MatchChanges();
+    // Última entrada aplicada de cada jugador en este tick, pendiente de confirmar
+    private final Map<String, Integer> pendingAcks = new LinkedHashMap<>();
+    private final AreaOfInterest interest;
+    private final PositionHistory history;
+    // Volátil: GET /state la compara con el cuerpo cacheado sin pasar por el hilo dueño
+    private volatile long stateSeq;
+    private volatile SerializedState serializedState;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private long tick;
+    private MatchLoop loop;
+    private final long emptyTimeoutMillis;
+    private boolean finished;
+    private long emptySince = -1;
+    // Volátil: quien obtuvo la partida antes de descargarla lo revisa ya en el hilo dueño
+    private volatile boolean evicted;
+
+    private final ConcurrentLinkedQueue<MatchCommand> inputs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedInputs = new AtomicInteger();
+    private final AtomicLong droppedInputs = new AtomicLong();
+    private volatile int lastDrainCount;
+    private volatile long lastDrainNanos;
+
+    public Match(String id, Board board, MatchProperties properties, MatchWorker worker) {
+        this.id = id;
+        this.board = board;
+        this.maxPlayers = properties.getMaxPlayers();
+        this.bulletStepTicks = Math.max(1, properties.getBulletStepTicks());
+        this.bulletSpeed = Math.max(1, properties.getBulletSpeed());
+        this.maxQueuedInputs = properties.getMaxQueuedInputs();
+        this.emptyTimeoutMillis = properties.getEmptyTimeoutMillis();
+        this.worker = worker;
+        this.bullets = new BulletPool(properties.getBulletPoolSize());
+        this.interest = new AreaOfInterest(board.getWidth(), board.getHeight(), properties.getAoiRegionCells());
+        this.history = new PositionHistory(properties.getRewindTicks(), maxPlayers);
+        resetSpawns();
+    }
+
+    // Los puntos de aparición y sus colores vienen del mapa del tablero
+    public final void resetSpawns() {
+        spawnPositions.clear();
+        spawnColors.clear();
+        for (GameMap.Spawn spawn : board.getMap().getSpawns()) {
+            spawnPositions.add(new int[]{spawn.getX(), spawn.getY()});
+            spawnColors.add(spawn.getColor());
+        }
+    }
+
+    void startLoop(long tickMillis, Consumer<Match> tick) {
+        loop = new MatchLoop("match-" + id, worker.getExecutor(), tickMillis, () -> tick.accept(this));
+        loop.start();
+    }
+
+    void stopLoop() {
+        if (loop != null) {
+            loop.stop();
+        }
+    }
+
+    /**
+     * Ejecuta la tarea en el hilo dueño de la partida y espera su resultado.
+     * Las excepciones lanzadas por la tarea se propagan sin envolver.
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        if (worker.isOwnerThread() || worker.isShutdown()) {
+            return task.call();
+        }
+        try {
+            return worker.submit(task).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for match " + id, e);
+        }
+    }
+
+    public <T> T supply(Supplier<T> task) {
+        try {
+            return call(task::get);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void run(Runnable task) {
+        supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public void execute(Runnable task) {
+        worker.execute(task);
+    }
+
+    /**
+     * Encola la entrada para el siguiente tick. Devuelve false si la cola de
+     * la partida está llena y la entrada se descartó.
+     */
+    public boolean enqueue(MatchCommand command) {
+        if (queuedInputs.incrementAndGet() > maxQueuedInputs) {
+            queuedInputs.decrementAndGet();
+            droppedInputs.incrementAndGet();
+            return false;
+        }
+        inputs.offer(command);
+        return true;
+    }
+
+    /**
+     * Aplica las entradas que estaban en cola al empezar la llamada. Las que
+     * lleguen mientras tanto quedan para el siguiente tick.
+     */
+    public int drainInputs(Consumer<MatchCommand> handler) {
+        long start = System.nanoTime();
+        int pending = queuedInputs.get();
+        int drained = 0;
+        MatchCommand command;
+        while (drained < pending && (command = inputs.poll()) != null) {
+            queuedInputs.decrementAndGet();
+            drained++;
+            handler.accept(command);
+        }
+        lastDrainCount = drained;
+        lastDrainNanos = System.nanoTime() - start;
+        return drained;
+    }
+
+    public int getQueuedInputs() {
+        return queuedInputs.get();
+    }
+
+    public long getDroppedInputs() {
+        return droppedInputs.get();
+    }
+
+    public int getLastDrainCount() {
+        return lastDrainCount;
+    }
+
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    public long nextTick() {
+        return ++tick;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isBulletStep(long tick) {
+        return tick % bulletStepTicks == 0;
+    }
+
+    public int getBulletStepTicks() {
+        return bulletStepTicks;
+    }
+
+    public int getBulletSpeed() {
+        return bulletSpeed;
+    }
+
+    public String topic(String event) {
+        return "/topic/matches/" + id + "/" + event;
+    }
+
+    /**
+     * Destino por jugador, que se entrega en {@code /user/queue/matches/{id}/...}.
+     */
+    public String queue(String event) {
+        return "/queue/matches/" + id + "/" + event;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public MatchWorker getWorker() {
+        return worker;
+    }
+
+    /**
+     * Siguiente punto de aparición libre, o null si el mapa no tiene más.
+     */
+    public int[] nextSpawnPosition() {
+        return spawnPositions.poll();
+    }
+
+    public String nextSpawnColor() {
+        return spawnColors.poll();
+    }
+
+    /**
+     * Puntos de aparición consumidos desde el último reinicio.
+     */
+    public int getSpawnsUsed() {
+        return board.getMap().getSpawns().size() - spawnPositions.size();
+    }
+
+    // Al recuperar la partida los spawns ya usados no se vuelven a repartir
+    public void skipSpawns(int count) {
+        for (int i = 0; i < count; i++) {
+            spawnPositions.poll();
+            spawnColors.poll();
+        }
+    }
+
+    public BulletPool getBullets() {
+        return bullets;
+    }
+
+    /**
+     * Copia de las balas vivas, en orden de disparo.
+     */
+    public List<Bullet> getLiveBullets() {
+        return bullets.toBullets(id);
+    }
+
+    public void ackInput(String username, int seq) {
+        pendingAcks.put(username, seq);
+    }
+
+    public void drainAcks(BiConsumer<String, Integer> consumer) {
+        if (pendingAcks.isEmpty()) {
+            return;
+        }
+        pendingAcks.forEach(consumer);
+        pendingAcks.clear();
+    }
+
+    public TimerWheel getBulletTimers() {
+        return bulletTimers;
+    }
+
+    public MatchChanges getChanges() {
+        return changes;
+    }
+
+    public AreaOfInterest getInterest() {
+        return interest;
+    }
+
+    public PositionHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Guarda las posiciones del tick en el historial. Se llama al final del
+     * tick, cuando ya se publicó su {@code seq}.
+     */
+    public void recordHistory() {
+        if (history.getRewindTicks() == 0) {
+            return;
+        }
+        history.begin(tick, stateSeq);
+        for (int slot = 0; slot < slotTanks.length; slot++) {
+            Tank tank = slotTanks[slot];
+            if (tank != null) {
+                history.add(slot, tank.getPosx(), tank.getPosy());
+            }
+        }
+    }
+
+    public long getStateSeq() {
+        return stateSeq;
+    }
+
+    public long nextStateSeq() {
+        return ++stateSeq;
+    }
+
+    /**
+     * Hay cambios aplicados que todavía no tienen secuencia; se publican al
+     * final del tick.
+     */
+    public boolean hasUnpublishedChanges() {
+        return board.hasPendingChanges() || !changes.isEmpty();
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public SerializedState getSerializedState() {
+        return serializedState;
+    }
+
+    public void setSerializedState(SerializedState serializedState) {
+        this.serializedState = serializedState;
+    }
+
+    public Tank getTank(String name) {
+        return tanks.get(name);
+    }
+
+    /**
+     * Tanque vivo en la casilla, o null si está vacía o la ocupa un nombre
+     * que ya no pertenece a la partida.
+     */
+    public Tank getTankAt(int x, int y) {
+        int slot = board.getSlotAt(x, y);
+        if (slot < 0) {
+            return null;
+        }
+        Tank tank = slot < slotTanks.length ? slotTanks[slot] : null;
+        if (tank == null) {
+            // Slot asignado fuera de placeTank, p. ej. en un tablero recuperado de MongoDB
+            tank = tanks.get(board.getTankAt(x, y));
+            if (tank != null) {
+                indexSlot(slot, tank);
+            }
+        }
+        return tank;
+    }
+
+    /**
+     * Tanque vivo con ese slot, o null.
+     */
+    public Tank getTankBySlot(int slot) {
+        if (slot < 0 || slot >= slotTanks.length) {
+            return null;
+        }
+        Tank tank = slotTanks[slot];
+        return tank != null && tanks.get(tank.getName()) == tank ? tank : null;
+    }
+
+    public void addTank(Tank tank) {
+        tanks.put(tank.getName(), tank);
+        int slot = board.getTankSlot(tank.getName());
+        if (slot >= 0) {
+            indexSlot(slot, tank);
+        }
+    }
+
+    /**
+     * True si el tanque puede pasar a la casilla: dentro del tablero, a lo
+     * sumo un paso en horizontal o vertical de donde está según el servidor,
+     * sin pared y sin otro tanque. Quedarse en su casilla solo gira.
+     */
+    public boolean canMoveTo(Tank tank, int x, int y) {
+        if (!board.isInside(x, y) || Math.abs(x - tank.getPosx()) + Math.abs(y - tank.getPosy()) > 1) {
+            return false;
+        }
+        if (board.isWall(x, y)) {
+            return false;
+        }
+        Tank occupant = getTankAt(x, y);
+        return occupant == null || occupant == tank;
+    }
+
+    /**
+     * Mueve el tanque a la casilla indicada, liberando la que ocupa ahora si
+     * sigue siendo suya.
+     */
+    public void placeTank(Tank tank, int x, int y) {
+        releaseCell(tank);
+        board.putTank(tank.getName(), x, y);
+        tank.setPosx(x);
+        tank.setPosy(y);
+        indexSlot(board.getTankSlot(tank.getName()), tank);
+    }
+
+    public Tank removeTank(String name) {
+        Tank tank = tanks.remove(name);
+        if (tank != null) {
+            releaseCell(tank);
+            int slot = board.getTankSlot(name);
+            if (slot >= 0 && slot < slotTanks.length) {
+                slotTanks[slot] = null;
+            }
+        }
+        return tank;
+    }
+
+    /**
+     * Saca todos los tanques de la partida. El tablero se limpia aparte con
+     * {@link Board#clearBoard()}, que también reinicia los slots.
+     */
+    public void clearTanks() {
+        tanks.clear();
+        Arrays.fill(slotTanks, null);
+        // Los slots se reparten de nuevo, las posiciones viejas ya no dicen nada
+        history.clear();
+    }
+
+    /**
+     * La ronda terminó con un ganador. Si nadie entra antes del final del
+     * tick la partida se descarga sin esperar el tiempo de inactividad.
+     */
+    public void markFinished() {
+        finished = true;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Indica si la partida ya se puede descargar: no tiene tanques y la ronda
+     * terminó o lleva más de {@code empty-timeout-millis} vacía.
+     */
+    public boolean isAbandoned(long now) {
+        if (!tanks.isEmpty()) {
+            emptySince = -1;
+            finished = false;
+            return false;
+        }
+        if (emptySince < 0) {
+            emptySince = now;
+        }
+        return finished || now - emptySince >= emptyTimeoutMillis;
+    }
+
+    public boolean isEvicted() {
+        return evicted;
+    }
+
+    void markEvicted() {
+        evicted = true;
+    }
+
+    public Collection<Tank> getTanks() {
+        return Collections.unmodifiableCollection(tanks.values());
+    }
+
+    /**
+     * Tanques vivos: los eliminados salen de la partida, así que es también
+     * el conteo que decide la victoria.
+     */
+    public int getTankCount() {
+        return tanks.size();
+    }
+
+    private void releaseCell(Tank tank) {
+        int slot = board.getTankSlot(tank.getName());
+        if (slot >= 0 && board.isInside(tank.getPosx(), tank.getPosy())
+                && board.getSlotAt(tank.getPosx(), tank.getPosy()) == slot) {
+            board.clearBox(tank.getPosx(), tank.getPosy());
+        }
+    }
+
+    private void indexSlot(int slot, Tank tank) {
+        if (slot >= slotTanks.length) {
+            slotTanks = Arrays.copyOf(slotTanks, Math.max(slot + 1, slotTanks.length * 2));
+        }
+        slotTanks[slot] = tank;
+    }
+}
@@ -0,0 +1,79 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Tanques y balas que cambiaron desde el último delta publicado. Las
+ * casillas del tablero se rastrean en el propio {@code Board}; las balas por
+ * su slot en el {@link BulletPool}, que no se reutiliza hasta publicar.
+ * Una bala cambia solo al aparecer: su trayectoria es recta y los clientes
+ * la extrapolan hasta que llega su fin.
+ */
+public class MatchChanges {
+
+    private final Set<String> tanks = new LinkedHashSet<>();
+    private final Set<String> removedTanks = new LinkedHashSet<>();
+    private final BitSet bullets = new BitSet();
+    // La bala retirada conserva en el pool su última posición, para avisar solo a quien la veía
+    private final BitSet removedBullets = new BitSet();
+    // Balas que entraron en otra región de interés; solo las reenvía el modo por región
+    private final BitSet crossedBullets = new BitSet();
+
+    public void tankChanged(String name) {
+        removedTanks.remove(name);
+        tanks.add(name);
+    }
+
+    public void tankRemoved(String name) {
+        tanks.remove(name);
+        removedTanks.add(name);
+    }
+
+    public void bulletChanged(int slot) {
+        bullets.set(slot);
+    }
+
+    public void bulletRemoved(int slot) {
+        bullets.clear(slot);
+        crossedBullets.clear(slot);
+        removedBullets.set(slot);
+    }
+
+    public void bulletCrossed(int slot) {
+        crossedBullets.set(slot);
+    }
+
+    public Set<String> getTanks() {
+        return tanks;
+    }
+
+    public Set<String> getRemovedTanks() {
+        return removedTanks;
+    }
+
+    public BitSet getBullets() {
+        return bullets;
+    }
+
+    public BitSet getRemovedBullets() {
+        return removedBullets;
+    }
+
+    public BitSet getCrossedBullets() {
+        return crossedBullets;
+    }
+
+    public boolean isEmpty() {
+        return tanks.isEmpty() && removedTanks.isEmpty() && bullets.isEmpty() && removedBullets.isEmpty();
+    }
+
+    public void clear() {
+        tanks.clear();
+        removedTanks.clear();
+        bullets.clear();
+        removedBullets.clear();
+        crossedBullets.clear();
+    }
+}
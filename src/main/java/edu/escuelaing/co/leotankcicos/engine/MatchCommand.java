@@ -0,0 +1,106 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+/**
+ * Entrada de un jugador encolada para aplicarse en el siguiente tick.
+ */
+public final class MatchCommand {
+
+    public enum Type { MOVE, SHOOT }
+
+    private final Type type;
+    private final String username;
+    private final int x;
+    private final int y;
+    private final int newX;
+    private final int newY;
+    private final int rotation;
+    private final String bulletId;
+    // Slot del token de sesión, o -1 si la entrada no trae token
+    private final int slot;
+    // Número de entrada del cliente, 0 si no pide confirmación
+    private final int seq;
+    // Último seq de estado que el tirador había aplicado, -1 si no lo dijo
+    private final long viewSeq;
+
+    private MatchCommand(Type type, String username, int slot, int x, int y, int newX, int newY, int rotation, String bulletId, int seq, long viewSeq) {
+        this.type = type;
+        this.username = username;
+        this.x = x;
+        this.y = y;
+        this.newX = newX;
+        this.newY = newY;
+        this.rotation = rotation;
+        this.bulletId = bulletId;
+        this.slot = slot;
+        this.seq = seq;
+        this.viewSeq = viewSeq;
+    }
+
+    public static MatchCommand move(String username, int x, int y, int newX, int newY, int rotation) {
+        return move(username, -1, x, y, newX, newY, rotation);
+    }
+
+    public static MatchCommand move(String username, int slot, int x, int y, int newX, int newY, int rotation) {
+        return move(username, slot, x, y, newX, newY, rotation, 0);
+    }
+
+    public static MatchCommand move(String username, int slot, int x, int y, int newX, int newY, int rotation, int seq) {
+        return new MatchCommand(Type.MOVE, username, slot, x, y, newX, newY, rotation, null, seq, -1);
+    }
+
+    public static MatchCommand shoot(String username, String bulletId) {
+        return shoot(username, -1, bulletId);
+    }
+
+    public static MatchCommand shoot(String username, int slot, String bulletId) {
+        return shoot(username, slot, bulletId, -1);
+    }
+
+    public static MatchCommand shoot(String username, int slot, String bulletId, long viewSeq) {
+        return new MatchCommand(Type.SHOOT, username, slot, 0, 0, 0, 0, 0, bulletId, 0, viewSeq);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getNewX() {
+        return newX;
+    }
+
+    public int getNewY() {
+        return newY;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public String getBulletId() {
+        return bulletId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getSeq() {
+        return seq;
+    }
+
+    public long getViewSeq() {
+        return viewSeq;
+    }
+}
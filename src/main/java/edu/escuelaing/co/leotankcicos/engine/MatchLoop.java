@@ -0,0 +1,66 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bucle de simulación de una partida: ejecuta {@code tick} a una tasa fija
+ * sobre el ejecutor serial que es dueño de la partida, sin importar cuántas
+ * balas haya en vuelo.
+ */
+public class MatchLoop {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchLoop.class);
+
+    private final String name;
+    private final ScheduledExecutorService executor;
+    private final long tickMillis;
+    private final Runnable tick;
+    private ScheduledFuture<?> task;
+
+    public MatchLoop(String name, ScheduledExecutorService executor, long tickMillis, Runnable tick) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.name = name;
+        this.executor = executor;
+        this.tickMillis = tickMillis;
+        this.tick = tick;
+    }
+
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        task = executor.scheduleAtFixedRate(this::runTick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (task == null) {
+            return;
+        }
+        task.cancel(false);
+        task = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return task != null;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void runTick() {
+        // Una excepción no controlada cancelaría el scheduleAtFixedRate
+        try {
+            tick.run();
+        } catch (RuntimeException e) {
+            logger.error("Tick failed in {}", name, e);
+        }
+    }
+}
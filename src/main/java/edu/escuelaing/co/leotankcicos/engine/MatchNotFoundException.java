@@ -0,0 +1,19 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+/**
+ * La partida no está cargada en este nodo. Solo el login la crea; las
+ * lecturas no.
+ */
+public class MatchNotFoundException extends RuntimeException {
+
+    private final String matchId;
+
+    public MatchNotFoundException(String matchId) {
+        super("Match " + matchId + " not found");
+        this.matchId = matchId;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+}
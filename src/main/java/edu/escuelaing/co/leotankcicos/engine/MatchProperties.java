@@ -0,0 +1,128 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuración de las partidas ({@code leotankcicos.match.*}).
+ */
+@Component
+@ConfigurationProperties(prefix = "leotankcicos.match")
+public class MatchProperties {
+
+    // Ejecutores seriales que se reparten las partidas (0 = uno por núcleo)
+    private int workers = 0;
+    private long tickMillis = 50;
+    private int maxPlayers = 3;
+    // Mapa de las partidas nuevas (ver MapCatalog)
+    private String map = "classic";
+    // Las balas avanzan una casilla cada tantos ticks
+    private int bulletStepTicks = 10;
+    // Casillas que recorre una bala nueva en cada paso
+    private int bulletSpeed = 1;
+    // Lado de las regiones del área de interés, en casillas
+    private int aoiRegionCells = 16;
+    // Entradas encoladas por partida antes de empezar a descartar
+    private int maxQueuedInputs = 1024;
+    // Balas que caben en el pool de cada partida antes de tener que crecer
+    private int bulletPoolSize = 64;
+    // Cuánto se puede retroceder para resolver un disparo con lo que veía el tirador (0 = nada)
+    private long maxRewindMillis = 250;
+    // Tiempo que una partida puede seguir sin tanques antes de descargarla
+    private long emptyTimeoutMillis = 30_000;
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public void setMaxPlayers(int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+    }
+
+    public String getMap() {
+        return map;
+    }
+
+    public void setMap(String map) {
+        this.map = map;
+    }
+
+    public int getBulletStepTicks() {
+        return bulletStepTicks;
+    }
+
+    public void setBulletStepTicks(int bulletStepTicks) {
+        this.bulletStepTicks = bulletStepTicks;
+    }
+
+    public int getBulletSpeed() {
+        return bulletSpeed;
+    }
+
+    public void setBulletSpeed(int bulletSpeed) {
+        this.bulletSpeed = bulletSpeed;
+    }
+
+    public int getMaxQueuedInputs() {
+        return maxQueuedInputs;
+    }
+
+    public void setMaxQueuedInputs(int maxQueuedInputs) {
+        this.maxQueuedInputs = maxQueuedInputs;
+    }
+
+    public int getBulletPoolSize() {
+        return bulletPoolSize;
+    }
+
+    public void setBulletPoolSize(int bulletPoolSize) {
+        this.bulletPoolSize = bulletPoolSize;
+    }
+
+    public long getMaxRewindMillis() {
+        return maxRewindMillis;
+    }
+
+    public void setMaxRewindMillis(long maxRewindMillis) {
+        this.maxRewindMillis = maxRewindMillis;
+    }
+
+    public long getEmptyTimeoutMillis() {
+        return emptyTimeoutMillis;
+    }
+
+    public void setEmptyTimeoutMillis(long emptyTimeoutMillis) {
+        this.emptyTimeoutMillis = emptyTimeoutMillis;
+    }
+
+    /**
+     * Ventana de retroceso en ticks completos.
+     */
+    public int getRewindTicks() {
+        return tickMillis > 0 ? (int) Math.min(maxRewindMillis / tickMillis, 1024) : 0;
+    }
+
+    public int getAoiRegionCells() {
+        return aoiRegionCells;
+    }
+
+    public void setAoiRegionCells(int aoiRegionCells) {
+        this.aoiRegionCells = aoiRegionCells;
+    }
+}
@@ -0,0 +1,195 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Aloja las partidas activas. Cada partida queda asignada a uno de los
+ * {@link MatchWorker} (uno por núcleo por defecto), escogiendo el que tenga
+ * menos partidas, de modo que la carga se reparte sin locks compartidos.
+ */
+@Component
+public class MatchRegistry {
+
+    public static final String DEFAULT_MATCH_ID = "1";
+
+    private final MatchWorker[] workers;
+    private final MatchProperties properties;
+    private final Timer tickTimer;
+    private final Timer drainTimer;
+    private final ConcurrentMap<String, Match> matches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Match> players = new ConcurrentHashMap<>();
+    private volatile Consumer<Match> tickHandler = match -> { };
+
+    @Autowired
+    public MatchRegistry(MatchProperties properties, MeterRegistry meterRegistry) {
+        int size = properties.getWorkers() > 0 ? properties.getWorkers() : Runtime.getRuntime().availableProcessors();
+        this.workers = new MatchWorker[size];
+        for (int i = 0; i < size; i++) {
+            this.workers[i] = new MatchWorker("match-worker-" + i);
+        }
+        this.properties = properties;
+        this.tickTimer = Timer.builder("leotankcicos.match.tick")
+                .description("Duración de un tick de simulación")
+                .register(meterRegistry);
+        this.drainTimer = Timer.builder("leotankcicos.match.input.drain")
+                .description("Tiempo aplicando las entradas encoladas al inicio del tick")
+                .register(meterRegistry);
+    }
+
+    public void setTickHandler(Consumer<Match> tickHandler) {
+        this.tickHandler = tickHandler;
+    }
+
+    public Match getOrCreate(String matchId, Function<String, Board> boardLoader) {
+        return getOrCreate(matchId, boardLoader, match -> { });
+    }
+
+    /**
+     * Devuelve la partida, creándola si no existe. El tablero y lo que agregue
+     * {@code onCreate} se cargan fuera del mapa, así que la E/S no bloquea a
+     * otras partidas; si otro hilo la publica primero, esta copia se descarta.
+     * Los tanques que deje {@code onCreate} se asocian a sus jugadores al publicarla.
+     */
+    public Match getOrCreate(String matchId, Function<String, Board> boardLoader, Consumer<Match> onCreate) {
+        Match existing = matches.get(matchId);
+        if (existing != null) {
+            return existing;
+        }
+        MatchWorker worker = leastLoadedWorker();
+        worker.assign();
+        Match match;
+        try {
+            match = new Match(matchId, boardLoader.apply(matchId), properties, worker);
+            onCreate.accept(match);
+        } catch (RuntimeException e) {
+            worker.release();
+            throw e;
+        }
+        existing = matches.putIfAbsent(matchId, match);
+        if (existing != null) {
+            match.markEvicted();
+            worker.release();
+            return existing;
+        }
+        bindTanks(match);
+        match.startLoop(properties.getTickMillis(), this::tick);
+        return match;
+    }
+
+    // Un nombre ya usado en otra partida gana; el tanque repetido sale en el hilo dueño
+    private void bindTanks(Match match) {
+        List<String> taken = new ArrayList<>();
+        for (Tank tank : match.getTanks()) {
+            if (!bindPlayer(tank.getName(), match)) {
+                taken.add(tank.getName());
+            }
+        }
+        if (!taken.isEmpty()) {
+            match.run(() -> taken.forEach(match::removeTank));
+        }
+    }
+
+    private void tick(Match match) {
+        long start = System.nanoTime();
+        try {
+            tickHandler.accept(match);
+        } finally {
+            tickTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            drainTimer.record(match.getLastDrainNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public Match find(String matchId) {
+        return matches.get(matchId);
+    }
+
+    public Collection<Match> getMatches() {
+        return Collections.unmodifiableCollection(matches.values());
+    }
+
+    /**
+     * Asocia el jugador con su partida. Los nombres son únicos entre todas
+     * las partidas, así que devuelve false si el nombre ya está en uso.
+     */
+    public boolean bindPlayer(String username, Match match) {
+        return players.putIfAbsent(username, match) == null;
+    }
+
+    public void unbindPlayer(String username) {
+        players.remove(username);
+    }
+
+    public Match findByPlayer(String username) {
+        return players.get(username);
+    }
+
+    public void remove(String matchId) {
+        Match match = matches.remove(matchId);
+        if (match != null) {
+            unload(match);
+        }
+    }
+
+    /**
+     * Descarga la partida terminada o abandonada: detiene su bucle y la saca
+     * del registro. Se llama desde su hilo dueño, así que quien la obtuvo
+     * antes y espera turno la verá marcada y deberá pedirla de nuevo.
+     */
+    public void evict(Match match) {
+        if (matches.remove(match.getId(), match)) {
+            unload(match);
+        }
+    }
+
+    private void unload(Match match) {
+        match.markEvicted();
+        match.run(() -> {
+            for (Tank tank : match.getTanks()) {
+                players.remove(tank.getName(), match);
+            }
+        });
+        match.stopLoop();
+        match.getWorker().release();
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        matches.values().forEach(Match::stopLoop);
+        matches.clear();
+        players.clear();
+        for (MatchWorker worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    private MatchWorker leastLoadedWorker() {
+        MatchWorker best = workers[0];
+        for (MatchWorker worker : workers) {
+            if (worker.getAssignedMatches() < best.getAssignedMatches()) {
+                best = worker;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,73 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutor serial dueño de un conjunto de partidas. Todo lo que modifica el
+ * estado de una partida corre en el único hilo de su worker, así que las
+ * partidas no necesitan locks entre sí ni sobre su propio tablero.
+ */
+public class MatchWorker {
+
+    private final ScheduledExecutorService executor;
+    private final AtomicInteger assignedMatches = new AtomicInteger();
+    private volatile Thread thread;
+
+    public MatchWorker(String name) {
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            thread = t;
+            return t;
+        });
+    }
+
+    public boolean isOwnerThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    int assign() {
+        return assignedMatches.incrementAndGet();
+    }
+
+    void release() {
+        assignedMatches.decrementAndGet();
+    }
+
+    public int getAssignedMatches() {
+        return assignedMatches.get();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
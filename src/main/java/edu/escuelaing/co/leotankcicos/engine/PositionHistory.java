@@ -0,0 +1,165 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.Arrays;
+
+/**
+ * Posiciones de los tanques en los últimos ticks, en un anillo indexado por
+ * tick. Cada frame guarda también el {@code seq} de estado publicado en ese
+ * tick, que es lo que el cliente sabe decir sobre lo que estaba viendo.
+ *
+ * <p>Los arreglos se reservan al crear la partida y solo crecen si entran más
+ * tanques de los previstos, así que grabar un tick no asigna memoria. Solo se
+ * usa desde el hilo dueño de la partida.</p>
+ */
+public class PositionHistory {
+
+    private final int capacity;
+    private final long[] ticks;
+    private final long[] seqs;
+    private final int[] counts;
+    // Tanques por frame; slots, xs e ys guardan capacity * width entradas
+    private int width;
+    private int[] slots;
+    private int[] xs;
+    private int[] ys;
+    private long newestTick = -1;
+
+    public PositionHistory(int rewindTicks, int expectedTanks) {
+        this.capacity = Math.max(1, rewindTicks + 1);
+        this.width = Math.max(1, expectedTanks);
+        this.ticks = new long[capacity];
+        this.seqs = new long[capacity];
+        this.counts = new int[capacity];
+        this.slots = new int[capacity * width];
+        this.xs = new int[capacity * width];
+        this.ys = new int[capacity * width];
+        clear();
+    }
+
+    /**
+     * Ticks que se pueden retroceder como máximo.
+     */
+    public int getRewindTicks() {
+        return capacity - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(ticks, -1);
+        Arrays.fill(counts, 0);
+        newestTick = -1;
+    }
+
+    /**
+     * Abre el frame del tick, reemplazando el más viejo del anillo.
+     */
+    public void begin(long tick, long seq) {
+        int frame = frameOf(tick);
+        ticks[frame] = tick;
+        seqs[frame] = seq;
+        counts[frame] = 0;
+        newestTick = tick;
+    }
+
+    public void add(int slot, int x, int y) {
+        int frame = frameOf(newestTick);
+        if (counts[frame] == width) {
+            grow();
+        }
+        int entry = frame * width + counts[frame]++;
+        slots[entry] = slot;
+        xs[entry] = x;
+        ys[entry] = y;
+    }
+
+    /**
+     * Tick más reciente cuyo estado ya incluía el {@code seq} indicado, sin
+     * pasar de la ventana. Con -1 el cliente no dijo qué veía y no se retrocede.
+     */
+    public long tickForSeq(long seq) {
+        if (seq < 0 || newestTick < 0) {
+            return newestTick;
+        }
+        long oldest = newestTick;
+        for (long tick = newestTick; tick > newestTick - capacity && tick >= 0; tick--) {
+            int frame = frameOf(tick);
+            if (ticks[frame] != tick) {
+                break;
+            }
+            if (seqs[frame] <= seq) {
+                return tick;
+            }
+            oldest = tick;
+        }
+        return oldest;
+    }
+
+    /**
+     * Slot del tanque que estaba en la casilla durante el tick, o -1 si
+     * estaba vacía o el tick ya salió del anillo.
+     */
+    public int slotAt(long tick, int x, int y) {
+        int frame = frameOf(tick);
+        if (tick < 0 || ticks[frame] != tick) {
+            return -1;
+        }
+        int start = frame * width;
+        for (int entry = start; entry < start + counts[frame]; entry++) {
+            if (xs[entry] == x && ys[entry] == y) {
+                return slots[entry];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recorre todas las posiciones guardadas en el anillo, de cualquier tick.
+     */
+    public void forEachEntry(EntryVisitor visitor) {
+        for (int frame = 0; frame < capacity; frame++) {
+            if (ticks[frame] < 0) {
+                continue;
+            }
+            int start = frame * width;
+            for (int entry = start; entry < start + counts[frame]; entry++) {
+                visitor.visit(slots[entry], xs[entry], ys[entry]);
+            }
+        }
+    }
+
+    /**
+     * Recibe el slot y la casilla de cada posición guardada.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(int slot, int x, int y);
+    }
+
+    public boolean contains(long tick) {
+        return tick >= 0 && ticks[frameOf(tick)] == tick;
+    }
+
+    public long getNewestTick() {
+        return newestTick;
+    }
+
+    private int frameOf(long tick) {
+        return (int) Math.floorMod(tick, (long) capacity);
+    }
+
+    // Copia cada frame a su nueva posición; solo pasa cuando entran más tanques de los previstos
+    private void grow() {
+        int newWidth = width * 2;
+        int[] newSlots = new int[capacity * newWidth];
+        int[] newXs = new int[capacity * newWidth];
+        int[] newYs = new int[capacity * newWidth];
+        for (int frame = 0; frame < capacity; frame++) {
+            System.arraycopy(slots, frame * width, newSlots, frame * newWidth, counts[frame]);
+            System.arraycopy(xs, frame * width, newXs, frame * newWidth, counts[frame]);
+            System.arraycopy(ys, frame * width, newYs, frame * newWidth, counts[frame]);
+        }
+        width = newWidth;
+        slots = newSlots;
+        xs = newXs;
+        ys = newYs;
+    }
+}
@@ -0,0 +1,32 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+/**
+ * Estado completo de una partida ya serializado en JSON para una secuencia.
+ * El ETag incluye la época de la partida: tras reiniciar el nodo la secuencia
+ * vuelve a empezar y un ETag viejo no debe coincidir.
+ */
+public final class SerializedState {
+
+    private final long seq;
+    private final String etag;
+    private final byte[] body;
+
+    public SerializedState(long seq, String etag, byte[] body) {
+        this.seq = seq;
+        this.etag = etag;
+        this.body = body;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    // null si el cuerpo incluye cambios que todavía no tienen secuencia
+    public String getEtag() {
+        return etag;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,89 @@
+package edu.escuelaing.co.leotankcicos.engine;
+
+import java.util.Arrays;
+
+/**
+ * Rueda de temporizadores por paso de bala: cada entrada es un slot del
+ * {@link BulletPool} con el número de serie de la bala que lo ocupaba y el
+ * paso en que hay que revisarla. Las entradas caen en la casilla de la rueda
+ * que corresponde a su paso; las que están a más de una vuelta esperan ahí
+ * hasta que llega su paso. Avanzar un paso solo recorre una casilla, así que
+ * una bala sin eventos no cuesta nada. Solo se usa desde el hilo dueño de la
+ * partida.
+ */
+public class TimerWheel {
+
+    /**
+     * Recibe cada entrada vencida.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(int slot, long serial);
+    }
+
+    private final int mask;
+    private final long[][] deadlines;
+    private final int[][] slots;
+    private final long[][] serials;
+    private final int[] counts;
+    private int size;
+
+    public TimerWheel(int buckets) {
+        int capacity = Integer.highestOneBit(Math.max(2, buckets - 1)) << 1;
+        this.mask = capacity - 1;
+        this.deadlines = new long[capacity][4];
+        this.slots = new int[capacity][4];
+        this.serials = new long[capacity][4];
+        this.counts = new int[capacity];
+    }
+
+    public void schedule(long deadline, int slot, long serial) {
+        int bucket = (int) (deadline & mask);
+        int count = counts[bucket];
+        if (count == slots[bucket].length) {
+            deadlines[bucket] = Arrays.copyOf(deadlines[bucket], count * 2);
+            slots[bucket] = Arrays.copyOf(slots[bucket], count * 2);
+            serials[bucket] = Arrays.copyOf(serials[bucket], count * 2);
+        }
+        deadlines[bucket][count] = deadline;
+        slots[bucket][count] = slot;
+        serials[bucket][count] = serial;
+        counts[bucket] = count + 1;
+        size++;
+    }
+
+    /**
+     * Entrega las entradas del paso y las saca de la rueda. Las de vueltas
+     * siguientes se quedan; las de pasos ya vencidos se descartan. El
+     * visitante no debe programar entradas nuevas mientras se recorre.
+     */
+    public void advance(long step, Visitor visitor) {
+        int bucket = (int) (step & mask);
+        long[] bucketDeadlines = deadlines[bucket];
+        int[] bucketSlots = slots[bucket];
+        long[] bucketSerials = serials[bucket];
+        int kept = 0;
+        for (int i = 0; i < counts[bucket]; i++) {
+            long deadline = bucketDeadlines[i];
+            if (deadline > step) {
+                bucketDeadlines[kept] = deadline;
+                bucketSlots[kept] = bucketSlots[i];
+                bucketSerials[kept] = bucketSerials[i];
+                kept++;
+            } else if (deadline == step) {
+                visitor.visit(bucketSlots[i], bucketSerials[i]);
+            }
+        }
+        size -= counts[bucket] - kept;
+        counts[bucket] = kept;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+}
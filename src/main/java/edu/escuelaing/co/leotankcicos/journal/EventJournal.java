@@ -0,0 +1,258 @@
+package edu.escuelaing.co.leotankcicos.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de solo-anexar sobre segmentos mapeados en memoria. Cada segmento es
+ * un archivo de tamaño fijo cuyo nombre es la secuencia de su primer
+ * registro; al llenarse se abre el siguiente. Un registro es
+ * {@code longitud int | crc32c int | cuerpo} y la longitud se escribe al
+ * final, así que un registro a medias queda en cero y la lectura se detiene
+ * ahí.
+ *
+ * <p>Lo escrito en el mapa sobrevive a la caída del proceso sin
+ * {@link #flush()}; forzar a disco solo hace falta ante una caída de la
+ * máquina. Varios workers anexan a la vez, de modo que cada anexo toma un
+ * candado corto. Forzar un segmento tarda, así que nunca se hace con el
+ * candado tomado: el segmento que se llena se entrega al {@code flusher} y
+ * {@link #flush()} fuerza el activo por fuera del candado.
+ */
+public class EventJournal implements Closeable {
+
+    private static final String SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Executor flusher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long currentFirstSeq;
+    private long nextSeq = 1;
+    private long lastReadSeq;
+
+    public EventJournal(Path directory, int segmentBytes) throws IOException {
+        this(directory, segmentBytes, Runnable::run);
+    }
+
+    public EventJournal(Path directory, int segmentBytes, Executor flusher) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.flusher = flusher;
+        Files.createDirectories(directory);
+        List<Long> segments = segments();
+        if (!segments.isEmpty()) {
+            reopen(segments.get(segments.size() - 1));
+        }
+    }
+
+    /**
+     * Anexa el registro y devuelve su secuencia.
+     */
+    public long append(JournalRecord record) {
+        int needed = HEADER_BYTES + record.maxEncodedSize();
+        lock.lock();
+        try {
+            if (buffer == null || buffer.remaining() < needed) {
+                if (needed > segmentBytes) {
+                    throw new IllegalArgumentException("Registro más grande que un segmento: " + needed);
+                }
+                roll();
+            }
+            long seq = nextSeq;
+            int start = buffer.position();
+            buffer.position(start + HEADER_BYTES);
+            record.encode(buffer, seq);
+            int end = buffer.position();
+            crc.reset();
+            crc.update(buffer.duplicate().position(start + HEADER_BYTES).limit(end));
+            buffer.putInt(start + 4, (int) crc.getValue());
+            buffer.putInt(start, end - start - HEADER_BYTES);
+            nextSeq++;
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Recorre en orden los registros con secuencia mayor o igual a
+     * {@code fromSeq}. Los segmentos que terminan antes ni se abren.
+     */
+    public void replay(long fromSeq, BiConsumer<Long, JournalRecord> consumer) throws IOException {
+        List<Long> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && segments.get(i + 1) <= fromSeq) {
+                continue;
+            }
+            read(segments.get(i), fromSeq, consumer);
+        }
+    }
+
+    /**
+     * Borra los segmentos cuyos registros son todos anteriores a
+     * {@code seq}; el segmento activo nunca se borra.
+     */
+    public int deleteBefore(long seq) throws IOException {
+        lock.lock();
+        try {
+            List<Long> segments = segments();
+            int deleted = 0;
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (segments.get(i + 1) > seq || segments.get(i) == currentFirstSeq) {
+                    break;
+                }
+                Files.deleteIfExists(segmentPath(segments.get(i)));
+                deleted++;
+            }
+            return deleted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fuerza a disco el segmento activo. Los anexos siguen mientras tanto.
+     */
+    public void flush() {
+        MappedByteBuffer active;
+        lock.lock();
+        try {
+            active = buffer;
+        } finally {
+            lock.unlock();
+        }
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    /**
+     * Secuencia del último registro anexado, 0 si el diario está vacío.
+     */
+    public long getLastSeq() {
+        lock.lock();
+        try {
+            return nextSeq - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSegmentCount() throws IOException {
+        return segments().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() {
+        try {
+            if (buffer != null) {
+                // El mapa sigue siendo válido tras cerrar el canal
+                MappedByteBuffer full = buffer;
+                flusher.execute(full::force);
+                channel.close();
+            }
+            currentFirstSeq = nextSeq;
+            map(segmentPath(currentFirstSeq));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Retoma el último segmento justo después de su último registro válido
+    private void reopen(long firstSeq) throws IOException {
+        currentFirstSeq = firstSeq;
+        nextSeq = firstSeq;
+        int end = read(firstSeq, Long.MAX_VALUE, (seq, record) -> { });
+        nextSeq = lastReadSeq >= firstSeq ? lastReadSeq + 1 : firstSeq;
+        map(segmentPath(firstSeq));
+        buffer.position(end);
+        // Lo que quede tras el último registro válido (un anexo cortado) se limpia
+        for (int i = end; i < Math.min(end + HEADER_BYTES, segmentBytes); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    private void map(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    // Lee un segmento hasta el primer registro vacío o corrupto; devuelve dónde terminó.
+    // Los registros anteriores a fromSeq se validan pero no se decodifican
+    private int read(long firstSeq, long fromSeq, BiConsumer<Long, JournalRecord> consumer) throws IOException {
+        try (FileChannel in = FileChannel.open(segmentPath(firstSeq), StandardOpenOption.READ)) {
+            ByteBuffer segment = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            CRC32C check = new CRC32C();
+            while (segment.remaining() >= HEADER_BYTES) {
+                int start = segment.position();
+                int length = segment.getInt();
+                int expected = segment.getInt();
+                if (length <= 0 || length > segment.remaining()) {
+                    return start;
+                }
+                ByteBuffer body = segment.slice(segment.position(), length);
+                check.reset();
+                check.update(body.duplicate());
+                if ((int) check.getValue() != expected) {
+                    return start;
+                }
+                long seq = body.getLong();
+                lastReadSeq = seq;
+                if (seq >= fromSeq) {
+                    consumer.accept(seq, JournalRecord.decode(body));
+                }
+                segment.position(segment.position() + length);
+            }
+            return segment.position();
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .forEach(name -> segments.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return directory.resolve(String.format("%020d%s", firstSeq, SUFFIX));
+    }
+}
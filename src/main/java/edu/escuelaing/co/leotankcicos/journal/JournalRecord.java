@@ -0,0 +1,179 @@
+package edu.escuelaing.co.leotankcicos.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import edu.escuelaing.co.leotankcicos.engine.BulletPool;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Un evento del diario. Todos los tipos comparten el mismo formato binario;
+ * los campos que un tipo no usa viajan vacíos.
+ *
+ * <pre>
+ * seq long | type byte | matchId name bulletId color mapId (short len + UTF-8, -1 = null) | x y rotation speed int
+ * </pre>
+ */
+public final class JournalRecord {
+
+    public enum Type {
+        JOIN, MOVE, SHOOT, BULLET_STEP, BULLET_GONE, HIT, WIN, RESET
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final String matchId;
+    private final String name;
+    private final String bulletId;
+    private final String color;
+    private final String mapId;
+    private final int x;
+    private final int y;
+    private final int rotation;
+    private final int speed;
+
+    private JournalRecord(Type type, String matchId, String name, String bulletId, String color, String mapId,
+                          int x, int y, int rotation, int speed) {
+        this.type = type;
+        this.matchId = matchId;
+        this.name = name;
+        this.bulletId = bulletId;
+        this.color = color;
+        this.mapId = mapId;
+        this.x = x;
+        this.y = y;
+        this.rotation = rotation;
+        this.speed = speed;
+    }
+
+    public static JournalRecord join(String matchId, String mapId, Tank tank) {
+        return new JournalRecord(Type.JOIN, matchId, tank.getName(), null, tank.getColor(), mapId,
+                tank.getPosx(), tank.getPosy(), tank.getRotation(), 0);
+    }
+
+    public static JournalRecord move(String matchId, Tank tank) {
+        return new JournalRecord(Type.MOVE, matchId, tank.getName(), null, null, null,
+                tank.getPosx(), tank.getPosy(), tank.getRotation(), 0);
+    }
+
+    public static JournalRecord shoot(String matchId, BulletPool bullets, int slot) {
+        return new JournalRecord(Type.SHOOT, matchId, bullets.getOwner(slot), bullets.getId(slot), null, null,
+                bullets.getX(slot), bullets.getY(slot), bullets.getDirection(slot), bullets.getSpeed(slot));
+    }
+
+    public static JournalRecord bulletStep(String matchId) {
+        return new JournalRecord(Type.BULLET_STEP, matchId, null, null, null, null, 0, 0, 0, 0);
+    }
+
+    public static JournalRecord bulletGone(String matchId, String bulletId) {
+        return new JournalRecord(Type.BULLET_GONE, matchId, null, bulletId, null, null, 0, 0, 0, 0);
+    }
+
+    public static JournalRecord hit(String matchId, String tankName, String bulletId) {
+        return new JournalRecord(Type.HIT, matchId, tankName, bulletId, null, null, 0, 0, 0, 0);
+    }
+
+    public static JournalRecord win(String matchId, String winner) {
+        return new JournalRecord(Type.WIN, matchId, winner, null, null, null, 0, 0, 0, 0);
+    }
+
+    public static JournalRecord reset(String matchId) {
+        return new JournalRecord(Type.RESET, matchId, null, null, null, null, 0, 0, 0, 0);
+    }
+
+    // Cota superior del tamaño codificado: UTF-8 usa a lo sumo 3 bytes por char de Java
+    int maxEncodedSize() {
+        return 8 + 1 + 5 * 2 + 3 * (length(matchId) + length(name) + length(bulletId) + length(color) + length(mapId))
+                + 4 * 4;
+    }
+
+    void encode(ByteBuffer buffer, long seq) {
+        buffer.putLong(seq);
+        buffer.put((byte) type.ordinal());
+        putString(buffer, matchId);
+        putString(buffer, name);
+        putString(buffer, bulletId);
+        putString(buffer, color);
+        putString(buffer, mapId);
+        buffer.putInt(x);
+        buffer.putInt(y);
+        buffer.putInt(rotation);
+        buffer.putInt(speed);
+    }
+
+    static JournalRecord decode(ByteBuffer buffer) {
+        Type type = TYPES[buffer.get()];
+        String matchId = getString(buffer);
+        String name = getString(buffer);
+        String bulletId = getString(buffer);
+        String color = getString(buffer);
+        String mapId = getString(buffer);
+        return new JournalRecord(type, matchId, name, bulletId, color, mapId,
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBulletId() {
+        return bulletId;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public String getMapId() {
+        return mapId;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
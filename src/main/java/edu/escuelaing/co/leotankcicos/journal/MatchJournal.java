@@ -0,0 +1,332 @@
+package edu.escuelaing.co.leotankcicos.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Diario de eventos de las partidas para recuperarse de una caída. Cada
+ * comando aceptado y sus efectos se anexan al {@link EventJournal}, y cada
+ * partida guarda de vez en cuando un snapshot para que la recuperación solo
+ * reproduzca la cola. Los registros se anexan desde el hilo dueño de cada
+ * partida; los snapshots se escriben y los segmentos se borran en un hilo
+ * aparte.
+ */
+@Component
+public class MatchJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchJournal.class);
+    private static final String SNAPSHOT_PREFIX = "match-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String FLOOR_FILE = "floor";
+
+    private final EventJournal journal;
+    private final Path snapshotDirectory;
+    private final int snapshotEvery;
+    private final ExecutorService flusher;
+    private final ConcurrentMap<String, Progress> progress = new ConcurrentHashMap<>();
+
+    // Partida cuyo snapshot cubre todos sus registros: no frena el piso
+    private static final long IDLE = Long.MAX_VALUE;
+    // Ticks sin registros tras los que una partida quieta toma su snapshot (10 s a 50 ms)
+    private static final long IDLE_SNAPSHOT_TICKS = 200;
+
+    // Última secuencia anexada de la partida, registros desde su último snapshot y primera secuencia que aún necesita.
+    // lastSeq y neededFrom se tocan bajo el monitor de la entrada: el hilo del diario los revisa al terminar un snapshot
+    private static final class Progress {
+        private long lastSeq;
+        private long lastTick;
+        private int sinceSnapshot;
+        private volatile long neededFrom = IDLE;
+        private volatile boolean snapshotFailed;
+    }
+
+    @Autowired
+    public MatchJournal(@Value("${leotankcicos.journal.enabled:false}") boolean enabled,
+                        @Value("${leotankcicos.journal.directory:data/journal}") String directory,
+                        @Value("${leotankcicos.journal.segment-bytes:67108864}") int segmentBytes,
+                        @Value("${leotankcicos.journal.snapshot-every:10000}") int snapshotEvery) throws IOException {
+        this(enabled ? Paths.get(directory) : null, segmentBytes, snapshotEvery);
+    }
+
+    public MatchJournal(Path directory, int segmentBytes, int snapshotEvery) throws IOException {
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        if (directory == null) {
+            this.journal = null;
+            this.snapshotDirectory = null;
+            this.flusher = null;
+            return;
+        }
+        this.flusher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "journal-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.journal = new EventJournal(directory.resolve("segments"), segmentBytes, this::runInBackground);
+        this.snapshotDirectory = directory.resolve("snapshots");
+        Files.createDirectories(snapshotDirectory);
+    }
+
+    /**
+     * Diario apagado: no escribe nada y no recupera nada.
+     */
+    public static MatchJournal disabled() {
+        try {
+            return new MatchJournal(null, 0, 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    public void record(Match match, JournalRecord record) {
+        if (journal == null) {
+            return;
+        }
+        Progress entry = progress.computeIfAbsent(match.getId(), id -> new Progress());
+        synchronized (entry) {
+            if (entry.neededFrom == IDLE) {
+                // Antes de anexar: un piso calculado en otro hilo no puede pasar por encima de este registro
+                entry.neededFrom = journal.getLastSeq() + 1;
+            }
+            entry.lastSeq = journal.append(record);
+        }
+        entry.lastTick = match.getTick();
+        entry.sinceSnapshot++;
+    }
+
+    /**
+     * Pide el snapshot en el próximo {@link #checkpoint}, sin esperar a
+     * juntar {@code snapshot-every} registros. Se usa al terminar una ronda.
+     */
+    public void requestSnapshot(Match match) {
+        Progress entry = progress.get(match.getId());
+        if (entry != null && entry.sinceSnapshot > 0) {
+            entry.sinceSnapshot = snapshotEvery;
+        }
+    }
+
+    /**
+     * La partida se descarga: se cierra con un reinicio, para que lo que
+     * quede de ella en el diario no se mezcle con una partida nueva del mismo
+     * id, y se borra su snapshot. Se llama desde su hilo dueño antes de
+     * sacarla del registro.
+     */
+    public void retire(Match match) {
+        if (journal == null) {
+            return;
+        }
+        journal.append(JournalRecord.reset(match.getId()));
+        progress.remove(match.getId());
+        // En el hilo del diario, detrás de cualquier snapshot suyo que siga pendiente
+        runInBackground(() -> {
+            try {
+                Files.deleteIfExists(snapshotPath(match.getId()));
+            } catch (IOException e) {
+                logger.warn("No se pudo borrar el snapshot de la partida {}", match.getId(), e);
+            }
+            compact();
+        });
+    }
+
+    /**
+     * Toma el snapshot si la partida ya acumuló {@code snapshot-every}
+     * registros o si lleva un rato quieta con registros sin cubrir. Va al
+     * final del tick: a mitad de un impacto el estado aún no coincide con el
+     * último registro.
+     */
+    public void checkpoint(Match match) {
+        Progress entry = progress.get(match.getId());
+        if (entry != null && entry.snapshotFailed) {
+            entry.snapshotFailed = false;
+            entry.sinceSnapshot = snapshotEvery;
+        }
+        if (entry != null && (entry.sinceSnapshot >= snapshotEvery
+                || entry.sinceSnapshot > 0 && match.getTick() - entry.lastTick >= IDLE_SNAPSHOT_TICKS)) {
+            snapshot(match);
+        }
+    }
+
+    /**
+     * Guarda el estado completo de la partida hasta su último registro. La
+     * copia se arma en el hilo dueño y el archivo se escribe en el hilo del
+     * diario; al terminar, la partida deja de frenar el borrado de lo que el
+     * snapshot cubre y se compacta. Si la escritura falla se reintenta en el
+     * siguiente {@link #checkpoint}.
+     */
+    public void snapshot(Match match) {
+        Progress entry = progress.get(match.getId());
+        if (journal == null || entry == null) {
+            return;
+        }
+        RecoveredMatch state = RecoveredMatch.of(match.getId(), match.getBoard().getMapId(), entry.lastSeq,
+                match.getSpawnsUsed(), match.getTanks(), match.getLiveBullets());
+        entry.sinceSnapshot = 0;
+        runInBackground(() -> {
+            try {
+                writeSnapshot(state);
+            } catch (IOException e) {
+                logger.warn("No se pudo guardar el snapshot de la partida {}", match.getId(), e);
+                entry.snapshotFailed = true;
+                return;
+            }
+            snapshotWritten(entry, state.getSeq());
+            compact();
+        });
+    }
+
+    // Lo anexado después de la copia sigue haciendo falta; sin registros nuevos la partida queda ociosa
+    private static void snapshotWritten(Progress entry, long covered) {
+        synchronized (entry) {
+            if (entry.neededFrom <= covered) {
+                entry.neededFrom = entry.lastSeq == covered ? IDLE : covered + 1;
+            }
+        }
+    }
+
+    // Fuerza el diario, guarda el piso y borra lo anterior. Si ninguna partida necesita nada, el piso es el final
+    private void compact() {
+        try {
+            journal.flush();
+            long end = journal.getLastSeq() + 1;
+            long floor = Math.min(end, progress.values().stream().mapToLong(p -> p.neededFrom).min().orElse(end));
+            writeAtomically(snapshotDirectory.resolve(FLOOR_FILE), out -> out.writeLong(floor));
+            journal.deleteBefore(floor);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo compactar el diario", e);
+        }
+    }
+
+    // Tras el cierre lo pendiente se hace en el hilo que llama
+    private void runInBackground(Runnable task) {
+        try {
+            flusher.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Estado de cada partida del diario: su último snapshot más los
+     * registros posteriores. Se llama una vez al arrancar, antes de anexar.
+     */
+    public Collection<RecoveredMatch> recover() throws IOException {
+        if (journal == null) {
+            return List.of();
+        }
+        Map<String, RecoveredMatch> matches = new HashMap<>();
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))::iterator) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                    RecoveredMatch state = RecoveredMatch.read(new DataInputStream(in));
+                    matches.put(state.getMatchId(), state);
+                    progress.put(state.getMatchId(), new Progress());
+                }
+            }
+        }
+        // Ninguna partida necesita registros anteriores al piso: solo se reproduce la cola
+        Path floorFile = snapshotDirectory.resolve(FLOOR_FILE);
+        long floor = 0;
+        if (Files.exists(floorFile)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(floorFile))) {
+                floor = in.readLong();
+            }
+        }
+        journal.replay(floor, (seq, record) -> {
+            RecoveredMatch state = matches.computeIfAbsent(record.getMatchId(), RecoveredMatch::new);
+            if (seq > state.getSeq()) {
+                state.apply(seq, record);
+                Progress entry = progress.computeIfAbsent(record.getMatchId(), id -> new Progress());
+                if (entry.neededFrom == IDLE) {
+                    entry.neededFrom = seq;
+                }
+                // Lo reproducido aún no tiene snapshot; se cubre con el primero tras arrancar
+                entry.sinceSnapshot++;
+            }
+        });
+        // Sin tanques no hay nada que restaurar: la partida se olvida como si se hubiera descargado
+        List<RecoveredMatch> recovered = new ArrayList<>();
+        for (RecoveredMatch state : matches.values()) {
+            if (state.getTanks().isEmpty()) {
+                journal.append(JournalRecord.reset(state.getMatchId()));
+                progress.remove(state.getMatchId());
+                Files.deleteIfExists(snapshotPath(state.getMatchId()));
+            } else {
+                progress.get(state.getMatchId()).lastSeq = state.getSeq();
+                recovered.add(state);
+            }
+        }
+        return recovered;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            journal.close();
+        }
+    }
+
+    private void writeSnapshot(RecoveredMatch state) throws IOException {
+        writeAtomically(snapshotPath(state.getMatchId()), state::write);
+    }
+
+    private Path snapshotPath(String matchId) {
+        return snapshotDirectory.resolve(SNAPSHOT_PREFIX + URLEncoder.encode(matchId, StandardCharsets.UTF_8) + SNAPSHOT_SUFFIX);
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    // Se escribe aparte y se renombra para no dejar nunca un archivo a medias
+    private static void writeAtomically(Path target, Writer writer) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            DataOutputStream data = new DataOutputStream(out);
+            writer.write(data);
+            data.flush();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
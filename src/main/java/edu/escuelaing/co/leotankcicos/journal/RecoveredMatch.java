@@ -0,0 +1,191 @@
+package edu.escuelaing.co.leotankcicos.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.escuelaing.co.leotankcicos.model.Bullet;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Estado de una partida reconstruido a partir de su snapshot y de los
+ * registros posteriores del diario. Aplicar un registro solo cambia este
+ * estado; no vuelve a ejecutar la lógica del juego, porque los efectos (un
+ * impacto, una bala que sale del tablero) tienen su propio registro.
+ */
+public class RecoveredMatch {
+
+    private final String matchId;
+    private String mapId;
+    private long seq;
+    private int spawnsUsed;
+    private final Map<String, Tank> tanks = new LinkedHashMap<>();
+    private final Map<String, Bullet> bullets = new LinkedHashMap<>();
+
+    public RecoveredMatch(String matchId) {
+        this.matchId = matchId;
+    }
+
+    public void apply(long recordSeq, JournalRecord record) {
+        seq = recordSeq;
+        switch (record.getType()) {
+            case JOIN -> {
+                Tank tank = new Tank(record.getX(), record.getY(), record.getColor(), record.getRotation(), record.getName());
+                tank.setMatchId(matchId);
+                tanks.put(tank.getName(), tank);
+                mapId = record.getMapId();
+                spawnsUsed++;
+            }
+            case MOVE -> {
+                Tank tank = tanks.get(record.getName());
+                if (tank != null) {
+                    tank.setPosx(record.getX());
+                    tank.setPosy(record.getY());
+                    tank.setRotation(record.getRotation());
+                }
+            }
+            case SHOOT -> {
+                Bullet bullet = new Bullet(record.getBulletId(), record.getX(), record.getY(), record.getRotation(), true, record.getName());
+                bullet.setMatchId(matchId);
+                bullet.setSpeed(record.getSpeed());
+                bullets.put(bullet.getId(), bullet);
+            }
+            case BULLET_STEP -> bullets.values().forEach(RecoveredMatch::step);
+            case BULLET_GONE -> bullets.remove(record.getBulletId());
+            case HIT -> {
+                tanks.remove(record.getName());
+                bullets.remove(record.getBulletId());
+            }
+            // Igual que announceVictory: salen todos los tanques, las balas y los spawns siguen
+            case WIN -> tanks.clear();
+            case RESET -> {
+                tanks.clear();
+                bullets.clear();
+                spawnsUsed = 0;
+            }
+        }
+    }
+
+    // Sin colisiones: si la bala chocó durante el paso viene un HIT o BULLET_GONE detrás
+    private static void step(Bullet bullet) {
+        int dx = switch (bullet.getDirection()) {
+            case 0 -> 1;
+            case 180 -> -1;
+            default -> 0;
+        };
+        int dy = switch (bullet.getDirection()) {
+            case -90 -> -1;
+            case 90 -> 1;
+            default -> 0;
+        };
+        bullet.setX(bullet.getX() + dx * bullet.getSpeed());
+        bullet.setY(bullet.getY() + dy * bullet.getSpeed());
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(matchId);
+        out.writeBoolean(mapId != null);
+        if (mapId != null) {
+            out.writeUTF(mapId);
+        }
+        out.writeLong(seq);
+        out.writeInt(spawnsUsed);
+        out.writeInt(tanks.size());
+        for (Tank tank : tanks.values()) {
+            out.writeUTF(tank.getName());
+            out.writeUTF(tank.getColor());
+            out.writeInt(tank.getPosx());
+            out.writeInt(tank.getPosy());
+            out.writeInt(tank.getRotation());
+        }
+        out.writeInt(bullets.size());
+        for (Bullet bullet : bullets.values()) {
+            out.writeUTF(bullet.getId());
+            out.writeUTF(bullet.getTankId());
+            out.writeInt(bullet.getX());
+            out.writeInt(bullet.getY());
+            out.writeInt(bullet.getDirection());
+            out.writeInt(bullet.getSpeed());
+        }
+    }
+
+    static RecoveredMatch read(DataInput in) throws IOException {
+        RecoveredMatch match = new RecoveredMatch(in.readUTF());
+        match.mapId = in.readBoolean() ? in.readUTF() : null;
+        match.seq = in.readLong();
+        match.spawnsUsed = in.readInt();
+        int tankCount = in.readInt();
+        for (int i = 0; i < tankCount; i++) {
+            String name = in.readUTF();
+            Tank tank = new Tank(0, 0, in.readUTF(), 0, name);
+            tank.setPosx(in.readInt());
+            tank.setPosy(in.readInt());
+            tank.setRotation(in.readInt());
+            tank.setMatchId(match.matchId);
+            match.tanks.put(name, tank);
+        }
+        int bulletCount = in.readInt();
+        for (int i = 0; i < bulletCount; i++) {
+            String id = in.readUTF();
+            String owner = in.readUTF();
+            Bullet bullet = new Bullet(id, in.readInt(), in.readInt(), in.readInt(), true, owner);
+            bullet.setSpeed(in.readInt());
+            bullet.setMatchId(match.matchId);
+            match.bullets.put(id, bullet);
+        }
+        return match;
+    }
+
+    /**
+     * Copia el estado vivo de la partida; se llama desde su hilo dueño.
+     */
+    static RecoveredMatch of(String matchId, String mapId, long seq, int spawnsUsed,
+                             Collection<Tank> tanks, Collection<Bullet> bullets) {
+        RecoveredMatch match = new RecoveredMatch(matchId);
+        match.mapId = mapId;
+        match.seq = seq;
+        match.spawnsUsed = spawnsUsed;
+        for (Tank tank : tanks) {
+            match.tanks.put(tank.getName(), tank.copy());
+        }
+        for (Bullet bullet : bullets) {
+            if (bullet.isAlive()) {
+                Bullet copy = new Bullet(bullet.getId(), bullet.getX(), bullet.getY(), bullet.getDirection(), true, bullet.getTankId());
+                copy.setSpeed(bullet.getSpeed());
+                copy.setMatchId(matchId);
+                match.bullets.put(copy.getId(), copy);
+            }
+        }
+        return match;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public String getMapId() {
+        return mapId;
+    }
+
+    /**
+     * Secuencia del último registro aplicado.
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getSpawnsUsed() {
+        return spawnsUsed;
+    }
+
+    public Collection<Tank> getTanks() {
+        return tanks.values();
+    }
+
+    public Collection<Bullet> getBullets() {
+        return bullets.values();
+    }
+}
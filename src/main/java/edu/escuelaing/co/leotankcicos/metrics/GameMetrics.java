@@ -0,0 +1,103 @@
+package edu.escuelaing.co.leotankcicos.metrics;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Gauges del estado del juego que se leen solo cuando se consulta
+ * {@code /actuator/prometheus}, así que no cuestan nada en el tick. Los
+ * tiempos de tick y de envío se registran en {@code MatchRegistry} y
+ * {@code StateBroadcaster}.
+ */
+@Component
+public class GameMetrics implements MeterBinder {
+
+    private final MatchRegistry matchRegistry;
+    private final WriteBehindStore writeBehindStore;
+    private final TaskExecutor inboundExecutor;
+    private final TaskExecutor outboundExecutor;
+
+    public GameMetrics(MatchRegistry matchRegistry, WriteBehindStore writeBehindStore,
+                       @Qualifier("clientInboundChannelExecutor") TaskExecutor inboundExecutor,
+                       @Qualifier("clientOutboundChannelExecutor") TaskExecutor outboundExecutor) {
+        this.matchRegistry = matchRegistry;
+        this.writeBehindStore = writeBehindStore;
+        this.inboundExecutor = inboundExecutor;
+        this.outboundExecutor = outboundExecutor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("leotankcicos.matches", matchRegistry, r -> r.getMatches().size())
+                .description("Partidas activas")
+                .register(registry);
+        Gauge.builder("leotankcicos.match.workers", matchRegistry, MatchRegistry::getWorkerCount)
+                .description("Hilos de simulación; las balas avanzan dentro del tick, sin hilos propios")
+                .register(registry);
+        Gauge.builder("leotankcicos.players", matchRegistry, sumOf(Match::getTankCount))
+                .register(registry);
+        Gauge.builder("leotankcicos.bullets.live", matchRegistry, sumOf(m -> m.getBullets().size()))
+                .register(registry);
+        Gauge.builder("leotankcicos.match.input.queued", matchRegistry, sumOf(Match::getQueuedInputs))
+                .description("Entradas en cola esperando el siguiente tick")
+                .register(registry);
+        FunctionCounter.builder("leotankcicos.match.input.dropped", matchRegistry, sumOf(m -> m.getDroppedInputs()))
+                .description("Entradas descartadas por cola llena")
+                .register(registry);
+
+        Gauge.builder("leotankcicos.persistence.pending", writeBehindStore, WriteBehindStore::getPendingCount)
+                .register(registry);
+        Gauge.builder("leotankcicos.persistence.flush.lag", writeBehindStore, WriteBehindStore::getLastFlushLagMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("leotankcicos.persistence.flush.batch", writeBehindStore, WriteBehindStore::getLastBatchSize)
+                .register(registry);
+        FunctionCounter.builder("leotankcicos.persistence.flushes", writeBehindStore, WriteBehindStore::getFlushCount)
+                .register(registry);
+        FunctionCounter.builder("leotankcicos.persistence.flushes.failed", writeBehindStore, WriteBehindStore::getFailedFlushCount)
+                .register(registry);
+
+        bindQueueDepth(registry, "inbound", inboundExecutor);
+        bindQueueDepth(registry, "outbound", outboundExecutor);
+    }
+
+    // Con hilos virtuales no hay cola que medir
+    private static void bindQueueDepth(MeterRegistry registry, String channel, TaskExecutor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            Gauge.builder("leotankcicos.stomp.channel.queued", pool, p -> queueSize(p.getThreadPoolExecutor()))
+                    .description("Mensajes esperando hilo en el canal STOMP")
+                    .tag("channel", channel)
+                    .register(registry);
+            Gauge.builder("leotankcicos.stomp.channel.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+                    .tag("channel", channel)
+                    .register(registry);
+        }
+    }
+
+    private static double queueSize(ThreadPoolExecutor executor) {
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    private static ToDoubleFunction<MatchRegistry> sumOf(ToDoubleFunction<Match> value) {
+        return registry -> {
+            double sum = 0;
+            for (Match match : registry.getMatches()) {
+                sum += value.applyAsDouble(match);
+            }
+            return sum;
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package edu.escuelaing.co.leotankcicos.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.util.AntPathMatcher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cuenta los SEND y SUBSCRIBE que llegan por STOMP. El destino se reduce a
+ * una de las rutas conocidas ({@code /app/Tank1/move} se cuenta como
+ * <code>/app/&#42;/move</code>) y cualquier otro queda como {@code other}:
+ * los segmentos los elige el cliente, así que no pueden crear series nuevas.
+ */
+public class InboundMessageMetrics implements ChannelInterceptor {
+
+    static final String OTHER = "other";
+
+    // Los @MessageMapping, el @SubscribeMapping y los tópicos que publica el servidor
+    private static final List<String> ROUTES = List.of(
+            "/app/*/move",
+            "/app/*/shoot",
+            "/app/matches/*/winner",
+            "/app/matches/*/state",
+            "/topic/matches/*/state",
+            "/topic/matches/*/movement",
+            "/topic/matches/*/collisionResult",
+            "/topic/matches/*/winner",
+            "/topic/matches/*/bin/movement",
+            "/topic/matches/*/bin/collisionResult",
+            "/topic/matches/*/bin/winner",
+            "/user/queue/matches/*/state",
+            "/user/queue/matches/*/movement",
+            "/user/queue/matches/*/collisionResult",
+            "/user/queue/matches/*/ack",
+            "/topic/spectate/*/*",
+            "/topic/replays/*/*");
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public InboundMessageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompCommand command = StompHeaderAccessor.getCommand(message.getHeaders());
+        if (command == StompCommand.SEND || command == StompCommand.SUBSCRIBE) {
+            String destination = normalize(StompHeaderAccessor.getDestination(message.getHeaders()));
+            counters.computeIfAbsent(command + " " + destination, key -> Counter.builder("leotankcicos.stomp.inbound")
+                    .description("Mensajes STOMP recibidos por destino")
+                    .tag("command", command.name())
+                    .tag("destination", destination)
+                    .register(registry))
+                    .increment();
+        }
+        return message;
+    }
+
+    static String normalize(String destination) {
+        if (destination == null || destination.isEmpty()) {
+            return "none";
+        }
+        for (String route : ROUTES) {
+            if (MATCHER.match(route, destination)) {
+                return route;
+            }
+        }
+        return OTHER;
+    }
+}
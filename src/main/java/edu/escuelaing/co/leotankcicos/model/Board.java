@@ -1,43 +1,107 @@
 package edu.escuelaing.co.leotankcicos.model;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+/**
+ * Tablero de la partida guardado como {@code short}: 0 es una casilla vacía,
+ * 1 una pared y cualquier valor mayor es un tanque, cuyo nombre se busca en
+ * la tabla de slots. Así las colisiones se revisan comparando enteros y sin
+ * crear objetos.
+ *
+ * <p>Las casillas viven en bloques de 64x64 que solo se reservan cuando algo
+ * se escribe en ellos; un bloque sin reservar está vacío. En un mapa grande
+ * la memoria depende de las paredes y de dónde han estado los tanques, no del
+ * tamaño total.</p>
+ */
 @Document(collection = "boards")
 public class Board {
+
+    public static final short EMPTY = 0;
+    public static final short WALL = 1;
+    public static final int CHUNK_SIZE = 1 << 6;
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final short FIRST_TANK = 2;
+    private static final String EMPTY_VALUE = "0";
+    private static final String WALL_VALUE = "1";
+
     @Id
     private String id;
-    private String[][] boxes;
+    private String mapId;
+    private int width;
+    private int height;
+    private short[][] chunks;
+    private List<String> tankSlots = new ArrayList<>();
+
+    @Transient
+    private GameMap map;
+    @Transient
+    private Map<String, Short> slotIndex = new HashMap<>();
 
+    // Casillas modificadas desde el último delta publicado
     @Transient
-    private final Object[][] locks;
+    private BitSet dirtyCells = new BitSet();
+    @Transient
+    private boolean resetPending;
 
     public Board() {
+        this.map = GameMap.classic();
         initializeBoard();
-        this.locks = new Object[boxes.length][boxes[0].length];
-        for (int i = 0; i < boxes.length; i++) {
-            for (int j = 0; j < boxes[0].length; j++) {
-                locks[i][j] = new Object();
-            }
+    }
+
+    public Board(String id) {
+        this();
+        this.id = id;
+    }
+
+    public Board(String id, GameMap map) {
+        this.id = id;
+        this.map = map;
+        initializeBoard();
+    }
+
+    // Copia sin armar el mapa: solo se clonan los bloques reservados y la tabla de slots
+    private Board(Board source) {
+        this.id = source.id;
+        this.map = source.map;
+        this.mapId = source.mapId;
+        this.width = source.width;
+        this.height = source.height;
+        this.chunks = new short[source.chunks.length][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = source.chunks[i] != null ? source.chunks[i].clone() : null;
         }
+        this.tankSlots = new ArrayList<>(source.tankSlots);
+        this.slotIndex = new HashMap<>(source.slotIndex);
     }
 
     public void initializeBoard(){
-        this.boxes = new String[][]{
-            {"1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1"},
-            {"1", "0", "0", "0", "0", "0", "0", "1", "0", "0", "0", "0", "0", "0", "1"},
-            {"1", "0", "1", "1", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "1"},
-            {"1", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "1", "0", "0", "1"},
-            {"1", "0", "0", "0", "0", "0", "0", "1", "0", "0", "0", "0", "0", "0", "1"},
-            {"1", "0", "0", "0", "1", "0", "0", "1", "0", "0", "0", "1", "0", "0", "1"},
-            {"1", "0", "0", "0", "1", "0", "0", "1", "0", "0", "0", "0", "1", "0", "1"},
-            {"1", "0", "0", "0", "0", "0", "0", "0", "0", "1", "1", "0", "0", "0", "1"},
-            {"1", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "0", "1"},
-            {"1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1", "1"}
-        };
-    }
-    
+        this.mapId = map.getName();
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.chunks = new short[chunksX() * ((height + CHUNK_MASK) >> CHUNK_BITS)][];
+        for (int[] wall : map.getWalls()) {
+            for (int y = wall[1]; y < wall[1] + wall[3]; y++) {
+                for (int x = wall[0]; x < wall[0] + wall[2]; x++) {
+                    setCell(x, y, WALL);
+                }
+            }
+        }
+        tankSlots.clear();
+        slotIndex.clear();
+        dirtyCells.clear();
+        resetPending = true;
+    }
+
     public String getId(){
         return this.id;
     }
@@ -45,28 +109,228 @@ public class Board {
     public void setId(String id){
         this.id = id;
     }
-    
+
+    public String getMapId() {
+        return mapId;
+    }
+
+    public GameMap getMap() {
+        return map;
+    }
+
+    /**
+     * Asocia el mapa de un tablero leído de MongoDB, donde solo se guarda su
+     * nombre. No toca las casillas.
+     */
+    public void setMap(GameMap map) {
+        this.map = map;
+        this.mapId = map.getName();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public short getCell(int x, int y) {
+        short[] chunk = chunks[chunkIndex(x, y)];
+        return chunk != null ? chunk[offset(x, y)] : EMPTY;
+    }
+
+    public boolean isWall(int x, int y) {
+        return getCell(x, y) == WALL;
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return getCell(x, y) == EMPTY;
+    }
+
+    public boolean hasTank(int x, int y) {
+        return getCell(x, y) >= FIRST_TANK;
+    }
+
+    /**
+     * Nombre del tanque en la casilla, o null si no hay ninguno.
+     */
+    public String getTankAt(int x, int y) {
+        short cell = getCell(x, y);
+        return cell >= FIRST_TANK ? tankSlots.get(cell - FIRST_TANK) : null;
+    }
+
+    /**
+     * Slot del tanque que ocupa la casilla, o -1 si no hay ninguno.
+     */
+    public int getSlotAt(int x, int y) {
+        short cell = getCell(x, y);
+        return cell >= FIRST_TANK ? cell : -1;
+    }
+
+    /**
+     * Slot del tanque en el tablero, o -1 si el nombre nunca se colocó.
+     */
+    public int getTankSlot(String username) {
+        if (slotIndex.size() != tankSlots.size()) {
+            rebuildSlotIndex();
+        }
+        Short slot = slotIndex.get(username);
+        return slot != null ? slot : -1;
+    }
+
     public String getValue(int x, int y) {
-        return boxes[y][x];
+        short cell = getCell(x, y);
+        if (cell == EMPTY) {
+            return EMPTY_VALUE;
+        }
+        if (cell == WALL) {
+            return WALL_VALUE;
+        }
+        return tankSlots.get(cell - FIRST_TANK);
     }
 
     public void putTank(String username, int x, int y) {
-        boxes[y][x] = username;
+        setCell(x, y, slotOf(username));
+        dirtyCells.set(y * width + x);
     }
 
     public void clearBox(int x, int y) {
-        boxes[y][x] = "0";
+        setCell(x, y, EMPTY);
+        dirtyCells.set(y * width + x);
+    }
+
+    /**
+     * Bloques de casillas reservados hasta ahora.
+     */
+    public int getAllocatedChunks() {
+        int allocated = 0;
+        for (short[] chunk : chunks) {
+            if (chunk != null) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Entrega el índice plano ({@code y * width + x}) de cada casilla
+     * modificada desde la última llamada y olvida los cambios.
+     */
+    public void drainDirtyCells(IntConsumer consumer) {
+        for (int i = dirtyCells.nextSetBit(0); i >= 0; i = dirtyCells.nextSetBit(i + 1)) {
+            consumer.accept(i);
+        }
+        dirtyCells.clear();
+    }
+
+    /**
+     * Recorre las casillas modificadas sin olvidarlas; el delta las drena
+     * después.
+     */
+    public void forEachDirtyCell(IntConsumer consumer) {
+        for (int i = dirtyCells.nextSetBit(0); i >= 0; i = dirtyCells.nextSetBit(i + 1)) {
+            consumer.accept(i);
+        }
+    }
+
+    public void clearDirtyCells() {
+        dirtyCells.clear();
+    }
+
+    /**
+     * Indica si el tablero se reinició desde la última llamada; en ese caso
+     * los clientes necesitan un snapshot completo en vez de un delta.
+     */
+    public boolean drainReset() {
+        boolean reset = resetPending;
+        resetPending = false;
+        return reset;
+    }
+
+    // Casillas o reinicio que todavía no salieron en un delta
+    public boolean hasPendingChanges() {
+        return resetPending || !dirtyCells.isEmpty();
     }
 
+    public String getValue(int index) {
+        return getValue(index % width, index / width);
+    }
+
+    /**
+     * Vista del tablero con la forma JSON de siempre: "1" pared, "0" vacío y
+     * el nombre del tanque en las casillas ocupadas.
+     */
     public String[][] getBoxes() {
+        String[][] boxes = new String[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boxes[y][x] = getValue(x, y);
+            }
+        }
         return boxes;
     }
 
+    public Board copy() {
+        return new Board(this);
+    }
+
     public void clearBoard() {
         initializeBoard();
     }
 
-    public Object getLock(int x, int y) {
-        return locks[y][x];
+    // Escribir un vacío en un bloque sin reservar no lo reserva
+    private void setCell(int x, int y, short value) {
+        int index = chunkIndex(x, y);
+        short[] chunk = chunks[index];
+        if (chunk == null) {
+            if (value == EMPTY) {
+                return;
+            }
+            chunk = new short[CHUNK_SIZE * CHUNK_SIZE];
+            chunks[index] = chunk;
+        }
+        chunk[offset(x, y)] = value;
+    }
+
+    private int chunksX() {
+        return (width + CHUNK_MASK) >> CHUNK_BITS;
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (y >> CHUNK_BITS) * chunksX() + (x >> CHUNK_BITS);
+    }
+
+    private static int offset(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK);
+    }
+
+    // Los slots se asignan una vez por nombre y se reutilizan en cada movimiento
+    private short slotOf(String username) {
+        if (slotIndex.size() != tankSlots.size()) {
+            rebuildSlotIndex();
+        }
+        Short slot = slotIndex.get(username);
+        if (slot == null) {
+            if (tankSlots.size() >= Short.MAX_VALUE - FIRST_TANK) {
+                throw new IllegalStateException("Too many tanks on board " + id);
+            }
+            slot = (short) (tankSlots.size() + FIRST_TANK);
+            tankSlots.add(username);
+            slotIndex.put(username, slot);
+        }
+        return slot;
+    }
+
+    // Tras leer el tablero de MongoDB el índice transitorio viene vacío
+    private void rebuildSlotIndex() {
+        slotIndex.clear();
+        for (int i = 0; i < tankSlots.size(); i++) {
+            slotIndex.put(tankSlots.get(i), (short) (i + FIRST_TANK));
+        }
     }
 }
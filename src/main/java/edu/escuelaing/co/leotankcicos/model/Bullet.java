@@ -1,18 +1,22 @@
 package edu.escuelaing.co.leotankcicos.model;
 
-import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.Document;
-
-@Document(collection = "bullets")
+/**
+ * Copia de una bala del {@code BulletPool} de su partida, para las respuestas
+ * REST y la recuperación desde el diario. Las balas no se guardan en MongoDB.
+ */
 public class Bullet {
 
-    @Id
     private String id;
     private int x;
     private int y;
     private int direction;
     private boolean alive;
     private String tankId;
+    private String matchId;
+    // Casillas que recorre en cada paso de balas; las guardadas sin velocidad valen 1
+    private int speed = 1;
+    // Ticks de atraso del tirador: sus colisiones se revisan contra el historial de posiciones
+    private int rewindTicks;
 
     public Bullet(String id, int x, int y, int direction, boolean alive, String tankId) {
         this.id = id;
@@ -70,4 +74,28 @@ public class Bullet {
     public void setTankId(String tankId) {
         this.tankId = tankId;
     }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public void setMatchId(String matchId) {
+        this.matchId = matchId;
+    }
+
+    public int getSpeed() {
+        return speed > 0 ? speed : 1;
+    }
+
+    public void setSpeed(int speed) {
+        this.speed = speed;
+    }
+
+    public int getRewindTicks() {
+        return rewindTicks;
+    }
+
+    public void setRewindTicks(int rewindTicks) {
+        this.rewindTicks = rewindTicks;
+    }
 }
@@ -0,0 +1,237 @@
+package edu.escuelaing.co.leotankcicos.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mapa inmutable: tamaño, paredes y puntos de aparición. Se lee de archivos
+ * de texto con una instrucción por línea:
+ *
+ * <pre>
+ * name classic          nombre del mapa
+ * size 15 10            ancho y alto
+ * border                paredes en todo el borde
+ * wall x y w h          rectángulo de paredes
+ * spawn x y [#color]    punto de aparición, en orden
+ * grid                  las siguientes {@code h} filas son casillas 0/1
+ * </pre>
+ *
+ * <p>Las paredes se guardan como rectángulos (las filas de {@code grid} como
+ * tramos horizontales), así un mapa grande ocupa lo que describe su archivo
+ * y no lo que mide.</p>
+ */
+public final class GameMap {
+
+    public static final String CLASSIC = "classic";
+    private static final String[] PALETTE = {"#fa0a0a", "#001ba1", "#f1c40f", "#0c7036"};
+
+    private final String name;
+    private final int width;
+    private final int height;
+    private final List<int[]> walls;
+    private final List<Spawn> spawns;
+    private final WallDistances wallDistances;
+
+    private GameMap(String name, int width, int height, List<int[]> walls, List<Spawn> spawns) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.walls = Collections.unmodifiableList(walls);
+        this.spawns = Collections.unmodifiableList(spawns);
+        this.wallDistances = new WallDistances(width, height, walls);
+    }
+
+    /**
+     * Mapa original de 15x10, incluido en {@code maps/classic.map}.
+     */
+    public static GameMap classic() {
+        return ClassicHolder.INSTANCE;
+    }
+
+    public static GameMap parse(String fallbackName, Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        String name = fallbackName;
+        int width = 0;
+        int height = 0;
+        List<int[]> walls = new ArrayList<>();
+        List<int[]> spawnCells = new ArrayList<>();
+        List<String> spawnColors = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            switch (parts[0]) {
+                case "name" -> name = parts[1];
+                case "size" -> {
+                    width = Integer.parseInt(parts[1]);
+                    height = Integer.parseInt(parts[2]);
+                }
+                case "border" -> {
+                    requireSize(width, height, lineNumber);
+                    walls.add(new int[]{0, 0, width, 1});
+                    walls.add(new int[]{0, height - 1, width, 1});
+                    walls.add(new int[]{0, 1, 1, height - 2});
+                    walls.add(new int[]{width - 1, 1, 1, height - 2});
+                }
+                case "wall" -> walls.add(new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3]), Integer.parseInt(parts[4])});
+                case "spawn" -> {
+                    spawnCells.add(new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])});
+                    spawnColors.add(parts.length > 3 ? parts[3] : null);
+                }
+                case "grid" -> {
+                    requireSize(width, height, lineNumber);
+                    for (int y = 0; y < height; y++) {
+                        String row = reader.readLine();
+                        lineNumber++;
+                        if (row == null || row.strip().length() != width) {
+                            throw new IllegalArgumentException("Map " + name + ": grid row " + y + " must have " + width + " cells");
+                        }
+                        addRuns(walls, row.strip(), y);
+                    }
+                }
+                default -> throw new IllegalArgumentException("Map " + name + ": unknown instruction at line " + lineNumber + ": " + parts[0]);
+            }
+        }
+        requireSize(width, height, lineNumber);
+        return new GameMap(name, width, height, walls, buildSpawns(name, width, height, walls, spawnCells, spawnColors));
+    }
+
+    public static GameMap parse(String fallbackName, InputStream source) throws IOException {
+        return parse(fallbackName, new InputStreamReader(source, StandardCharsets.UTF_8));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Rectángulos de paredes como {@code {x, y, ancho, alto}}.
+     */
+    public List<int[]> getWalls() {
+        return walls;
+    }
+
+    public List<Spawn> getSpawns() {
+        return spawns;
+    }
+
+    /**
+     * Distancias hasta la pared, calculadas al leer el mapa; las balas las
+     * usan para saber desde el disparo cuándo chocan.
+     */
+    public WallDistances getWallDistances() {
+        return wallDistances;
+    }
+
+    private static void requireSize(int width, int height, int lineNumber) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Map needs a positive size before line " + lineNumber);
+        }
+    }
+
+    // Cada tramo de '1' seguidos de la fila se vuelve un rectángulo de alto 1
+    private static void addRuns(List<int[]> walls, String row, int y) {
+        int x = 0;
+        while (x < row.length()) {
+            if (row.charAt(x) != '1') {
+                x++;
+                continue;
+            }
+            int start = x;
+            while (x < row.length() && row.charAt(x) == '1') {
+                x++;
+            }
+            walls.add(new int[]{start, y, x - start, 1});
+        }
+    }
+
+    private static List<Spawn> buildSpawns(String name, int width, int height, List<int[]> walls,
+                                           List<int[]> cells, List<String> colors) {
+        List<Spawn> spawns = new ArrayList<>(cells.size());
+        for (int i = 0; i < cells.size(); i++) {
+            int x = cells.get(i)[0];
+            int y = cells.get(i)[1];
+            if (x < 0 || x >= width || y < 0 || y >= height || isWall(walls, x, y)) {
+                throw new IllegalArgumentException("Map " + name + ": spawn " + x + "," + y + " is not a free cell");
+            }
+            String color = colors.get(i) != null ? colors.get(i) : PALETTE[i % PALETTE.length];
+            spawns.add(new Spawn(x, y, color));
+        }
+        return spawns;
+    }
+
+    private static boolean isWall(List<int[]> walls, int x, int y) {
+        for (int[] wall : walls) {
+            if (x >= wall[0] && x < wall[0] + wall[2] && y >= wall[1] && y < wall[1] + wall[3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Punto de aparición y el color del tanque que aparece en él.
+     */
+    public static final class Spawn {
+
+        private final int x;
+        private final int y;
+        private final String color;
+
+        public Spawn(int x, int y, String color) {
+            this.x = x;
+            this.y = y;
+            this.color = color;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public String getColor() {
+            return color;
+        }
+    }
+
+    private static final class ClassicHolder {
+
+        private static final GameMap INSTANCE = load();
+
+        private static GameMap load() {
+            try (InputStream in = GameMap.class.getClassLoader().getResourceAsStream("maps/" + CLASSIC + ".map")) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing maps/" + CLASSIC + ".map");
+                }
+                return parse(CLASSIC, in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.escuelaing.co.leotankcicos.model;
+
+public class MoveCommand {
+
+    private int posX;
+    private int posY;
+    private int newPosX;
+    private int newPosY;
+    private int rotation;
+    // Número de entrada del cliente; el servidor confirma el último que aplicó (0 = sin confirmación)
+    private int seq;
+
+    public MoveCommand() {}
+
+    public MoveCommand(int posX, int posY, int newPosX, int newPosY, int rotation) {
+        this.posX = posX;
+        this.posY = posY;
+        this.newPosX = newPosX;
+        this.newPosY = newPosY;
+        this.rotation = rotation;
+    }
+
+    public MoveCommand(int posX, int posY, int newPosX, int newPosY, int rotation, int seq) {
+        this(posX, posY, newPosX, newPosY, rotation);
+        this.seq = seq;
+    }
+
+    public int getPosX() {
+        return posX;
+    }
+
+    public void setPosX(int posX) {
+        this.posX = posX;
+    }
+
+    public int getPosY() {
+        return posY;
+    }
+
+    public void setPosY(int posY) {
+        this.posY = posY;
+    }
+
+    public int getNewPosX() {
+        return newPosX;
+    }
+
+    public void setNewPosX(int newPosX) {
+        this.newPosX = newPosX;
+    }
+
+    public int getNewPosY() {
+        return newPosY;
+    }
+
+    public void setNewPosY(int newPosY) {
+        this.newPosY = newPosY;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public void setRotation(int rotation) {
+        this.rotation = rotation;
+    }
+
+    public int getSeq() {
+        return seq;
+    }
+
+    public void setSeq(int seq) {
+        this.seq = seq;
+    }
+}
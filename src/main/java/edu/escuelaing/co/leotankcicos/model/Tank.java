@@ -13,6 +13,7 @@ public class Tank {
     private int posx;
     private int posy;
     private int rotation;
+    private String matchId;
 
     public Tank() {}
 
@@ -25,6 +26,13 @@ public class Tank {
         alive = true;
     }
 
+    public Tank copy() {
+        Tank copy = new Tank(posx, posy, color, rotation, name);
+        copy.setAlive(alive);
+        copy.setMatchId(matchId);
+        return copy;
+    }
+
     public String getColor() {
         return color;
     }
@@ -69,4 +77,12 @@ public class Tank {
     public void setRotation(int i) {
         this.rotation = i;
     }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public void setMatchId(String matchId) {
+        this.matchId = matchId;
+    }
 }
\ No newline at end of file
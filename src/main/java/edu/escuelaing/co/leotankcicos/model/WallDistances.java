@@ -0,0 +1,139 @@
+package edu.escuelaing.co.leotankcicos.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distancia hasta la próxima pared o el borde desde cualquier casilla en las
+ * cuatro direcciones. Se calcula una vez por mapa a partir de sus
+ * rectángulos: cada fila y cada columna guardan sus tramos de pared ordenados
+ * y unidos, y una consulta es una búsqueda binaria en ellos. Ocupa lo que
+ * ocupan las paredes y no lo que mide el mapa, como el resto de
+ * {@link GameMap}.
+ */
+public final class WallDistances {
+
+    private final int width;
+    private final int height;
+    // Tramos [inicio, fin) de pared por fila (en x) y por columna (en y)
+    private final int[][] rowStarts;
+    private final int[][] rowEnds;
+    private final int[][] columnStarts;
+    private final int[][] columnEnds;
+
+    WallDistances(int width, int height, List<int[]> walls) {
+        this.width = width;
+        this.height = height;
+        List<List<int[]>> rows = spans(height);
+        List<List<int[]>> columns = spans(width);
+        for (int[] wall : walls) {
+            int x0 = Math.max(0, wall[0]);
+            int y0 = Math.max(0, wall[1]);
+            int x1 = Math.min(width, wall[0] + wall[2]);
+            int y1 = Math.min(height, wall[1] + wall[3]);
+            for (int y = y0; y < y1; y++) {
+                rows.get(y).add(new int[]{x0, x1});
+            }
+            for (int x = x0; x < x1; x++) {
+                columns.get(x).add(new int[]{y0, y1});
+            }
+        }
+        this.rowStarts = new int[height][];
+        this.rowEnds = new int[height][];
+        for (int y = 0; y < height; y++) {
+            merge(rows.get(y), rowStarts, rowEnds, y);
+        }
+        this.columnStarts = new int[width][];
+        this.columnEnds = new int[width][];
+        for (int x = 0; x < width; x++) {
+            merge(columns.get(x), columnStarts, columnEnds, x);
+        }
+    }
+
+    /**
+     * Casillas libres que se pueden avanzar desde {@code (x, y)} en la
+     * dirección {@code (dx, dy)} antes de chocar. Sin dirección no se choca
+     * nunca y se devuelve {@link Integer#MAX_VALUE}.
+     */
+    public int distance(int x, int y, int dx, int dy) {
+        if (dx > 0) {
+            int wall = nextStart(rowStarts[y], x);
+            return (wall >= 0 ? wall : width) - x - 1;
+        }
+        if (dx < 0) {
+            int wall = previousEnd(rowEnds[y], x);
+            return x - (wall >= 0 ? wall : 0);
+        }
+        if (dy > 0) {
+            int wall = nextStart(columnStarts[x], y);
+            return (wall >= 0 ? wall : height) - y - 1;
+        }
+        if (dy < 0) {
+            int wall = previousEnd(columnEnds[x], y);
+            return y - (wall >= 0 ? wall : 0);
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Indica si lo que detiene el avance en esa dirección es una pared y no
+     * el borde del tablero.
+     */
+    public boolean endsAtWall(int x, int y, int dx, int dy) {
+        if (dx > 0) {
+            return nextStart(rowStarts[y], x) >= 0;
+        }
+        if (dx < 0) {
+            return previousEnd(rowEnds[y], x) >= 0;
+        }
+        if (dy > 0) {
+            return nextStart(columnStarts[x], y) >= 0;
+        }
+        return dy < 0 && previousEnd(columnEnds[x], y) >= 0;
+    }
+
+    // Primer inicio de tramo mayor que la posición, o -1
+    private static int nextStart(int[] starts, int position) {
+        int index = Arrays.binarySearch(starts, position + 1);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < starts.length ? starts[index] : -1;
+    }
+
+    // Último fin de tramo menor o igual que la posición, o -1
+    private static int previousEnd(int[] ends, int position) {
+        int index = Arrays.binarySearch(ends, position);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index >= 0 ? ends[index] : -1;
+    }
+
+    private static List<List<int[]>> spans(int lines) {
+        List<List<int[]>> spans = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            spans.add(new ArrayList<>(0));
+        }
+        return spans;
+    }
+
+    private static void merge(List<int[]> spans, int[][] starts, int[][] ends, int line) {
+        spans.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] mergedStarts = new int[spans.size()];
+        int[] mergedEnds = new int[spans.size()];
+        int count = 0;
+        for (int[] span : spans) {
+            if (count > 0 && span[0] <= mergedEnds[count - 1]) {
+                mergedEnds[count - 1] = Math.max(mergedEnds[count - 1], span[1]);
+            } else {
+                mergedStarts[count] = span[0];
+                mergedEnds[count] = span[1];
+                count++;
+            }
+        }
+        starts[line] = Arrays.copyOf(mergedStarts, count);
+        ends[line] = Arrays.copyOf(mergedEnds, count);
+    }
+}
@@ -0,0 +1,238 @@
+package edu.escuelaing.co.leotankcicos.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
+import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Persistencia diferida del estado de las partidas. Los cambios se marcan
+ * como sucios y se fusionan por clave (el último estado de cada tanque o
+ * tablero gana), y se escriben en lote cada {@code flush-millis} o cuando
+ * hay más de {@code dirty-threshold} entradas pendientes.
+ */
+@Component
+public class WriteBehindStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindStore.class);
+
+    private final TankRepository tankRepository;
+    private final BoardRepository boardRepository;
+    private final int dirtyThreshold;
+    private final ScheduledExecutorService flusher;
+
+    private final ConcurrentMap<String, Tank> dirtyTanks = new ConcurrentHashMap<>();
+    private final Set<String> removedTanks = ConcurrentHashMap.newKeySet();
+    private final Set<String> clearedMatches = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Supplier<Board>> dirtyBoards = new ConcurrentHashMap<>();
+    private final Set<String> removedBoards = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong oldestDirtyNanos = new AtomicLong();
+
+    private volatile long lastFlushLagMillis;
+    private volatile int lastBatchSize;
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+
+    @Autowired
+    public WriteBehindStore(TankRepository tankRepository, BoardRepository boardRepository,
+                            @Value("${leotankcicos.persistence.flush-millis:1000}") long flushMillis,
+                            @Value("${leotankcicos.persistence.dirty-threshold:256}") int dirtyThreshold) {
+        this.tankRepository = tankRepository;
+        this.boardRepository = boardRepository;
+        this.dirtyThreshold = dirtyThreshold;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marca el tanque como sucio. Se debe pasar una copia tomada en el hilo
+     * dueño de la partida para que el flusher no lea un estado a medias.
+     */
+    public void tankChanged(Tank snapshot) {
+        removedTanks.remove(snapshot.getName());
+        dirtyTanks.put(snapshot.getName(), snapshot);
+        touched();
+    }
+
+    public void tankRemoved(String name) {
+        dirtyTanks.remove(name);
+        removedTanks.add(name);
+        touched();
+    }
+
+    public void tanksCleared(String matchId) {
+        dirtyTanks.values().removeIf(tank -> matchId.equals(tank.getMatchId()));
+        clearedMatches.add(matchId);
+        touched();
+    }
+
+    /**
+     * Marca el tablero como sucio. La copia se toma con {@code snapshot}
+     * justo antes de escribir, así que varios cambios cuestan una sola copia.
+     */
+    public void boardChanged(String matchId, Supplier<Board> snapshot) {
+        removedBoards.remove(matchId);
+        dirtyBoards.put(matchId, snapshot);
+        touched();
+    }
+
+    public void boardRemoved(String matchId) {
+        dirtyBoards.remove(matchId);
+        removedBoards.add(matchId);
+        touched();
+    }
+
+    public int getPendingCount() {
+        return dirtyTanks.size() + removedTanks.size() + clearedMatches.size() + dirtyBoards.size()
+                + removedBoards.size();
+    }
+
+    public long getLastFlushLagMillis() {
+        return lastFlushLagMillis;
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    private void touched() {
+        oldestDirtyNanos.compareAndSet(0, System.nanoTime());
+        if (getPendingCount() >= dirtyThreshold && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Write-behind flush failed", e);
+        }
+    }
+
+    public synchronized void flush() {
+        flushRequested.set(false);
+        long since = oldestDirtyNanos.getAndSet(0);
+        if (since == 0) {
+            return;
+        }
+
+        List<String> cleared = drain(clearedMatches);
+        List<String> removed = drain(removedTanks);
+        List<String> removedBoardIds = drain(removedBoards);
+        List<Tank> tanks = new ArrayList<>();
+        for (String name : dirtyTanks.keySet()) {
+            Tank tank = dirtyTanks.remove(name);
+            if (tank != null) {
+                tanks.add(tank);
+            }
+        }
+        List<Board> boards = new ArrayList<>();
+        for (String matchId : dirtyBoards.keySet()) {
+            Supplier<Board> snapshot = dirtyBoards.remove(matchId);
+            if (snapshot != null) {
+                boards.add(snapshot.get());
+            }
+        }
+
+        try {
+            cleared.forEach(tankRepository::deleteByMatchId);
+            if (!removed.isEmpty()) {
+                tankRepository.deleteAllById(removed);
+            }
+            if (!tanks.isEmpty()) {
+                tankRepository.saveAll(tanks);
+            }
+            if (!boards.isEmpty()) {
+                boardRepository.saveAll(boards);
+            }
+            if (!removedBoardIds.isEmpty()) {
+                boardRepository.deleteAllById(removedBoardIds);
+            }
+        } catch (RuntimeException e) {
+            failedFlushCount.incrementAndGet();
+            requeue(cleared, removed, tanks, boards, removedBoardIds);
+            throw e;
+        }
+
+        lastBatchSize = cleared.size() + removed.size() + tanks.size() + boards.size() + removedBoardIds.size();
+        lastFlushLagMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+        flushCount.incrementAndGet();
+        logger.debug("Flushed {} entries, lag {} ms", lastBatchSize, lastFlushLagMillis);
+    }
+
+    // Lo que llegó después del drenaje es más reciente y no se sobrescribe
+    private void requeue(List<String> cleared, List<String> removed, List<Tank> tanks, List<Board> boards,
+                         List<String> removedBoardIds) {
+        clearedMatches.addAll(cleared);
+        for (String name : removed) {
+            if (!dirtyTanks.containsKey(name)) {
+                removedTanks.add(name);
+            }
+        }
+        for (Tank tank : tanks) {
+            if (!removedTanks.contains(tank.getName())) {
+                dirtyTanks.putIfAbsent(tank.getName(), tank);
+            }
+        }
+        for (Board board : boards) {
+            if (!removedBoards.contains(board.getId())) {
+                dirtyBoards.putIfAbsent(board.getId(), () -> board);
+            }
+        }
+        for (String matchId : removedBoardIds) {
+            if (!dirtyBoards.containsKey(matchId)) {
+                removedBoards.add(matchId);
+            }
+        }
+        oldestDirtyNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    private static List<String> drain(Set<String> set) {
+        List<String> drained = new ArrayList<>();
+        for (String key : set) {
+            if (set.remove(key)) {
+                drained.add(key);
+            }
+        }
+        return drained;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+}
@@ -1,5 +1,7 @@
 package edu.escuelaing.co.leotankcicos.repository;
 
+import java.util.List;
+
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -7,4 +9,10 @@ import edu.escuelaing.co.leotankcicos.model.Tank;
 
 @Repository
 public interface TankRepository extends MongoRepository<Tank, String> {
+
+    List<Tank> findByMatchId(String matchId);
+
+    long countByMatchId(String matchId);
+
+    void deleteByMatchId(String matchId);
 }
\ No newline at end of file
@@ -1,321 +1,754 @@
 package edu.escuelaing.co.leotankcicos.service;
 
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.CompletableFuture;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
-import org.apache.commons.codec.binary.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import edu.escuelaing.co.exception.InvalidHashException;
 import edu.escuelaing.co.exception.RoomFullException;
 import edu.escuelaing.co.exception.TankExistsException;
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.broadcast.StateSnapshot;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.cluster.NotMatchOwnerException;
+import edu.escuelaing.co.leotankcicos.engine.AreaOfInterest;
+import edu.escuelaing.co.leotankcicos.engine.BulletPool;
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchCommand;
+import edu.escuelaing.co.leotankcicos.engine.MatchNotFoundException;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.engine.PositionHistory;
+import edu.escuelaing.co.leotankcicos.engine.SerializedState;
+import edu.escuelaing.co.leotankcicos.journal.JournalRecord;
+import edu.escuelaing.co.leotankcicos.journal.MatchJournal;
+import edu.escuelaing.co.leotankcicos.journal.RecoveredMatch;
 import edu.escuelaing.co.leotankcicos.model.Board;
 import edu.escuelaing.co.leotankcicos.model.Bullet;
 import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.model.WallDistances;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
 import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
-import edu.escuelaing.co.leotankcicos.repository.BulletRepository;
 import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+import jakarta.annotation.PreDestroy;
 @Service
 public class TankService {
 
-    SimpMessagingTemplate msgt;
-    private Queue<int[]> defaultPositions = new LinkedList<>();
-    private Queue<String> defaultColors = new LinkedList<>();
-    private final Object bulletLock = new Object();
-    private static final int MAX_PLAYERS = 3;
+    private StateBroadcaster broadcaster;
 
     private TankRepository tankRepository;
-    private BulletRepository bulletRepository;
     private BoardRepository boardRepository;
-    private Board board;
-
-
-    private static final String SECRET_KEY = System.getenv("TANK_SECRET_KEY");
+    private MatchRegistry matchRegistry;
+    private WriteBehindStore writeBehindStore;
+    private SessionTokens sessionTokens;
+    private MapCatalog mapCatalog;
+    private ClusterNode clusterNode;
+    private MatchJournal matchJournal;
+    private final ObjectMapper stateMapper = new ObjectMapper();
 
     @Autowired
-    public TankService(BoardRepository boardRepository, SimpMessagingTemplate msgt, TankRepository tankRepository, BulletRepository bulletRepository) {
+    public TankService(BoardRepository boardRepository, StateBroadcaster broadcaster, TankRepository tankRepository, MatchRegistry matchRegistry, WriteBehindStore writeBehindStore, SessionTokens sessionTokens, MapCatalog mapCatalog, ClusterNode clusterNode, MatchJournal matchJournal) {
         this.boardRepository = boardRepository;
-        this.board = boardRepository.findAll().stream()
-            .findFirst()
-            .orElse(new Board());
-        this.msgt = msgt;
+        this.broadcaster = broadcaster;
         this.tankRepository = tankRepository;
-        this.bulletRepository = bulletRepository;
-        initialConfig();
+        this.matchRegistry = matchRegistry;
+        this.writeBehindStore = writeBehindStore;
+        this.sessionTokens = sessionTokens;
+        this.mapCatalog = mapCatalog;
+        this.clusterNode = clusterNode;
+        this.matchJournal = matchJournal;
+        matchRegistry.setTickHandler(this::tick);
+        clusterNode.setInputHandler(this::acceptForwardedInput);
     }
 
-    private void initialConfig() {
-        defaultPositions.add(new int[]{1, 8});
-        defaultPositions.add(new int[]{13, 8});
-        defaultPositions.add(new int[]{13, 1});
-        defaultPositions.add(new int[]{1, 1});
+    @PreDestroy
+    public void flushState() {
+        writeBehindStore.flush();
+    }
 
-        defaultColors.add("#fa0a0a");
-        defaultColors.add("#001ba1");
-        defaultColors.add("#f1c40f");
-        defaultColors.add("#0c7036");
+    // Carga en memoria las partidas persistidas para que sus jugadores sigan resolviendo
+    // El diario va primero: es más reciente que lo que alcanzó a escribir el write-behind
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreMatches() {
+        try {
+            for (RecoveredMatch recovered : matchJournal.recover()) {
+                if (clusterNode.isLocal(recovered.getMatchId())) {
+                    restoreFromJournal(recovered);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Board board : boardRepository.findAll()) {
+            if (board.getId() != null && clusterNode.isLocal(board.getId())) {
+                matchRegistry.getOrCreate(board.getId(), id -> withMap(board), this::restoreTanks);
+            }
+        }
     }
 
-    private void saveOrUpdateBoard(){
-        boardRepository.save(board);
+    /**
+     * Partida local, creándola si no existe. Solo el login la usa; las
+     * lecturas van por {@link #findMatch}. Lanza {@link NotMatchOwnerException}
+     * si la partida pertenece a otro nodo del clúster.
+     */
+    public Match getMatch(String matchId) {
+        clusterNode.requireLocal(matchId);
+        return matchRegistry.getOrCreate(matchId, this::loadBoard, this::restoreTanks);
     }
 
-    public Tank saveTank(String username, String receivedHash) throws InvalidHashException, RoomFullException, TankExistsException, NoSuchAlgorithmException, InvalidKeyException {
-        // Generar el hash esperado
-        String expectedHash = calculateHash(username);
+    /**
+     * Partida local ya cargada. Lanza {@link MatchNotFoundException} si no
+     * existe, sin crearla, y {@link NotMatchOwnerException} si es de otro nodo.
+     */
+    public Match findMatch(String matchId) {
+        clusterNode.requireLocal(matchId);
+        Match match = matchRegistry.find(matchId);
+        if (match == null) {
+            throw new MatchNotFoundException(matchId);
+        }
+        return match;
+    }
 
+    // MongoDB guarda solo el nombre del mapa; sin tablero guardado se usa el mapa por defecto
+    private Board loadBoard(String matchId) {
+        Board board = boardRepository.findById(matchId).orElse(null);
+        if (board == null) {
+            return new Board(matchId, mapCatalog.getDefault());
+        }
+        return withMap(board);
+    }
+
+    private Board withMap(Board board) {
+        board.setMap(mapCatalog.get(board.getMapId()));
+        return board;
+    }
+
+    // Recupera los tanques persistidos cuando la partida se carga en memoria; el registro los asocia al publicarla
+    private void restoreTanks(Match match) {
+        for (Tank tank : tankRepository.findByMatchId(match.getId())) {
+            match.addTank(tank);
+            match.placeTank(tank, tank.getPosx(), tank.getPosy());
+        }
+    }
+
+    private void restoreFromJournal(RecoveredMatch recovered) {
+        matchRegistry.getOrCreate(recovered.getMatchId(),
+                id -> new Board(id, recovered.getMapId() != null ? mapCatalog.get(recovered.getMapId()) : mapCatalog.getDefault()),
+                match -> {
+                    match.skipSpawns(recovered.getSpawnsUsed());
+                    for (Tank tank : recovered.getTanks()) {
+                        match.addTank(tank);
+                        match.placeTank(tank, tank.getPosx(), tank.getPosy());
+                    }
+                    for (Bullet bullet : recovered.getBullets()) {
+                        match.getBullets().spawn(bullet.getId(), bullet.getTankId(), bullet.getX(), bullet.getY(),
+                                bullet.getDirection(), bullet.getSpeed(), 0);
+                    }
+                });
+    }
+
+    private void saveOrUpdateBoard(Match match){
+        writeBehindStore.boardChanged(match.getId(), () -> match.supply(() -> match.getBoard().copy()));
+    }
+
+    private void saveOrUpdateTank(Tank tank) {
+        writeBehindStore.tankChanged(tank.copy());
+    }
+
+    public Tank saveTank(String matchId, String username, String receivedHash) throws InvalidHashException, RoomFullException, TankExistsException {
         // Verificar el hash
-        if (!expectedHash.equals(receivedHash)) {
+        if (!sessionTokens.verifyLoginHash(username, receivedHash)) {
             throw new InvalidHashException("El hash del mensaje no coincide. El mensaje puede haber sido alterado.");
         }
 
-        // Resto de la lógica para guardar el tanque
-        if (tankRepository.count() >= MAX_PLAYERS) {
+        try {
+            // Si la partida se descargó mientras se esperaba turno se entra a una nueva
+            while (true) {
+                Match match = getMatch(matchId);
+                Tank tank = match.call(() -> match.isEvicted() ? null : joinMatch(match, username));
+                if (tank != null) {
+                    return tank;
+                }
+            }
+        } catch (RoomFullException | TankExistsException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Tank joinMatch(Match match, String username) throws RoomFullException, TankExistsException {
+        if (match.getTankCount() >= match.getMaxPlayers()) {
             throw new RoomFullException("The room is full");
         }
-        if (tankRepository.findById(username).isPresent() || username.equals("1") || username.equals("0")) {
+        if (username.equals("1") || username.equals("0") || !matchRegistry.bindPlayer(username, match)) {
             throw new TankExistsException("Tank with this name already exists or is invalid");
         }
-        int[] position = defaultPositions.poll();
-        Tank newTank = new Tank(position[0], position[1], defaultColors.poll(), 0, username);
-        board.putTank(username, position[0], position[1]);
-        saveOrUpdateBoard();
-        tankRepository.save(newTank);
+        int[] position = match.nextSpawnPosition();
+        if (position == null) {
+            matchRegistry.unbindPlayer(username);
+            throw new RoomFullException("The room is full");
+        }
+        Tank newTank = new Tank(position[0], position[1], match.nextSpawnColor(), 0, username);
+        newTank.setMatchId(match.getId());
+        match.addTank(newTank);
+        match.placeTank(newTank, position[0], position[1]);
+        match.getChanges().tankChanged(username);
+        matchJournal.record(match, JournalRecord.join(match.getId(), match.getBoard().getMapId(), newTank));
+        saveOrUpdateBoard(match);
+        saveOrUpdateTank(newTank);
         return newTank;
     }
 
-    private String calculateHash(String message) throws NoSuchAlgorithmException, InvalidKeyException {
-        Mac sha256Hmac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKey = new SecretKeySpec(SECRET_KEY.getBytes(), "HmacSHA256");
-        sha256Hmac.init(secretKey);
-        byte[] hashBytes = sha256Hmac.doFinal(message.getBytes());
-        return Hex.encodeHexString(hashBytes);
+    /**
+     * Token de sesión del jugador recién registrado, ligado a su partida y al
+     * slot de su tanque. Devuelve null si el jugador no está en la partida.
+     */
+    public String issueSessionToken(String matchId, String username) {
+        clusterNode.requireLocal(matchId);
+        Match match = matchRegistry.find(matchId);
+        if (match == null) {
+            return null;
+        }
+        int slot = match.supply(() -> match.getTank(username) != null ? match.getBoard().getTankSlot(username) : -1);
+        return slot >= 0 ? sessionTokens.issue(matchId, username, slot) : null;
     }
 
-    public List<Tank> getAllTanks() {
-        return tankRepository.findAll();
+    public List<Tank> getAllTanks(String matchId) {
+        Match match = findMatch(matchId);
+        return match.supply(() -> new ArrayList<>(match.getTanks()));
     }
 
     public Tank getTankById(String username) {
-        return tankRepository.findById(username).orElse(null);
-    }
-
-    public Tank updateTankPosition(String username, int x, int y, int newX, int newY, int rotation) {
-        Tank tank = tankRepository.findById(username).orElse(null);
-        if (tank == null) {
+        Match match = matchRegistry.findByPlayer(username);
+        if (match == null) {
             return null;
         }
-        String[][] boxes = board.getBoxes();
+        return match.supply(() -> match.getTank(username));
+    }
+
+    public boolean updateTankPosition(String username, int x, int y, int newX, int newY, int rotation) {
+        return updateTankPosition(null, username, x, y, newX, newY, rotation);
+    }
+
+    /**
+     * Encola el movimiento para el siguiente tick de la partida. Devuelve
+     * false si el jugador no está en ninguna partida, si no es el dueño del
+     * token de sesión o si la cola está llena. Las paredes, las casillas
+     * ocupadas y los saltos de más de una casilla se descartan en el tick.
+     */
+    public boolean updateTankPosition(SessionTokens.Claims session, String username, int x, int y, int newX, int newY, int rotation) {
+        return updateTankPosition(session, username, x, y, newX, newY, rotation, 0);
+    }
 
-        if (newX < 0 || newX >= boxes[0].length || newY < 0 || newY >= boxes.length) {
+    /**
+     * Igual que el anterior, con el número de entrada del cliente. Al final
+     * del tick el jugador recibe en {@code /user/queue/matches/{id}/ack} el
+     * último número aplicado junto con la posición autoritativa.
+     */
+    public boolean updateTankPosition(SessionTokens.Claims session, String username, int x, int y, int newX, int newY, int rotation, int seq) {
+        int direction = BulletPool.normalizeDirection(rotation);
+        if (direction == BulletPool.NO_DIRECTION) {
+            throw new IllegalArgumentException("Invalid rotation");
+        }
+        MatchCommand command = MatchCommand.move(username, slotOf(session), x, y, newX, newY, direction, seq);
+        if (forwardToOwner(session, username, command)) {
+            return true;
+        }
+        Match match = resolveMatch(session, username);
+        if (match == null) {
+            return false;
+        }
+        // Las dimensiones del tablero no cambian, se pueden leer desde cualquier hilo
+        if (!match.getBoard().isInside(x, y) || !match.getBoard().isInside(newX, newY)) {
             throw new IllegalArgumentException("Invalid coordinates");
         }
+        return match.enqueue(command);
+    }
 
-        int firstX;
-        int firstY; 
-        int secondX; 
-        int secondY;
-        if (y * boxes[0].length + x <= newY * boxes[0].length + newX) {
-            firstX = x;
-            firstY = y;
-            secondX = newX;
-            secondY = newY;
-        } else {
-            firstX = newX;
-            firstY = newY;
-            secondX = x;
-            secondY = y;
-        }
-
-        synchronized (board.getLock(firstX, firstY)) {
-            synchronized (board.getLock(secondX, secondY)) {
-
-                board.clearBox(x, y);
-                board.putTank(tank.getName(), newX, newY);
-                saveOrUpdateBoard();
-                tank.setPosx(newX);
-                tank.setPosy(newY);
-                tank.setRotation(rotation);
-                tankRepository.save(tank);
-            }
+    public boolean shoot(String username, String bulletId) {
+        return shoot(null, username, bulletId);
+    }
+
+    public boolean shoot(SessionTokens.Claims session, String username, String bulletId) {
+        return shoot(session, username, bulletId, -1);
+    }
+
+    /**
+     * Encola el disparo para el siguiente tick de la partida. Con
+     * {@code viewSeq} (el último seq de estado que el tirador aplicó) la bala
+     * se resuelve contra las posiciones que él veía, dentro de la ventana de
+     * {@code leotankcicos.match.max-rewind-millis}.
+     */
+    public boolean shoot(SessionTokens.Claims session, String username, String bulletId, long viewSeq) {
+        MatchCommand command = MatchCommand.shoot(username, slotOf(session), bulletId, viewSeq);
+        if (forwardToOwner(session, username, command)) {
+            return true;
+        }
+        Match match = resolveMatch(session, username);
+        if (match == null) {
+            return false;
         }
-        msgt.convertAndSend("/topic/matches/1/movement", tank);
-        return tank;
+        return match.enqueue(command);
     }
 
-    public Bullet shoot(String username, String bulletId) {
-        Tank tank = tankRepository.findById(username).orElse(null);
-        if (tank == null) {
+    // Las entradas de partidas de otro nodo van a su dueño, que las valida al aplicarlas
+    private boolean forwardToOwner(SessionTokens.Claims session, String username, MatchCommand command) {
+        if (session == null || !session.getUsername().equals(username) || clusterNode.isLocal(session.getMatchId())) {
+            return false;
+        }
+        clusterNode.forwardInput(session.getMatchId(), command);
+        return true;
+    }
+
+    private void acceptForwardedInput(String matchId, MatchCommand command) {
+        Match match = matchRegistry.find(matchId);
+        if (match != null) {
+            match.enqueue(command);
+        }
+    }
+
+    // Con token la partida sale de la sesión y el nombre de la ruta debe coincidir con el del token.
+    // Sin token solo se confía en el nombre de la ruta si require-session-token está apagado (inseguro)
+    private Match resolveMatch(SessionTokens.Claims session, String username) {
+        if (session == null) {
+            return sessionTokens.isRequired() ? null : matchRegistry.findByPlayer(username);
+        }
+        if (!session.getUsername().equals(username)) {
             return null;
         }
+        return matchRegistry.find(session.getMatchId());
+    }
 
-        Bullet bullet;
-        synchronized (bulletLock) {
-            bullet = new Bullet(
-                    bulletId,
-                    tank.getPosx(),
-                    tank.getPosy(),
-                    tank.getRotation(),
-                    true,
-                    username
-            );
-            bulletRepository.save(bullet);
-            
+    private static int slotOf(SessionTokens.Claims session) {
+        return session != null ? session.getSlot() : -1;
+    }
+
+    private void applyInput(Match match, MatchCommand command) {
+        Tank tank = match.getTank(command.getUsername());
+        if (tank == null) {
+            return;
+        }
+        // Un token de una entrada anterior con el mismo nombre no sirve
+        if (command.getSlot() >= 0 && match.getBoard().getTankSlot(tank.getName()) != command.getSlot()) {
+            return;
+        }
+        switch (command.getType()) {
+            case MOVE -> {
+                // Las entradas reenviadas por otros nodos no pasaron por la validación de updateTankPosition
+                int direction = BulletPool.normalizeDirection(command.getRotation());
+                if (direction != BulletPool.NO_DIRECTION && match.canMoveTo(tank, command.getNewX(), command.getNewY())) {
+                    moveTank(match, tank, command.getNewX(), command.getNewY(), direction);
+                }
+                // También se confirma la entrada rechazada: el cliente corrige su predicción con la posición real
+                if (command.getSeq() != 0) {
+                    match.ackInput(tank.getName(), command.getSeq());
+                }
+            }
+            case SHOOT -> spawnBullet(match, tank, command.getBulletId(), command.getViewSeq());
         }
-        startBulletMovement(bullet);
-        return bullet;
     }
 
+    // Libera la casilla donde está el tanque según el servidor, no la que reporta el cliente
+    private void moveTank(Match match, Tank tank, int newX, int newY, int rotation) {
+        match.placeTank(tank, newX, newY);
+        saveOrUpdateBoard(match);
+        tank.setRotation(rotation);
+        matchJournal.record(match, JournalRecord.move(match.getId(), tank));
+        saveOrUpdateTank(tank);
+        match.getChanges().tankChanged(tank.getName());
+        broadcaster.movement(match, tank);
+    }
+
+    private void spawnBullet(Match match, Tank tank, String bulletId, long viewSeq) {
+        BulletPool bullets = match.getBullets();
+        int slot = bullets.spawn(bulletId, tank.getName(), tank.getPosx(), tank.getPosy(), tank.getRotation(),
+                match.getBulletSpeed(), rewindTicks(match, viewSeq));
+        matchJournal.record(match, JournalRecord.shoot(match.getId(), bullets, slot));
+        match.getChanges().bulletChanged(slot);
+    }
+
+    /**
+     * Posición actual de una bala viva, o null si ya chocó o no existe. Las
+     * balas solo viven en memoria, así que se busca en las partidas locales.
+     */
     public Bullet getBulletPosition(String bulletId) {
-        return bulletRepository.findById(bulletId).orElse(null);
-        
+        for (Match match : matchRegistry.getMatches()) {
+            // Lectura sin sincronizar solo para saltar partidas sin balas; la búsqueda sí va al hilo dueño
+            if (match.getBullets().isEmpty()) {
+                continue;
+            }
+            Bullet bullet = match.supply(() -> {
+                int slot = match.getBullets().find(bulletId);
+                return slot >= 0 ? match.getBullets().toBullet(slot, match.getId()) : null;
+            });
+            if (bullet != null) {
+                return bullet;
+            }
+        }
+        return null;
     }
 
-    private void startBulletMovement(Bullet bullet) {
-        new Thread(() -> moveBullet(bullet)).start();
+    public StateSnapshot getStateSnapshot(String matchId) {
+        Match match = findMatch(matchId);
+        return match.supply(() -> broadcaster.snapshot(match));
     }
 
-    private void moveBullet(Bullet bullet) {
-        boolean shouldContinue = true;
-    
-        while (bullet.isAlive() && shouldContinue) {
-            int[] newCoordinates = calculateNewCoordinates(bullet);
-            int newX = newCoordinates[0];
-            int newY = newCoordinates[1];
-    
-            if (isOutOfBounds(newX, newY)) {
-                handleOutOfBounds(bullet);
-                shouldContinue = false;
-            } else {
-                bullet.setX(newX);
-                bullet.setY(newY);
-    
-                if (handleCollisionIfNeeded(bullet, newX, newY)) {
-                    shouldContinue = false;
+    /**
+     * Estado completo serializado con su secuencia. Mientras la secuencia no
+     * cambie se devuelven los mismos bytes sin pasar por el hilo dueño. Con
+     * cambios que aún no tienen secuencia no se cachea ni lleva ETag.
+     */
+    public SerializedState getSerializedState(String matchId) {
+        Match match = findMatch(matchId);
+        SerializedState cached = match.getSerializedState();
+        if (cached != null && cached.getSeq() == match.getStateSeq()) {
+            return cached;
+        }
+        TakenSnapshot taken = match.supply(() -> new TakenSnapshot(broadcaster.snapshot(match), !match.hasUnpublishedChanges()));
+        StateSnapshot snapshot = taken.snapshot();
+        byte[] body;
+        try {
+            body = stateMapper.writeValueAsBytes(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!taken.settled()) {
+            return new SerializedState(snapshot.getSeq(), null, body);
+        }
+        SerializedState state = new SerializedState(snapshot.getSeq(),
+                "\"" + match.getEpoch() + "-" + snapshot.getSeq() + "\"", body);
+        // Otra petición pudo cachear una secuencia más nueva mientras se serializaba
+        cached = match.getSerializedState();
+        if (cached == null || cached.getSeq() < state.getSeq()) {
+            match.setSerializedState(state);
+        }
+        return state;
+    }
+
+    private record TakenSnapshot(StateSnapshot snapshot, boolean settled) {
+    }
+
+    /**
+     * Aplica en orden las entradas encoladas, avanza cada bala viva según su
+     * velocidad cuando toca, resuelve sus colisiones y publica el delta del tick.
+     * Se ejecuta en el hilo dueño de la partida, una vez por tick.
+     */
+    public void tick(Match match) {
+        match.drainInputs(command -> applyInput(match, command));
+        scheduleBullets(match);
+        if (match.isBulletStep(match.nextTick())) {
+            advanceBullets(match);
+        }
+        broadcaster.publishTick(match);
+        match.getBullets().releaseRetired();
+        match.recordHistory();
+        matchJournal.checkpoint(match);
+        if (match.isAbandoned(System.currentTimeMillis())) {
+            evict(match);
+        }
+    }
+
+    // Terminada o vacía demasiado tiempo: se detiene su bucle, sale del registro y se borra de MongoDB
+    private void evict(Match match) {
+        matchJournal.retire(match);
+        writeBehindStore.tanksCleared(match.getId());
+        writeBehindStore.boardRemoved(match.getId());
+        broadcaster.matchEvicted(match);
+        matchRegistry.evict(match);
+    }
+
+    // Las entradas se aplican antes de nextTick, así que el tirador va al menos un tick atrás
+    private static int rewindTicks(Match match, long viewSeq) {
+        PositionHistory history = match.getHistory();
+        if (viewSeq < 0 || history.getRewindTicks() == 0 || history.getNewestTick() < 0) {
+            return 0;
+        }
+        long behind = match.getTick() + 1 - history.tickForSeq(viewSeq);
+        return (int) Math.min(Math.max(behind, 0), history.getRewindTicks());
+    }
+
+    /**
+     * Programa en la rueda de la partida los pasos en que una bala recién
+     * disparada puede chocar: el de la pared, por la tabla de distancias del
+     * mapa, y los de las casillas de tanques que cruza. Entre eventos las
+     * balas avanzan sin revisarse.
+     */
+    private void scheduleBullets(Match match) {
+        BulletPool bullets = match.getBullets();
+        bullets.drainSpawned(slot -> scheduleSpawned(match, bullets, slot));
+        if (bullets.isEmpty()) {
+            return;
+        }
+        Board board = match.getBoard();
+        board.forEachDirtyCell(index -> {
+            int x = index % board.getWidth();
+            int y = index / board.getWidth();
+            Tank tank = match.getTankAt(x, y);
+            if (tank != null) {
+                for (int i = 0; i < bullets.size(); i++) {
+                    scheduleIfOnPath(match, bullets, bullets.slotAt(i), tank, x, y);
                 }
             }
-    
-            if (shouldContinue) {
-                sleep();
-            }
+        });
+    }
+
+    private void scheduleSpawned(Match match, BulletPool bullets, int slot) {
+        int x = bullets.getX(slot);
+        int y = bullets.getY(slot);
+        int free = wallDistances(match).distance(x, y, BulletPool.directionX(bullets.getDirection(slot)),
+                BulletPool.directionY(bullets.getDirection(slot)));
+        if (free != Integer.MAX_VALUE) {
+            // Avanza free casillas y en el paso siguiente choca
+            schedule(match, bullets, slot, bullets.getStep() + free / bullets.getSpeed(slot) + 1);
+        }
+        for (Tank tank : match.getTanks()) {
+            scheduleIfOnPath(match, bullets, slot, tank, tank.getPosx(), tank.getPosy());
+        }
+        if (bullets.getRewindTicks(slot) > 0) {
+            match.getHistory().forEachEntry((tankSlot, tankX, tankY) ->
+                    scheduleIfOnPath(match, bullets, slot, match.getTankBySlot(tankSlot), tankX, tankY));
         }
+        scheduleRegionExit(match, bullets, slot);
     }
-    
-    private int[] calculateNewCoordinates(Bullet bullet) {
-        int newX = bullet.getX();
-        int newY = bullet.getY();
-    
-        switch (bullet.getDirection()) {
-            case -90 -> newY = bullet.getY() - 1;
-            case 0 -> newX = bullet.getX() + 1;
-            case 90 -> newY = bullet.getY() + 1;
-            case 180 -> newX = bullet.getX() - 1;
-            default -> {
-                // Caso default vacío
+
+    /**
+     * Si la casilla está en la trayectoria de la bala antes de la pared,
+     * programa los pasos en que la bala la cruza. La revisión casilla por
+     * casilla decide después si de verdad hay choque.
+     */
+    private void scheduleIfOnPath(Match match, BulletPool bullets, int slot, Tank tank, int x, int y) {
+        if (tank == null || !bullets.isAlive(slot) || tank.getName().equals(bullets.getOwner(slot))) {
+            return;
+        }
+        int bulletX = bullets.getX(slot);
+        int bulletY = bullets.getY(slot);
+        int dx = BulletPool.directionX(bullets.getDirection(slot));
+        int dy = BulletPool.directionY(bullets.getDirection(slot));
+        int cells;
+        if (dx != 0 && y == bulletY && (x - bulletX) * dx >= 0) {
+            cells = Math.abs(x - bulletX);
+        } else if (dy != 0 && x == bulletX && (y - bulletY) * dy >= 0) {
+            cells = Math.abs(y - bulletY);
+        } else if (dx == 0 && dy == 0 && x == bulletX && y == bulletY) {
+            cells = 0;
+        } else {
+            return;
+        }
+        if (cells > wallDistances(match).distance(bulletX, bulletY, dx, dy)) {
+            return;
+        }
+        int speed = bullets.getSpeed(slot);
+        long steps = Math.max(1, (cells + speed - 1) / speed);
+        schedule(match, bullets, slot, bullets.getStep() + steps);
+        // Una casilla en el borde de dos pasos se revisa al final de uno y al inicio del siguiente
+        if (cells > 0 && cells % speed == 0) {
+            schedule(match, bullets, slot, bullets.getStep() + steps + 1);
+        }
+    }
+
+    // Solo el modo por región necesita saber cuándo una bala entra en otra región
+    private void scheduleRegionExit(Match match, BulletPool bullets, int slot) {
+        if (!broadcaster.isAreaOfInterest()) {
+            return;
+        }
+        int x = bullets.getX(slot);
+        int y = bullets.getY(slot);
+        int dx = BulletPool.directionX(bullets.getDirection(slot));
+        int dy = BulletPool.directionY(bullets.getDirection(slot));
+        int cells = match.getInterest().cellsToLeaveRegion(x, y, dx, dy);
+        if (cells == Integer.MAX_VALUE || cells > wallDistances(match).distance(x, y, dx, dy)) {
+            return;
+        }
+        int speed = bullets.getSpeed(slot);
+        schedule(match, bullets, slot, bullets.getStep() + (cells + speed - 1) / speed);
+    }
+
+    private static void schedule(Match match, BulletPool bullets, int slot, long step) {
+        match.getBulletTimers().schedule(step, slot, bullets.getSerial(slot));
+    }
+
+    private static WallDistances wallDistances(Match match) {
+        return match.getBoard().getMap().getWallDistances();
+    }
+
+    /**
+     * Avanza un paso de bala: todas las balas se mueven sin tocarlas y solo
+     * se revisan casilla por casilla las que tienen un evento en este paso,
+     * en orden de disparo.
+     */
+    private void advanceBullets(Match match) {
+        BulletPool bullets = match.getBullets();
+        long step = bullets.nextStep();
+        if (bullets.isEmpty()) {
+            match.getBulletTimers().clear();
+            return;
+        }
+        matchJournal.record(match, JournalRecord.bulletStep(match.getId()));
+        match.getBulletTimers().advance(step, (slot, serial) -> {
+            if (bullets.isAlive(slot) && bullets.getSerial(slot) == serial) {
+                bullets.markDue(slot, step);
             }
+        });
+        AreaOfInterest interest = match.getInterest();
+        bullets.drainDue(slot -> {
+            int region = interest.regionOf(bullets.xAt(slot, step - 1), bullets.yAt(slot, step - 1));
+            if (advanceBullet(match, bullets, slot)) {
+                if (interest.regionOf(bullets.getX(slot), bullets.getY(slot)) != region) {
+                    match.getChanges().bulletCrossed(slot);
+                    scheduleRegionExit(match, bullets, slot);
+                }
+            } else {
+                bullets.kill(slot);
+                match.getChanges().bulletRemoved(slot);
+            }
+        });
+        bullets.compact();
+    }
+
+    /**
+     * Recorre el paso casilla por casilla, incluida la de partida, para que
+     * una bala rápida no atraviese tanques ni paredes. La pared sale de la
+     * tabla del mapa.
+     */
+    private boolean advanceBullet(Match match, BulletPool bullets, int slot) {
+        long step = bullets.getStep();
+        int x = bullets.xAt(slot, step - 1);
+        int y = bullets.yAt(slot, step - 1);
+        int dx = BulletPool.directionX(bullets.getDirection(slot));
+        int dy = BulletPool.directionY(bullets.getDirection(slot));
+        WallDistances walls = wallDistances(match);
+        int free = walls.distance(x, y, dx, dy);
+        bullets.moveTo(slot, x, y);
+        if (handleCollisionIfNeeded(match, bullets, slot, x, y)) {
+            return false;
         }
-        return new int[]{newX, newY};
-    }
-    
-    private void handleOutOfBounds(Bullet bullet) {
-        bullet.setAlive(false);
-        bulletRepository.deleteById(bullet.getId());
-    }
-    
-    private boolean handleCollisionIfNeeded(Bullet bullet, int newX, int newY) {
-        String[][] boxes = board.getBoxes();
-        String boxContent = boxes[newY][newX];
-    
-        if (!boxContent.equals("0") && !boxContent.equals("1")) {
-            Optional<Tank> collidedTank = tankRepository.findById(boxContent);
-    
-            if (collidedTank.isPresent() && !collidedTank.get().getName().equals(bullet.getTankId())) {
-                handleCollision(bullet, collidedTank.get());
-                bullet.setAlive(false);
-                bulletRepository.deleteById(bullet.getId());
-                return true;
+        for (int cell = 0; cell < bullets.getSpeed(slot); cell++) {
+            if (cell == free) {
+                handleOutOfBounds(match, bullets, slot,
+                        walls.endsAtWall(x, y, dx, dy) ? BulletPool.END_WALL : BulletPool.END_BOUNDS);
+                return false;
+            }
+            x += dx;
+            y += dy;
+            bullets.moveTo(slot, x, y);
+            if (handleCollisionIfNeeded(match, bullets, slot, x, y)) {
+                return false;
             }
         }
-        return false;
+        return true;
     }
-    
-    private void sleep() {
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+
+    private void handleOutOfBounds(Match match, BulletPool bullets, int slot, int end) {
+        matchJournal.record(match, JournalRecord.bulletGone(match.getId(), bullets.getId(slot)));
+        bullets.kill(slot, end);
+    }
+
+    private boolean handleCollisionIfNeeded(Match match, BulletPool bullets, int slot, int newX, int newY) {
+        Tank collidedTank = tankAt(match, bullets.getRewindTicks(slot), newX, newY);
+        if (collidedTank != null && !collidedTank.getName().equals(bullets.getOwner(slot))) {
+            // Se retira antes de resolver el choque, que puede terminar la partida
+            bullets.kill(slot, BulletPool.END_HIT);
+            handleCollision(match, bullets.getId(slot), collidedTank);
+            return true;
         }
+        return false;
     }
 
-    private boolean isOutOfBounds(int x, int y) {
-        String[][] boxes = board.getBoxes();
-        return x < 0 || x >= boxes[0].length || y < 0 || y >= boxes.length || boxes[y][x].equals("1");
+    /**
+     * Tanque en la casilla tal como la veía el tirador. Si ese tick ya no está
+     * en el historial (p. ej. tras un reinicio) se usa el tablero actual. Las
+     * paredes no se mueven y se revisan siempre en el tablero.
+     */
+    private static Tank tankAt(Match match, int rewindTicks, int x, int y) {
+        long tick = match.getTick() - rewindTicks;
+        if (rewindTicks == 0 || !match.getHistory().contains(tick)) {
+            return match.getTankAt(x, y);
+        }
+        return match.getTankBySlot(match.getHistory().slotAt(tick, x, y));
     }
 
-    private void handleCollision(Bullet bullet, Tank tank) {
-        tankRepository.deleteById(tank.getName());
-        board.clearBox(tank.getPosx(), tank.getPosy());
-        saveOrUpdateBoard();
-        CompletableFuture.runAsync(() -> {
-            Map<String, String> response = new HashMap<>();
-            response.put("tank", tank.getName());
-            response.put("x", String.valueOf(tank.getPosx()));
-            response.put("y", String.valueOf(tank.getPosy()));
-            response.put("bulletId", bullet.getId());
-            
-            msgt.convertAndSend("/topic/matches/1/collisionResult", response);
-        });
-        
+    private void handleCollision(Match match, String bulletId, Tank tank) {
+        matchJournal.record(match, JournalRecord.hit(match.getId(), tank.getName(), bulletId));
+        match.removeTank(tank.getName());
+        match.getChanges().tankRemoved(tank.getName());
+        matchRegistry.unbindPlayer(tank.getName());
+        writeBehindStore.tankRemoved(tank.getName());
+        saveOrUpdateBoard(match);
+        broadcaster.collision(match, tank, bulletId);
 
-        Tank winner = checkVictory();
+        Tank winner = checkVictory(match);
         if (winner != null) {
-            announceVictory(winner);
+            announceVictory(match, winner);
         }
     }
 
-    public synchronized void handleWinner() {
-        Tank winner = checkVictory();
-        if (winner != null) {
-            announceVictory(winner);
+    // Lo pide un cliente por STOMP; si la partida ya no existe no hay nada que anunciar
+    public void handleWinner(String matchId) {
+        clusterNode.requireLocal(matchId);
+        Match match = matchRegistry.find(matchId);
+        if (match == null) {
+            return;
         }
+        match.run(() -> {
+            Tank winner = checkVictory(match);
+            if (winner != null) {
+                announceVictory(match, winner);
+            }
+        });
     }
 
-    public String[][] getBoardBoxes() {
-        return board.getBoxes();
+    public String[][] getBoardBoxes(String matchId) {
+        Match match = findMatch(matchId);
+        return match.supply(() -> match.getBoard().getBoxes());
     }
 
-    private Tank checkVictory() {
-        List<Tank> tanks = tankRepository.findAll();
-        if (tanks.size() == 1) {
-            return tanks.get(0);
+    private Tank checkVictory(Match match) {
+        if (match.getTankCount() == 1) {
+            return match.getTanks().iterator().next();
         }
         return null;
     }
 
-    private void announceVictory(Tank winner) {
-        tankRepository.deleteAll();
-        board.clearBoard();
-        saveOrUpdateBoard();
-        msgt.convertAndSend("/topic/matches/1/winner", winner);
+    private void removeAllTanks(Match match) {
+        for (Tank tank : match.getTanks()) {
+            matchRegistry.unbindPlayer(tank.getName());
+        }
+        match.clearTanks();
+        writeBehindStore.tanksCleared(match.getId());
+    }
+
+    private void announceVictory(Match match, Tank winner) {
+        matchJournal.record(match, JournalRecord.win(match.getId(), winner.getName()));
+        matchJournal.requestSnapshot(match);
+        removeAllTanks(match);
+        match.getBoard().clearBoard();
+        saveOrUpdateBoard(match);
+        match.markFinished();
+        broadcaster.winner(match, winner);
     }
 
-    public void reset() {
-        tankRepository.deleteAll();
-        bulletRepository.deleteAll();
-        board.clearBoard();
-        saveOrUpdateBoard();
-        initialConfig();
+    public void reset(String matchId) {
+        Match match = findMatch(matchId);
+        match.run(() -> {
+            matchJournal.record(match, JournalRecord.reset(match.getId()));
+            matchJournal.requestSnapshot(match);
+            removeAllTanks(match);
+            match.getBullets().clear();
+            match.getBulletTimers().clear();
+            match.getBoard().clearBoard();
+            saveOrUpdateBoard(match);
+            match.resetSpawns();
+        });
     }
 }
@@ -0,0 +1,80 @@
+package edu.escuelaing.co.leotankcicos.spectate;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Últimos eventos de una partida. Escribe solo el hilo dueño de la partida y
+ * nunca espera a los lectores: cuando la ronda da la vuelta pisa los eventos
+ * más viejos, y el lector que se quedó atrás lo nota porque el evento de la
+ * casilla ya no tiene la secuencia que buscaba.
+ */
+public class FrameRing {
+
+    private final AtomicReferenceArray<SpectatorFrame> frames;
+    private final int mask;
+    private volatile long next;
+
+    public FrameRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.frames = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public SpectatorFrame publish(long timeMillis, String event, boolean keyframe, byte[] payload) {
+        return publish(new SpectatorFrame(next, timeMillis, event, keyframe, payload));
+    }
+
+    /**
+     * Publica un evento que se serializa cuando un lector lo pide por
+     * primera vez.
+     */
+    public SpectatorFrame publish(long timeMillis, String event, boolean keyframe, Supplier<byte[]> serializer) {
+        return publish(new SpectatorFrame(next, timeMillis, event, keyframe, serializer));
+    }
+
+    private SpectatorFrame publish(SpectatorFrame frame) {
+        long seq = frame.getSeq();
+        frames.set((int) (seq & mask), frame);
+        next = seq + 1;
+        return frame;
+    }
+
+    /**
+     * El evento con esa secuencia, o null si aún no existe o ya se pisó.
+     */
+    public SpectatorFrame get(long seq) {
+        if (seq < 0 || seq >= next) {
+            return null;
+        }
+        SpectatorFrame frame = frames.get((int) (seq & mask));
+        return frame != null && frame.getSeq() == seq ? frame : null;
+    }
+
+    public long getOldestSeq() {
+        return Math.max(0, next - frames.length());
+    }
+
+    public long getNextSeq() {
+        return next;
+    }
+
+    public int getCapacity() {
+        return frames.length();
+    }
+
+    /**
+     * Secuencia del keyframe más reciente publicado hasta {@code timeMillis};
+     * si no queda ninguno, la del evento más viejo.
+     */
+    public long findKeyframe(long timeMillis) {
+        long oldest = getOldestSeq();
+        for (long seq = next - 1; seq >= oldest; seq--) {
+            SpectatorFrame frame = get(seq);
+            if (frame != null && frame.isKeyframe() && frame.getTimeMillis() <= timeMillis) {
+                return seq;
+            }
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,117 @@
+package edu.escuelaing.co.leotankcicos.spectate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivo de repetición de una ronda: los eventos que vieron los
+ * espectadores, con el tiempo relativo al primero, comprimidos con GZIP.
+ * Siempre empieza en un keyframe.
+ *
+ * <pre>
+ * magic int | version short | matchId UTF | startMillis long
+ * (offsetMillis long | keyframe boolean | event UTF | length int | payload)*
+ * </pre>
+ */
+public final class ReplayFile {
+
+    public static final String SUFFIX = ".replay";
+    private static final int MAGIC = 0x4C545250;
+    private static final short VERSION = 1;
+
+    private ReplayFile() {
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final long startMillis;
+
+        public Writer(Path path, String matchId, long startMillis) throws IOException {
+            OutputStream file = Files.newOutputStream(path);
+            this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(file)));
+            this.startMillis = startMillis;
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(matchId);
+            out.writeLong(startMillis);
+        }
+
+        public void write(SpectatorFrame frame) throws IOException {
+            out.writeLong(frame.getTimeMillis() - startMillis);
+            out.writeBoolean(frame.isKeyframe());
+            out.writeUTF(frame.getEvent());
+            out.writeInt(frame.getPayload().length);
+            out.write(frame.getPayload());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Lee los eventos en orden, de a uno; {@link SpectatorFrame#getTimeMillis()}
+     * es el tiempo desde el inicio de la ronda.
+     */
+    public static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final String matchId;
+        private final long startMillis;
+        private long seq;
+
+        public Reader(Path path) throws IOException {
+            InputStream file = Files.newInputStream(path);
+            this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(file)));
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                in.close();
+                throw new IOException("No es un archivo de repetición: " + path.getFileName());
+            }
+            this.matchId = in.readUTF();
+            this.startMillis = in.readLong();
+        }
+
+        /**
+         * El siguiente evento, o null al final del archivo.
+         */
+        public SpectatorFrame next() throws IOException {
+            long offset;
+            try {
+                offset = in.readLong();
+            } catch (EOFException e) {
+                return null;
+            }
+            boolean keyframe = in.readBoolean();
+            String event = in.readUTF();
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            return new SpectatorFrame(seq++, offset, event, keyframe, payload);
+        }
+
+        public String getMatchId() {
+            return matchId;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.escuelaing.co.leotankcicos.spectate;
+
+import java.util.function.Supplier;
+
+/**
+ * Un evento de la partida serializado a JSON, tal como lo reciben los
+ * espectadores y como queda en un archivo de repetición. Los keyframes son
+ * snapshots completos desde los que se puede empezar a ver; como llevan
+ * copias, se serializan la primera vez que alguien los lee y no en el hilo
+ * de la partida.
+ */
+public final class SpectatorFrame {
+
+    private final long seq;
+    private final long timeMillis;
+    private final String event;
+    private final boolean keyframe;
+    private volatile byte[] payload;
+    private Supplier<byte[]> serializer;
+
+    public SpectatorFrame(long seq, long timeMillis, String event, boolean keyframe, byte[] payload) {
+        this.seq = seq;
+        this.timeMillis = timeMillis;
+        this.event = event;
+        this.keyframe = keyframe;
+        this.payload = payload;
+    }
+
+    public SpectatorFrame(long seq, long timeMillis, String event, boolean keyframe, Supplier<byte[]> serializer) {
+        this(seq, timeMillis, event, keyframe, (byte[]) null);
+        this.serializer = serializer;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    public byte[] getPayload() {
+        byte[] bytes = payload;
+        if (bytes == null) {
+            synchronized (this) {
+                if (payload == null) {
+                    payload = serializer.get();
+                    serializer = null;
+                }
+                bytes = payload;
+            }
+        }
+        return bytes;
+    }
+}
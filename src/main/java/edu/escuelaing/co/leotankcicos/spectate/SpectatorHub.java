@@ -0,0 +1,578 @@
+package edu.escuelaing.co.leotankcicos.spectate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Espectadores y repeticiones. El hilo dueño de cada partida solo serializa
+ * una vez cada evento y lo deja en el {@link FrameRing} de la partida; un
+ * hilo aparte reparte desde ahí a cada espectador a su ritmo, así que la
+ * cantidad de espectadores no cambia la duración del tick. Los keyframes
+ * llevan copias y se serializan en ese otro hilo. Sin espectadores de la
+ * partida y sin grabar repeticiones no se hace nada: la partida no tiene
+ * anillo hasta que alguien la mira, y lo pierde cuando deja de mirarla o
+ * cuando la partida se descarga.
+ *
+ * <p>Un espectador se suscribe a {@code /topic/spectate/{matchId}/{clientId}}
+ * (con la cabecera opcional {@code delay-millis}) y empieza a recibir desde
+ * el último keyframe. Cada mensaje lleva el evento en la cabecera
+ * {@code event}. Con {@code leotankcicos.spectate.replay-directory} cada
+ * ronda, de keyframe a ganador, se graba en un {@link ReplayFile}, que se
+ * reproduce suscribiéndose a {@code /topic/replays/{name}/{clientId}}.
+ * Los destinos de los jugadores no se tocan.</p>
+ */
+@Component
+public class SpectatorHub {
+
+    public static final String SPECTATE_PREFIX = "/topic/spectate/";
+    public static final String REPLAY_PREFIX = "/topic/replays/";
+    public static final String DELAY_HEADER = "delay-millis";
+    public static final String EVENT_HEADER = "event";
+    public static final String REPLAY_END = "replayEnd";
+    private static final Pattern REPLAY_NAME = Pattern.compile("[A-Za-z0-9_-]+-\\d+\\" + ReplayFile.SUFFIX);
+    private static final byte[] EMPTY_JSON = "{}".getBytes();
+
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorHub.class);
+
+    private final SimpMessagingTemplate msgt;
+    private final boolean enabled;
+    private final int ringFrames;
+    private final int keyframeEvery;
+    private final int maxFramesPerPump;
+    private final Path replayDirectory;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentMap<String, Feed> feeds = new ConcurrentHashMap<>();
+    // Partidas descargadas cuya grabación aún debe cerrar el hilo de espectadores
+    private final Queue<Feed> endedFeeds = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, Spectator> spectators = new ConcurrentHashMap<>();
+    // Espectadores en vivo por partida
+    private final ConcurrentMap<String, Integer> watchers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService pump;
+
+    // Lo que necesita el hilo de la partida y, aparte, lo que usa el hilo que graba la repetición
+    private static final class Feed {
+        private final String matchId;
+        private final FrameRing ring;
+        private int sinceKeyframe;
+        private long recordCursor;
+        private ReplayFile.Writer recording;
+
+        // Sin keyframe aún: el primer evento pide uno
+        private Feed(String matchId, int ringFrames, int keyframeEvery) {
+            this.matchId = matchId;
+            this.ring = new FrameRing(ringFrames);
+            this.sinceKeyframe = keyframeEvery;
+        }
+    }
+
+    private interface FrameSource {
+        SpectatorFrame poll(long nowMillis) throws IOException;
+
+        boolean isFinished();
+
+        void close() throws IOException;
+    }
+
+    private record Spectator(String destination, FrameSource source) {
+    }
+
+    @Autowired
+    public SpectatorHub(SimpMessagingTemplate msgt,
+                        @Value("${leotankcicos.spectate.enabled:true}") boolean enabled,
+                        @Value("${leotankcicos.spectate.ring-frames:2048}") int ringFrames,
+                        @Value("${leotankcicos.spectate.keyframe-every:200}") int keyframeEvery,
+                        @Value("${leotankcicos.spectate.pump-millis:50}") long pumpMillis,
+                        @Value("${leotankcicos.spectate.max-frames-per-pump:256}") int maxFramesPerPump,
+                        @Value("${leotankcicos.spectate.replay-directory:}") String replayDirectory) throws IOException {
+        this.msgt = msgt;
+        this.enabled = enabled;
+        this.ringFrames = ringFrames;
+        this.keyframeEvery = Math.max(1, keyframeEvery);
+        this.maxFramesPerPump = maxFramesPerPump;
+        this.replayDirectory = replayDirectory == null || replayDirectory.isBlank() ? null : Paths.get(replayDirectory);
+        if (this.replayDirectory != null) {
+            Files.createDirectories(this.replayDirectory);
+        }
+        if (enabled && pumpMillis > 0) {
+            pump = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "spectators");
+                thread.setDaemon(true);
+                return thread;
+            });
+            pump.scheduleWithFixedDelay(() -> pump(System.currentTimeMillis()), pumpMillis, pumpMillis, TimeUnit.MILLISECONDS);
+        } else {
+            pump = null;
+        }
+    }
+
+    /**
+     * Sin espectadores ni repeticiones: los eventos ni se serializan.
+     */
+    public static SpectatorHub disabled() {
+        try {
+            return new SpectatorHub(null, false, 2, 1, 0, 0, null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Si los eventos de la partida le sirven a alguien: hay espectadores
+     * mirándola o se graban las repeticiones.
+     */
+    public boolean isActive(Match match) {
+        return enabled && (replayDirectory != null || watchers.containsKey(match.getId()));
+    }
+
+    /**
+     * Deja el evento en el anillo de la partida. Se llama desde su hilo dueño.
+     */
+    public void publish(Match match, String event, Object payload) {
+        publish(match, event, payload, false);
+    }
+
+    public void publishKeyframe(Match match, Object snapshot) {
+        publish(match, "state", snapshot, true);
+    }
+
+    /**
+     * Si ya pasaron {@code keyframe-every} eventos desde el último keyframe,
+     * o la partida aún no tiene ninguno y alguien la está mirando.
+     */
+    public boolean needsKeyframe(Match match) {
+        if (!isActive(match)) {
+            return false;
+        }
+        Feed feed = feeds.get(match.getId());
+        return feed == null || feed.sinceKeyframe >= keyframeEvery;
+    }
+
+    // Los eventos sueltos se serializan ya: pueden llevar objetos vivos de la partida
+    private void publish(Match match, String event, Object payload, boolean keyframe) {
+        if (!isActive(match)) {
+            return;
+        }
+        Feed feed = feeds.computeIfAbsent(match.getId(), id -> new Feed(id, ringFrames, keyframeEvery));
+        long now = System.currentTimeMillis();
+        if (keyframe) {
+            feed.ring.publish(now, event, true, () -> {
+                byte[] json = serialize(match, event, payload);
+                return json != null ? json : EMPTY_JSON;
+            });
+            feed.sinceKeyframe = 0;
+            return;
+        }
+        byte[] json = serialize(match, event, payload);
+        if (json != null) {
+            feed.ring.publish(now, event, false, json);
+            feed.sinceKeyframe++;
+        }
+    }
+
+    private byte[] serialize(Match match, String event, Object payload) {
+        try {
+            return mapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            logger.warn("No se pudo serializar el evento {} de la partida {}", event, match.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * La partida se descargó: se suelta su anillo. Si se estaba grabando,
+     * el hilo de espectadores cierra la repetición con lo que alcanzó a
+     * quedar en el anillo.
+     */
+    public void endFeed(Match match) {
+        Feed feed = feeds.remove(match.getId());
+        if (feed != null && replayDirectory != null) {
+            endedFeeds.add(feed);
+        }
+    }
+
+    public int getFeedCount() {
+        return feeds.size();
+    }
+
+    /**
+     * Empieza a mandar a {@code destination} los eventos de la partida con
+     * {@code delayMillis} de retraso, desde el último keyframe.
+     */
+    public void watch(String key, String destination, String matchId, long delayMillis) {
+        if (enabled) {
+            // El primero en mirar arranca de cero: un anillo que quedó de antes ya no está al día
+            if (watchers.merge(matchId, 1, Integer::sum) == 1 && replayDirectory == null) {
+                feeds.remove(matchId);
+            }
+            replace(key, new Spectator(destination, new LiveSource(matchId, Math.max(0, delayMillis))));
+        }
+    }
+
+    /**
+     * Reproduce la repetición en {@code destination} respetando los tiempos
+     * originales. Al terminar manda un evento {@link #REPLAY_END}.
+     */
+    public void playback(String key, String destination, String replayName) throws IOException {
+        Path path = getReplay(replayName);
+        if (enabled && path != null) {
+            replace(key, new Spectator(destination, new ReplaySource(new ReplayFile.Reader(path))));
+        }
+    }
+
+    public void stopWatching(String key) {
+        close(spectators.remove(key));
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || accessor.getSessionId() == null) {
+            return;
+        }
+        String key = accessor.getSessionId() + "/" + accessor.getSubscriptionId();
+        try {
+            if (destination.startsWith(SPECTATE_PREFIX)) {
+                String[] parts = destination.substring(SPECTATE_PREFIX.length()).split("/");
+                if (parts.length == 2) {
+                    watch(key, destination, parts[0], delayOf(accessor));
+                }
+            } else if (destination.startsWith(REPLAY_PREFIX)) {
+                String[] parts = destination.substring(REPLAY_PREFIX.length()).split("/");
+                if (parts.length == 2) {
+                    playback(key, destination, parts[0]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo atender la suscripción a {}", destination, e);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        stopWatching(accessor.getSessionId() + "/" + accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String prefix = event.getSessionId() + "/";
+        for (String key : new ArrayList<>(spectators.keySet())) {
+            if (key.startsWith(prefix)) {
+                stopWatching(key);
+            }
+        }
+    }
+
+    private static long delayOf(SimpMessageHeaderAccessor accessor) {
+        String delay = accessor.getFirstNativeHeader(DELAY_HEADER);
+        if (delay == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(delay.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reparte a cada espectador lo que ya le toca y graba las rondas. Corre
+     * en el hilo de espectadores; es público para llamarlo a mano en pruebas.
+     */
+    public void pump(long nowMillis) {
+        for (Map.Entry<String, Spectator> entry : spectators.entrySet()) {
+            Spectator spectator = entry.getValue();
+            try {
+                for (int sent = 0; sent < maxFramesPerPump; sent++) {
+                    SpectatorFrame frame = spectator.source().poll(nowMillis);
+                    if (frame == null) {
+                        break;
+                    }
+                    send(spectator.destination(), frame.getEvent(), frame.getPayload());
+                }
+                if (spectator.source().isFinished()) {
+                    send(spectator.destination(), REPLAY_END, EMPTY_JSON);
+                    spectators.remove(entry.getKey(), spectator);
+                    close(spectator);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Se descarta el espectador {}", entry.getKey(), e);
+                spectators.remove(entry.getKey(), spectator);
+                close(spectator);
+            }
+        }
+        if (replayDirectory != null) {
+            for (Feed feed : feeds.values()) {
+                record(feed);
+            }
+            for (Feed feed = endedFeeds.poll(); feed != null; feed = endedFeeds.poll()) {
+                record(feed);
+                try {
+                    finishRecording(feed);
+                } catch (IOException e) {
+                    logger.warn("No se pudo cerrar la repetición de la partida {}", feed.matchId, e);
+                }
+            }
+        }
+    }
+
+    // Los bytes ya son JSON: se mandan tal cual, sin pasar por el conversor
+    private void send(String destination, String event, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(EVENT_HEADER, event);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        msgt.send(destination, message);
+    }
+
+    // Una ronda va de un keyframe al ganador; si el anillo se adelantó a la grabación, la ronda queda cortada
+    private void record(Feed feed) {
+        FrameRing ring = feed.ring;
+        try {
+            while (true) {
+                if (feed.recordCursor < ring.getOldestSeq()) {
+                    finishRecording(feed);
+                    feed.recordCursor = ring.getOldestSeq();
+                }
+                SpectatorFrame frame = ring.get(feed.recordCursor);
+                if (frame == null) {
+                    return;
+                }
+                feed.recordCursor++;
+                if (feed.recording == null) {
+                    if (!frame.isKeyframe()) {
+                        continue;
+                    }
+                    feed.recording = new ReplayFile.Writer(replayDirectory.resolve(
+                            safeName(feed.matchId) + "-" + frame.getTimeMillis() + ReplayFile.SUFFIX),
+                            feed.matchId, frame.getTimeMillis());
+                }
+                feed.recording.write(frame);
+                if ("winner".equals(frame.getEvent())) {
+                    finishRecording(feed);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo grabar la repetición de la partida {}", feed.matchId, e);
+            feed.recording = null;
+        }
+    }
+
+    private static void finishRecording(Feed feed) throws IOException {
+        if (feed.recording != null) {
+            feed.recording.close();
+            feed.recording = null;
+        }
+    }
+
+    /**
+     * Nombres de las repeticiones grabadas, de la más vieja a la más nueva.
+     */
+    public List<String> getReplays() throws IOException {
+        List<String> names = new ArrayList<>();
+        if (replayDirectory == null) {
+            return names;
+        }
+        try (Stream<Path> files = Files.list(replayDirectory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> REPLAY_NAME.matcher(name).matches())
+                    .forEach(names::add);
+        }
+        names.sort((a, b) -> Long.compare(startOf(a), startOf(b)));
+        return names;
+    }
+
+    /**
+     * Ruta de la repetición, o null si el nombre no es válido o no existe.
+     */
+    public Path getReplay(String name) {
+        if (replayDirectory == null || name == null || !REPLAY_NAME.matcher(name).matches()) {
+            return null;
+        }
+        Path path = replayDirectory.resolve(name);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    private static long startOf(String name) {
+        return Long.parseLong(name.substring(name.lastIndexOf('-') + 1, name.length() - ReplayFile.SUFFIX.length()));
+    }
+
+    private static String safeName(String matchId) {
+        return matchId.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+
+    private void replace(String key, Spectator spectator) {
+        close(spectators.put(key, spectator));
+    }
+
+    private static void close(Spectator spectator) {
+        if (spectator != null) {
+            try {
+                spectator.source().close();
+            } catch (IOException e) {
+                logger.debug("Error cerrando la fuente del espectador", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pump != null) {
+            pump.shutdown();
+        }
+        spectators.values().forEach(SpectatorHub::close);
+        spectators.clear();
+        endedFeeds.addAll(feeds.values());
+        for (Feed feed : endedFeeds) {
+            try {
+                finishRecording(feed);
+            } catch (IOException e) {
+                logger.debug("Error cerrando la repetición de la partida {}", feed.matchId, e);
+            }
+        }
+    }
+
+    // En vivo: avanza por el anillo con retraso; si se queda atrás salta al keyframe más reciente que le toca
+    private final class LiveSource implements FrameSource {
+
+        private final String matchId;
+        private final long delayMillis;
+        private Feed feed;
+        private long cursor = -1;
+        private boolean synced;
+
+        private LiveSource(String matchId, long delayMillis) {
+            this.matchId = matchId;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public SpectatorFrame poll(long nowMillis) {
+            Feed current = feeds.get(matchId);
+            if (current == null) {
+                return null;
+            }
+            // La partida se descargó y volvió a crearse: su anillo es otro
+            if (current != feed) {
+                feed = current;
+                cursor = -1;
+            }
+            FrameRing ring = feed.ring;
+            long target = nowMillis - delayMillis;
+            while (true) {
+                if (cursor < ring.getOldestSeq()) {
+                    cursor = ring.findKeyframe(target);
+                    synced = false;
+                }
+                SpectatorFrame frame = ring.get(cursor);
+                if (frame == null || frame.getTimeMillis() > target) {
+                    return null;
+                }
+                cursor++;
+                if (synced || frame.isKeyframe()) {
+                    synced = true;
+                    return frame;
+                }
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            Integer left = watchers.computeIfPresent(matchId, (id, count) -> count > 1 ? count - 1 : null);
+            if (left == null && replayDirectory == null) {
+                feeds.remove(matchId);
+            }
+        }
+    }
+
+    // Repetición: el archivo se lee de a un evento, cuando llega su momento
+    private static final class ReplaySource implements FrameSource {
+
+        private final ReplayFile.Reader reader;
+        private long startMillis = -1;
+        private SpectatorFrame pending;
+        private boolean finished;
+
+        private ReplaySource(ReplayFile.Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public SpectatorFrame poll(long nowMillis) throws IOException {
+            if (startMillis < 0) {
+                startMillis = nowMillis;
+            }
+            if (pending == null && !finished) {
+                pending = reader.next();
+                finished = pending == null;
+            }
+            if (pending == null || pending.getTimeMillis() > nowMillis - startMillis) {
+                return null;
+            }
+            SpectatorFrame frame = pending;
+            pending = null;
+            return frame;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
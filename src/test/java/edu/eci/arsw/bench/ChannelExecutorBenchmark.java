@@ -0,0 +1,116 @@
+package edu.eci.arsw.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Cuántos jugadores conectados aguanta el canal clientInbound según su
+ * ejecutor. Cada jugador manda un mensaje por tick (50 ms); uno de cada
+ * {@code MONGO_EVERY} mensajes bloquea en una consulta simulada a MongoDB,
+ * limitada a {@code MONGO_CONNECTIONS} conexiones como en MongoPoolConfig.
+ * Un nivel se sostiene si el p99 de latencia queda por debajo de un tick.
+ * Se ejecuta a mano:
+ *
+ * <pre>mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=edu.eci.arsw.bench.ChannelExecutorBenchmark</pre>
+ */
+public class ChannelExecutorBenchmark {
+
+    private static final long TICK_MILLIS = 50;
+    private static final int TICKS = 40;
+    private static final int MONGO_EVERY = 10;
+    private static final int MONGO_CONNECTIONS = 50;
+    private static final long MONGO_MILLIS = 5;
+    private static final int[] PLAYERS = {50, 100, 250, 500, 1_000, 2_000, 4_000};
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-10s %8s %10s %10s %10s %s%n", "executor", "players", "p50 ms", "p99 ms", "max ms", "");
+        for (int players : PLAYERS) {
+            ThreadPoolTaskExecutor platform = platformPool();
+            run("platform", platform, players);
+            platform.shutdown();
+        }
+        TaskExecutor virtual = virtualExecutor();
+        if (virtual == null) {
+            System.out.println("virtual    (not available on Java " + Runtime.version().feature() + ", needs 21+)");
+            return;
+        }
+        for (int players : PLAYERS) {
+            run("virtual", virtual, players);
+        }
+    }
+
+    // Lo que Spring configura por defecto para clientInbound: 2 hilos por núcleo
+    private static ThreadPoolTaskExecutor platformPool() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        executor.setThreadNamePrefix("clientInbound-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static TaskExecutor virtualExecutor() {
+        try {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("clientInbound-");
+            executor.setVirtualThreads(true);
+            return executor;
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static void run(String name, TaskExecutor executor, int players) throws InterruptedException {
+        Semaphore mongo = new Semaphore(MONGO_CONNECTIONS);
+        int total = players * TICKS;
+        long[] latencies = new long[total];
+        AtomicInteger index = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(total);
+        ScheduledExecutorService clients = Executors.newSingleThreadScheduledExecutor();
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            clients.schedule(() -> {
+                for (int p = 0; p < players; p++) {
+                    long sent = System.nanoTime();
+                    executor.execute(() -> {
+                        if (ThreadLocalRandom.current().nextInt(MONGO_EVERY) == 0) {
+                            queryMongo(mongo);
+                        }
+                        latencies[index.getAndIncrement()] = System.nanoTime() - sent;
+                        done.countDown();
+                    });
+                }
+            }, tick * TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        done.await();
+        clients.shutdown();
+
+        Arrays.sort(latencies);
+        double p50 = latencies[total / 2] / 1e6;
+        double p99 = latencies[(int) (total * 0.99)] / 1e6;
+        double max = latencies[total - 1] / 1e6;
+        System.out.printf("%-10s %8d %10.1f %10.1f %10.1f %s%n", name, players, p50, p99, max,
+                p99 <= TICK_MILLIS ? "sustained" : "falls behind");
+    }
+
+    private static void queryMongo(Semaphore mongo) {
+        try {
+            mongo.acquire();
+            try {
+                Thread.sleep(MONGO_MILLIS);
+            } finally {
+                mongo.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package edu.eci.arsw.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.cluster.InProcessCluster;
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.journal.MatchJournal;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
+import edu.escuelaing.co.leotankcicos.service.TankService;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Movimientos aplicados por segundo con 1, 2 y 3 nodos en la misma JVM
+ * ({@link InProcessCluster}). Cada nodo tiene un solo worker, como si fuera
+ * una máquina de un núcleo; los jugadores mandan sus entradas a un nodo al
+ * azar, así que la mayoría se reenvía al dueño de la partida. Se ejecuta a
+ * mano:
+ *
+ * <pre>mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=edu.eci.arsw.bench.ClusterScalingBenchmark</pre>
+ */
+public class ClusterScalingBenchmark {
+
+    private static final int MATCHES = 12;
+    private static final int PLAYERS_PER_MATCH = 3;
+    private static final long TICK_MILLIS = 10;
+    private static final long RUN_MILLIS = 5_000;
+    private static final SessionTokens TOKENS = new SessionTokens("cluster-benchmark-key");
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-6s %12s %12s %12s%n", "nodes", "moves/s", "forwarded", "dropped");
+        for (int size = 1; size <= 3; size++) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) throws Exception {
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = "node-" + i;
+        }
+        InProcessCluster cluster = new InProcessCluster(ids);
+        List<BenchNode> nodes = new ArrayList<>();
+        for (String id : ids) {
+            nodes.add(new BenchNode(cluster.node(id)));
+        }
+
+        List<SessionTokens.Claims> players = new ArrayList<>();
+        for (int m = 0; m < MATCHES; m++) {
+            String matchId = "match-" + m;
+            BenchNode owner = owner(nodes, matchId);
+            for (int p = 0; p < PLAYERS_PER_MATCH; p++) {
+                String username = "p" + m + "-" + p;
+                owner.tankService.saveTank(matchId, username, TOKENS.hash(username));
+                players.add(TOKENS.verify(owner.tankService.issueSessionToken(matchId, username)));
+            }
+        }
+        nodes.forEach(node -> node.moves.set(0));
+
+        long deadline = System.currentTimeMillis() + RUN_MILLIS;
+        List<Thread> clients = new ArrayList<>();
+        for (BenchNode entry : nodes) {
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int step = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    int index = random.nextInt(players.size());
+                    SessionTokens.Claims player = players.get(index);
+                    BenchNode target = nodes.get(random.nextInt(nodes.size()));
+                    // Cada jugador de la partida se mueve en su propia fila libre
+                    int y = 1 + index % PLAYERS_PER_MATCH * 3;
+                    int x = step++ % 2 == 0 ? 2 : 3;
+                    target.tankService.updateTankPosition(player, player.getUsername(), 1, y, x, y, 0);
+                }
+            }, "client-" + entry.clusterNode.getLocalNodeId());
+            clients.add(client);
+            client.start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+
+        long moves = 0;
+        long forwarded = 0;
+        long dropped = 0;
+        for (BenchNode node : nodes) {
+            moves += node.moves.get();
+            forwarded += node.clusterNode.getForwardedInputs();
+            dropped += node.registry.getMatches().stream().mapToLong(match -> match.getDroppedInputs()).sum();
+            node.close();
+        }
+        cluster.shutdown();
+        // Cada movimiento se entrega en todos los nodos: el dueño lo publica y los demás lo reciben reenviado
+        System.out.printf("%-6d %12.0f %12d %12d%n", size, moves / (double) size * 1000 / RUN_MILLIS, forwarded, dropped);
+    }
+
+    private static BenchNode owner(List<BenchNode> nodes, String matchId) {
+        String owner = nodes.get(0).clusterNode.ownerOf(matchId);
+        return nodes.stream().filter(node -> node.clusterNode.getLocalNodeId().equals(owner)).findFirst().orElseThrow();
+    }
+
+    private static final class BenchNode {
+
+        private final ClusterNode clusterNode;
+        private final MatchRegistry registry;
+        private final WriteBehindStore writeBehindStore;
+        private final TankService tankService;
+        private final AtomicLong moves = new AtomicLong();
+
+        private BenchNode(ClusterNode clusterNode) {
+            this.clusterNode = clusterNode;
+            MatchProperties properties = new MatchProperties();
+            properties.setWorkers(1);
+            properties.setTickMillis(TICK_MILLIS);
+            properties.setMaxPlayers(PLAYERS_PER_MATCH);
+            SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> {
+                String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                if (destination != null && destination.endsWith("/movement")) {
+                    moves.incrementAndGet();
+                }
+                return true;
+            });
+            template.setMessageConverter(new MappingJackson2MessageConverter());
+            registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+            writeBehindStore = new WriteBehindStore(InMemoryRepositories.tanks(), InMemoryRepositories.boards(), 1_000, 256);
+            tankService = new TankService(InMemoryRepositories.boards(),
+                    new StateBroadcaster(template, true, false, false, clusterNode, SpectatorHub.disabled(), new SimpleMeterRegistry()),
+                    InMemoryRepositories.tanks(), registry, writeBehindStore, TOKENS,
+                    new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, properties), clusterNode, MatchJournal.disabled());
+        }
+
+        private void close() {
+            registry.shutdown();
+            writeBehindStore.shutdown();
+        }
+    }
+}
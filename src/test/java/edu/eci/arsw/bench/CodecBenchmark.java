@@ -0,0 +1,76 @@
+package edu.eci.arsw.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.escuelaing.co.leotankcicos.codec.GameFrames;
+import edu.escuelaing.co.leotankcicos.model.MoveCommand;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+/**
+ * Compara el costo de codificar/decodificar y los bytes en el cable del
+ * códec binario contra el camino JSON actual (Jackson). Se ejecuta a mano:
+ *
+ * <pre>mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=edu.eci.arsw.bench.CodecBenchmark</pre>
+ */
+public class CodecBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        MoveCommand move = new MoveCommand(1, 8, 2, 8, 90);
+        Map<String, Integer> moveJson = Map.of("posX", 1, "posY", 8, "newPosX", 2, "newPosY", 8, "rotation", 90);
+        Tank tank = new Tank(13, 8, "#001ba1", 180, "Player-42");
+        tank.setMatchId("1");
+        Map<String, String> collision = new HashMap<>();
+        collision.put("tank", "Player-42");
+        collision.put("x", "13");
+        collision.put("y", "8");
+        collision.put("bulletId", "Player-7-1699999999999");
+
+        byte[] moveBinary = GameFrames.encodeMove(move);
+        byte[] moveJsonBytes = MAPPER.writeValueAsBytes(moveJson);
+        byte[] movementBinary = GameFrames.encodeMovement(tank);
+        byte[] movementJson = MAPPER.writeValueAsBytes(tank);
+        byte[] collisionBinary = GameFrames.encodeCollision("Player-42", 13, 8, "Player-7-1699999999999");
+        byte[] collisionJson = MAPPER.writeValueAsBytes(collision);
+
+        System.out.printf("%-28s %10s %10s%n", "frame", "json B", "binary B");
+        System.out.printf("%-28s %10d %10d%n", "move (inbound)", moveJsonBytes.length, moveBinary.length);
+        System.out.printf("%-28s %10d %10d%n", "movement (outbound)", movementJson.length, movementBinary.length);
+        System.out.printf("%-28s %10d %10d%n", "collision (outbound)", collisionJson.length, collisionBinary.length);
+        System.out.println();
+
+        System.out.printf("%-28s %10s%n", "operation", "ns/op");
+        run("move decode json", () -> MAPPER.readValue(moveJsonBytes, MoveCommand.class));
+        run("move decode binary", () -> GameFrames.decodeMove(moveBinary));
+        run("movement encode json", () -> MAPPER.writeValueAsBytes(tank));
+        run("movement encode binary", () -> GameFrames.encodeMovement(tank));
+        run("collision encode json", () -> MAPPER.writeValueAsBytes(collision));
+        run("collision encode binary", () -> GameFrames.encodeCollision("Player-42", 13, 8, "Player-7-1699999999999"));
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static void run(String name, ThrowingSupplier<Object> operation) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.get().hashCode();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.get().hashCode();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-28s %10.1f%n", name, (double) elapsed / ITERATIONS);
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}
@@ -0,0 +1,90 @@
+package edu.eci.arsw.bench;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
+import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+
+/**
+ * Repositorios en memoria para los benchmarks: un mapa por id detrás de un
+ * proxy que entiende los métodos que usa el juego, sin MongoDB.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static TankRepository tanks() {
+        return create(TankRepository.class, Tank::getName, Tank::getMatchId);
+    }
+
+    static BoardRepository boards() {
+        return create(BoardRepository.class, Board::getId, Board::getId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R, T> R create(Class<R> type, Function<T, String> id, Function<T, String> matchId) {
+        Map<String, T> store = new ConcurrentHashMap<>();
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "save" -> {
+                    T entity = (T) args[0];
+                    store.put(id.apply(entity), entity);
+                    return entity;
+                }
+                case "saveAll" -> {
+                    List<T> saved = new ArrayList<>();
+                    for (T entity : (Iterable<T>) args[0]) {
+                        store.put(id.apply(entity), entity);
+                        saved.add(entity);
+                    }
+                    return saved;
+                }
+                case "findById" -> {
+                    return Optional.ofNullable(store.get((String) args[0]));
+                }
+                case "findAll" -> {
+                    return new ArrayList<>(store.values());
+                }
+                case "findByMatchId" -> {
+                    return store.values().stream().filter(e -> args[0].equals(matchId.apply(e))).toList();
+                }
+                case "countByMatchId" -> {
+                    return store.values().stream().filter(e -> args[0].equals(matchId.apply(e))).count();
+                }
+                case "deleteById" -> {
+                    store.remove((String) args[0]);
+                    return null;
+                }
+                case "deleteAllById" -> {
+                    for (Object key : (Iterable<?>) args[0]) {
+                        store.remove((String) key);
+                    }
+                    return null;
+                }
+                case "deleteByMatchId" -> {
+                    store.values().removeIf(e -> args[0].equals(matchId.apply(e)));
+                    return null;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return "InMemory" + type.getSimpleName();
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
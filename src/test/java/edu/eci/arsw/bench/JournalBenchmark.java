@@ -0,0 +1,103 @@
+package edu.eci.arsw.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.journal.EventJournal;
+import edu.escuelaing.co.leotankcicos.journal.JournalRecord;
+import edu.escuelaing.co.leotankcicos.journal.MatchJournal;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Anexos por segundo del diario y tiempo de recuperación por millón de
+ * eventos, reproduciendo todo el diario o solo la cola tras el último
+ * snapshot. Se ejecuta a mano:
+ *
+ * <pre>mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=edu.eci.arsw.bench.JournalBenchmark</pre>
+ */
+public class JournalBenchmark {
+
+    private static final int EVENTS = 1_000_000;
+    private static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final int SNAPSHOT_EVERY = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("journal-bench");
+        try {
+            appendAndReplay(directory.resolve("raw"));
+            recoverWithSnapshots(directory.resolve("match"));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void appendAndReplay(Path directory) throws IOException {
+        Tank tank = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        try (EventJournal journal = new EventJournal(directory, SEGMENT_BYTES)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVENTS; i++) {
+                tank.setPosx(1 + i % 13);
+                journal.append(JournalRecord.move("1", tank));
+            }
+            journal.flush();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("append   %,12.0f events/s %6d segments%n", EVENTS / seconds, journal.getSegmentCount());
+
+            AtomicLong replayed = new AtomicLong();
+            start = System.nanoTime();
+            journal.replay(0, (seq, record) -> replayed.incrementAndGet());
+            System.out.printf("replay   %,12d events   %8.0f ms per million%n",
+                    replayed.get(), (System.nanoTime() - start) / 1e6 * 1_000_000 / replayed.get());
+        }
+    }
+
+    // Los mismos movimientos pasando por MatchJournal, que toma snapshots y borra segmentos viejos
+    private static void recoverWithSnapshots(Path directory) throws IOException {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(60_000);
+        MatchRegistry registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+        Match match = registry.getOrCreate("1", Board::new);
+        Tank tank = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        match.run(() -> {
+            match.addTank(tank);
+            match.placeTank(tank, 1, 8);
+        });
+
+        MatchJournal journal = new MatchJournal(directory, SEGMENT_BYTES, SNAPSHOT_EVERY);
+        long start = System.nanoTime();
+        match.run(() -> {
+            for (int i = 0; i < EVENTS; i++) {
+                match.placeTank(tank, 1 + i % 13, 8);
+                journal.record(match, JournalRecord.move("1", tank));
+                journal.checkpoint(match);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        journal.close();
+        registry.shutdown();
+        System.out.printf("record   %,12.0f events/s (snapshot every %,d)%n", EVENTS / seconds, SNAPSHOT_EVERY);
+
+        start = System.nanoTime();
+        MatchJournal reopened = new MatchJournal(directory, SEGMENT_BYTES, SNAPSHOT_EVERY);
+        int matches = reopened.recover().size();
+        System.out.printf("recover  %,12d matches %8.0f ms for %,d events journaled%n",
+                matches, (System.nanoTime() - start) / 1e6, EVENTS);
+        reopened.close();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package edu.eci.arsw.bench;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Hex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.escuelaing.co.leotankcicos.LeoTankcicosApplication;
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.model.MoveCommand;
+import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
+import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+
+/**
+ * Generador de carga sin navegador. Levanta la aplicación en un puerto libre
+ * con repositorios en memoria, conecta {@code players} clientes STOMP a
+ * {@code /stompendpoint}, los registra con un HMAC válido y les hace enviar
+ * movimientos y disparos. Mide la latencia desde el envío a
+ * {@code /app/{username}/move} hasta que el propio movimiento llega por
+ * {@code /topic/matches/{id}/movement}. Cada cliente presenta en el CONNECT
+ * el token de sesión que recibió en el login. Se ejecuta a mano:
+ *
+ * <pre>TANK_SECRET_KEY=load mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=edu.eci.arsw.bench.StompLoadGenerator -Dexec.args="players=60 moveRate=10"</pre>
+ *
+ * Opciones (clave=valor): players, perMatch (máximo 4), moveRate y shotRate
+ * por jugador y segundo, seconds y tickMillis.
+ */
+public class StompLoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int players;
+    private final int perMatch;
+    private final double moveRate;
+    private final double shotRate;
+    private final int seconds;
+
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    private final AtomicLong movesSent = new AtomicLong();
+    private final AtomicLong shotsSent = new AtomicLong();
+    private final AtomicLong ownMovements = new AtomicLong();
+    private final AtomicLong broadcastsReceived = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+    private final AtomicLong loginErrors = new AtomicLong();
+    private final AtomicLong stompErrors = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+
+    StompLoadGenerator(Map<String, String> options) {
+        players = Integer.parseInt(options.getOrDefault("players", "30"));
+        perMatch = Math.min(4, Integer.parseInt(options.getOrDefault("perMatch", "3")));
+        moveRate = Double.parseDouble(options.getOrDefault("moveRate", "10"));
+        shotRate = Double.parseDouble(options.getOrDefault("shotRate", "1"));
+        seconds = Integer.parseInt(options.getOrDefault("seconds", "20"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        String secret = System.getenv("TANK_SECRET_KEY");
+        if (secret == null) {
+            System.err.println("TANK_SECRET_KEY must be set (the server reads it at startup)");
+            System.exit(1);
+        }
+        StompLoadGenerator generator = new StompLoadGenerator(options);
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(LeoTankcicosApplication.class, InMemoryStore.class)
+                .properties(
+                        "server.port=0",
+                        "spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration",
+                        "logging.level.org.springframework.web=INFO",
+                        // Mensajes que llegan tras desconectar al final de la corrida
+                        "logging.level.org.springframework.web.socket.sockjs.client=OFF",
+                        "leotankcicos.match.max-players=" + generator.perMatch,
+                        "leotankcicos.match.tick-millis=" + options.getOrDefault("tickMillis", "50"))
+                .run();
+        try {
+            String port = app.getEnvironment().getProperty("local.server.port");
+            generator.run("http://localhost:" + port, secret);
+        } finally {
+            app.close();
+        }
+    }
+
+    // Sustituye a los repositorios de MongoDB excluidos
+    @Configuration
+    static class InMemoryStore {
+        @Bean
+        TankRepository tankRepository() {
+            return InMemoryRepositories.tanks();
+        }
+
+        @Bean
+        BoardRepository boardRepository() {
+            return InMemoryRepositories.boards();
+        }
+    }
+
+    void run(String baseUrl, String secret) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        WebSocketStompClient stomp = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+        ScheduledExecutorService senders = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            Client client = new Client("load-" + i, "m" + (i / perMatch));
+            if (client.login(http, baseUrl, secret)) {
+                client.connect(stomp, baseUrl);
+                clients.add(client);
+            }
+        }
+        System.out.printf("%d/%d clients connected in %d matches%n", clients.size(), players,
+                (players + perMatch - 1) / perMatch);
+
+        long start = System.nanoTime();
+        for (Client client : clients) {
+            schedule(senders, moveRate, client::move);
+            schedule(senders, shotRate, client::shoot);
+        }
+        senders.schedule(() -> { }, seconds, TimeUnit.SECONDS).get();
+        senders.shutdownNow();
+        // Margen para que lleguen los últimos movimientos en vuelo
+        Thread.sleep(500);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        clients.forEach(Client::disconnect);
+        report(elapsed);
+    }
+
+    private static void schedule(ScheduledExecutorService senders, double rate, Runnable action) {
+        if (rate <= 0) {
+            return;
+        }
+        long periodMicros = (long) (1_000_000 / rate);
+        long offset = ThreadLocalRandom.current().nextLong(periodMicros);
+        senders.scheduleAtFixedRate(action, offset, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private void report(double elapsed) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("duration            %.1f s%n", elapsed);
+        System.out.printf("moves sent          %d (%.0f/s)%n", movesSent.get(), movesSent.get() / elapsed);
+        System.out.printf("shots sent          %d (%.0f/s)%n", shotsSent.get(), shotsSent.get() / elapsed);
+        System.out.printf("own moves received  %d (%.0f/s)%n", ownMovements.get(), ownMovements.get() / elapsed);
+        System.out.printf("movement broadcasts %d (%.0f/s)%n", broadcastsReceived.get(), broadcastsReceived.get() / elapsed);
+        System.out.printf("moves without echo  %d (out of order %d)%n",
+                Math.max(0, movesSent.get() - ownMovements.get()), unmatched.get());
+        System.out.printf("errors              login %d, stomp %d, send %d%n", loginErrors.get(), stompErrors.get(), sendErrors.get());
+        if (sorted.length == 0) {
+            System.out.println("no latency samples");
+            return;
+        }
+        System.out.printf("move latency ms     p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static String hmac(String secret, String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(), "HmacSHA256"));
+        return Hex.encodeHexString(mac.doFinal(message.getBytes()));
+    }
+
+    private final class Client extends StompSessionHandlerAdapter {
+        private final String username;
+        private final String matchId;
+        // Movimientos enviados y aún sin eco: {x destino, nanos de envío}
+        private final ConcurrentLinkedQueue<long[]> pending = new ConcurrentLinkedQueue<>();
+        private StompSession session;
+        private String token;
+        private int homeX;
+        private int y;
+        private int rotation;
+        private boolean away;
+        private long shots;
+
+        Client(String username, String matchId) {
+            this.username = username;
+            this.matchId = matchId;
+        }
+
+        boolean login(HttpClient http, String baseUrl, String secret) {
+            try {
+                String body = MAPPER.writeValueAsString(Map.of("username", username, "hash", hmac(secret, username)));
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/tanks/matches/" + matchId + "/loginTank"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                        .build();
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    loginErrors.incrementAndGet();
+                    return false;
+                }
+                token = response.headers().firstValue(SessionTokens.HEADER).orElse(null);
+                Map<?, ?> tank = MAPPER.readValue(response.body(), Map.class);
+                homeX = ((Number) tank.get("posx")).intValue();
+                y = ((Number) tank.get("posy")).intValue();
+                // Apunta a la pared más cercana para que los disparos no eliminen a nadie
+                rotation = homeX < 7 ? 180 : 0;
+                return true;
+            } catch (Exception e) {
+                loginErrors.incrementAndGet();
+                return false;
+            }
+        }
+
+        void connect(WebSocketStompClient stomp, String baseUrl) throws Exception {
+            StompHeaders connectHeaders = new StompHeaders();
+            if (token != null) {
+                connectHeaders.add(SessionTokens.HEADER, token);
+            }
+            session = stomp.connectAsync(baseUrl + "/stompendpoint", new WebSocketHttpHeaders(), connectHeaders, this)
+                    .get(10, TimeUnit.SECONDS);
+            session.subscribe("/topic/matches/" + matchId + "/movement", this);
+        }
+
+        synchronized void move() {
+            int step = homeX < 7 ? 1 : -1;
+            int fromX = away ? homeX + step : homeX;
+            int toX = away ? homeX : homeX + step;
+            away = !away;
+            pending.add(new long[]{toX, System.nanoTime()});
+            send("/app/" + username + "/move", new MoveCommand(fromX, y, toX, y, rotation));
+            movesSent.incrementAndGet();
+        }
+
+        synchronized void shoot() {
+            send("/app/" + username + "/shoot", username + "-" + (shots++));
+            shotsSent.incrementAndGet();
+        }
+
+        private void send(String destination, Object payload) {
+            try {
+                session.send(destination, payload);
+            } catch (RuntimeException e) {
+                sendErrors.incrementAndGet();
+            }
+        }
+
+        void disconnect() {
+            if (session != null && session.isConnected()) {
+                session.disconnect();
+            }
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long received = System.nanoTime();
+            broadcastsReceived.incrementAndGet();
+            Map<?, ?> tank = (Map<?, ?>) payload;
+            if (!username.equals(tank.get("name"))) {
+                return;
+            }
+            ownMovements.incrementAndGet();
+            long x = ((Number) tank.get("posx")).longValue();
+            long[] sent;
+            while ((sent = pending.poll()) != null) {
+                if (sent[0] == x) {
+                    latencies.add(received - sent[1]);
+                    return;
+                }
+                unmatched.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                    byte[] payload, Throwable exception) {
+            stompErrors.incrementAndGet();
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            stompErrors.incrementAndGet();
+        }
+    }
+}
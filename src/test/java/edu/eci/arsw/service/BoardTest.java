@@ -0,0 +1,130 @@
+package edu.eci.arsw.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.GameMap;
+
+class BoardTest {
+
+    @Test
+    void testDefaultLayout() {
+        Board board = new Board("1");
+
+        assertEquals(15, board.getWidth());
+        assertEquals(10, board.getHeight());
+        assertTrue(board.isWall(0, 0));
+        assertTrue(board.isEmpty(1, 1));
+        assertEquals("1", board.getValue(7, 1));
+        assertEquals("0", board.getValue(1, 8));
+        assertFalse(board.isInside(15, 0));
+    }
+
+    @Test
+    void testPutTankAndClearBox() {
+        Board board = new Board("1");
+        board.putTank("Tank1", 1, 8);
+
+        assertTrue(board.hasTank(1, 8));
+        assertEquals("Tank1", board.getValue(1, 8));
+        assertEquals("Tank1", board.getTankAt(1, 8));
+
+        board.clearBox(1, 8);
+        board.putTank("Tank1", 2, 8);
+
+        assertNull(board.getTankAt(1, 8));
+        assertEquals("0", board.getValue(1, 8));
+        assertEquals("Tank1", board.getTankAt(2, 8));
+    }
+
+    @Test
+    void testBoxesKeepJsonShape() {
+        Board board = new Board("1");
+        board.putTank("Tank1", 1, 8);
+
+        String[][] boxes = board.getBoxes();
+
+        assertEquals(10, boxes.length);
+        assertEquals(15, boxes[0].length);
+        assertEquals("1", boxes[0][0]);
+        assertEquals("0", boxes[1][1]);
+        assertEquals("Tank1", boxes[8][1]);
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        Board board = new Board("1");
+        board.putTank("Tank1", 1, 8);
+        Board copy = board.copy();
+
+        board.clearBox(1, 8);
+
+        assertEquals("Tank1", copy.getTankAt(1, 8));
+        assertEquals("1", copy.getId());
+    }
+
+    @Test
+    void testMongoRoundTrip() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        Board board = new Board("1");
+        board.putTank("Tank1", 1, 8);
+        board.putTank("Tank2", 13, 8);
+
+        Document document = new Document();
+        converter.write(board, document);
+        Board read = converter.read(Board.class, document);
+
+        assertArrayEquals(board.getBoxes(), read.getBoxes());
+        read.putTank("Tank3", 13, 1);
+        assertEquals("Tank2", read.getTankAt(13, 8));
+        assertEquals("Tank3", read.getTankAt(13, 1));
+    }
+
+    @Test
+    void testLargeMapAllocatesChunksLazily() {
+        GameMap arena = new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, new MatchProperties()).get("arena-1000");
+        Board board = new Board("big", arena);
+        int allocated = board.getAllocatedChunks();
+
+        assertEquals(1000, board.getWidth());
+        assertTrue(board.isWall(999, 500));
+        assertTrue(board.isEmpty(600, 600));
+        assertTrue(allocated < 16 * 16 / 2);
+
+        board.putTank("Tank1", 600, 600);
+        board.clearBox(600, 600);
+        board.clearBox(650, 650);
+
+        assertEquals(allocated + 1, board.getAllocatedChunks());
+    }
+
+    @Test
+    void testLargeMapMongoRoundTrip() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        GameMap arena = new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, new MatchProperties()).get("arena-1000");
+        Board board = new Board("big", arena);
+        board.putTank("Tank1", 600, 600);
+
+        Document document = new Document();
+        converter.write(board, document);
+        Board read = converter.read(Board.class, document);
+
+        assertEquals("arena-1000", read.getMapId());
+        assertEquals(board.getAllocatedChunks(), read.getAllocatedChunks());
+        assertEquals("Tank1", read.getTankAt(600, 600));
+        assertTrue(read.isWall(999, 500));
+    }
+}
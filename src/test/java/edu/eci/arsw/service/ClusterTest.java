@@ -0,0 +1,164 @@
+package edu.eci.arsw.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.cluster.InProcessCluster;
+import edu.escuelaing.co.leotankcicos.cluster.NotMatchOwnerException;
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.journal.MatchJournal;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
+import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
+import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+import edu.escuelaing.co.leotankcicos.service.TankService;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ClusterTest {
+
+    private final SessionTokens sessionTokens = new SessionTokens("test-secret");
+    private final List<Node> nodes = new ArrayList<>();
+    private InProcessCluster cluster;
+
+    // Un nodo completo: registro, persistencia y servicio propios, con su broker simulado
+    private final class Node {
+        private final ClusterNode clusterNode;
+        private final SimpMessagingTemplate msgt = mock(SimpMessagingTemplate.class);
+        private final MatchRegistry registry;
+        private final WriteBehindStore writeBehindStore;
+        private final TankService tankService;
+
+        private Node(String nodeId) {
+            MatchProperties properties = new MatchProperties();
+            properties.setWorkers(1);
+            properties.setTickMillis(60_000);
+            clusterNode = cluster.node(nodeId);
+            TankRepository tanks = mock(TankRepository.class);
+            BoardRepository boards = mock(BoardRepository.class);
+            registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+            writeBehindStore = new WriteBehindStore(tanks, boards, 60_000, 1_000);
+            tankService = new TankService(boards,
+                    new StateBroadcaster(msgt, true, false, false, clusterNode, SpectatorHub.disabled(), new SimpleMeterRegistry()),
+                    tanks, registry, writeBehindStore, sessionTokens,
+                    new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, properties), clusterNode, MatchJournal.disabled());
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        cluster = new InProcessCluster("node-a", "node-b", "node-c");
+        for (String nodeId : cluster.getNodeIds()) {
+            nodes.add(new Node(nodeId));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Node node : nodes) {
+            node.registry.shutdown();
+            node.writeBehindStore.shutdown();
+        }
+        cluster.shutdown();
+    }
+
+    private Node ownerOf(String matchId) {
+        String owner = nodes.get(0).clusterNode.ownerOf(matchId);
+        return nodes.stream().filter(node -> node.clusterNode.getLocalNodeId().equals(owner)).findFirst().orElseThrow();
+    }
+
+    private Node anyPeerOf(String matchId) {
+        Node owner = ownerOf(matchId);
+        return nodes.stream().filter(node -> node != owner).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testAllNodesAgreeOnOwnerAndMatchesSpread() {
+        Set<String> owners = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            String matchId = "m" + i;
+            String owner = nodes.get(0).clusterNode.ownerOf(matchId);
+            for (Node node : nodes) {
+                assertEquals(owner, node.clusterNode.ownerOf(matchId));
+            }
+            owners.add(owner);
+        }
+        assertEquals(3, owners.size());
+    }
+
+    @Test
+    void testNonOwnerRejectsMatchRequests() {
+        NotMatchOwnerException e = assertThrows(NotMatchOwnerException.class,
+                () -> anyPeerOf("7").tankService.getAllTanks("7"));
+        assertEquals(ownerOf("7").clusterNode.getLocalNodeId(), e.getOwner());
+    }
+
+    @Test
+    void testInputOnPeerIsAppliedByOwnerAndEventsReachEveryNode() throws Exception {
+        Node owner = ownerOf("7");
+        Node peer = anyPeerOf("7");
+        Tank tank = owner.tankService.saveTank("7", "Tank1", sessionTokens.hash("Tank1"));
+        SessionTokens.Claims claims = sessionTokens.verify(owner.tankService.issueSessionToken("7", "Tank1"));
+
+        assertTrue(peer.tankService.updateTankPosition(claims, "Tank1", 1, 8, 2, 8, 0));
+
+        Match match = owner.registry.find("7");
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (match.getQueuedInputs() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        owner.tankService.tick(match);
+
+        assertEquals(2, tank.getPosx());
+        assertEquals(1, peer.clusterNode.getForwardedInputs());
+        verify(owner.msgt).convertAndSend(eq("/topic/matches/7/movement"), any(Object.class));
+        for (Node node : nodes) {
+            if (node != owner) {
+                verify(node.msgt, timeout(2_000)).send(eq("/topic/matches/7/movement"), argThat(this::isMovedTank1));
+            }
+        }
+    }
+
+    // Los demás nodos reciben el JSON que el dueño serializó en su hilo, no el tanque vivo
+    private boolean isMovedTank1(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return false;
+        }
+        try {
+            JsonNode tank = new ObjectMapper().readTree(payload);
+            return MimeTypeUtils.APPLICATION_JSON.equals(message.getHeaders().get(MessageHeaders.CONTENT_TYPE))
+                    && "Tank1".equals(tank.path("name").asText()) && tank.path("posx").asInt() == 2;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package edu.eci.arsw.service;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import edu.escuelaing.co.leotankcicos.codec.BinaryFrameMessageConverter;
+import edu.escuelaing.co.leotankcicos.codec.GameFrames;
+import edu.escuelaing.co.leotankcicos.model.MoveCommand;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+
+class GameFramesTest {
+
+    @Test
+    void testMoveRoundTrip() {
+        byte[] frame = GameFrames.encodeMove(new MoveCommand(1, 8, 2, 8, -90));
+        MoveCommand move = GameFrames.decodeMove(frame);
+
+        assertEquals(11, frame.length);
+        assertEquals(1, move.getPosX());
+        assertEquals(8, move.getPosY());
+        assertEquals(2, move.getNewPosX());
+        assertEquals(8, move.getNewPosY());
+        assertEquals(-90, move.getRotation());
+    }
+
+    @Test
+    void testMoveCarriesSequenceOnlyWhenSet() {
+        byte[] frame = GameFrames.encodeMove(new MoveCommand(1, 8, 2, 8, 0, 42));
+
+        assertEquals(15, frame.length);
+        assertEquals(42, GameFrames.decodeMove(frame).getSeq());
+        assertEquals(0, GameFrames.decodeMove(GameFrames.encodeMove(new MoveCommand(1, 8, 2, 8, 0))).getSeq());
+    }
+
+    @Test
+    void testShootRoundTrip() {
+        assertEquals("bullet-ñ-1", GameFrames.decodeShoot(GameFrames.encodeShoot("bullet-ñ-1")));
+    }
+
+    @Test
+    void testEventRoundTrips() {
+        Tank tank = new Tank(13, 8, "#001ba1", 180, "Tank2");
+
+        Tank moved = GameFrames.decodeMovement(GameFrames.encodeMovement(tank));
+        assertEquals("Tank2", moved.getName());
+        assertEquals(13, moved.getPosx());
+        assertEquals(180, moved.getRotation());
+
+        Map<String, String> collision = GameFrames.decodeCollision(GameFrames.encodeCollision("Tank2", 13, 8, "b1"));
+        assertEquals(Map.of("tank", "Tank2", "x", "13", "y", "8", "bulletId", "b1"), collision);
+
+        Tank winner = GameFrames.decodeWinner(GameFrames.encodeWinner(tank));
+        assertEquals("#001ba1", winner.getColor());
+    }
+
+    @Test
+    void testMalformedFramesAreRejected() {
+        byte[] move = GameFrames.encodeMove(new MoveCommand(1, 1, 1, 2, 90));
+        byte[] truncated = java.util.Arrays.copyOf(move, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> GameFrames.decodeMove(truncated));
+        assertThrows(IllegalArgumentException.class, () -> GameFrames.decodeShoot(move));
+        assertThrows(IllegalArgumentException.class, () -> GameFrames.decodeMove(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> GameFrames.encodeMove(new MoveCommand(0, 0, 40000, 0, 0)));
+    }
+
+    @Test
+    void testConverterOnlyHandlesCodecContentType() {
+        BinaryFrameMessageConverter converter = new BinaryFrameMessageConverter();
+        byte[] frame = GameFrames.encodeMove(new MoveCommand(1, 8, 2, 8, 0));
+
+        SimpMessageHeaderAccessor binary = SimpMessageHeaderAccessor.create();
+        binary.setContentType(GameFrames.MIME_TYPE);
+        Message<byte[]> binaryMessage = MessageBuilder.createMessage(frame, binary.getMessageHeaders());
+        assertInstanceOf(MoveCommand.class, converter.fromMessage(binaryMessage, MoveCommand.class));
+
+        SimpMessageHeaderAccessor json = SimpMessageHeaderAccessor.create();
+        json.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        Message<byte[]> jsonMessage = MessageBuilder.createMessage("{}".getBytes(), json.getMessageHeaders());
+        assertNull(converter.fromMessage(jsonMessage, MoveCommand.class));
+    }
+}
@@ -0,0 +1,93 @@
+package edu.eci.arsw.service;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.GameMap;
+import edu.escuelaing.co.leotankcicos.model.WallDistances;
+
+class GameMapTest {
+
+    @Test
+    void testParseInstructions() throws Exception {
+        GameMap map = GameMap.parse("test", new StringReader("""
+                # comentario
+                size 6 4
+                border
+                wall 2 1 1 2
+                spawn 1 1 #ffffff
+                spawn 4 2
+                """));
+
+        Board board = new Board("1", map);
+
+        assertEquals("test", map.getName());
+        assertEquals(6, board.getWidth());
+        assertTrue(board.isWall(0, 3));
+        assertTrue(board.isWall(2, 2));
+        assertTrue(board.isEmpty(3, 1));
+        assertEquals("#ffffff", map.getSpawns().get(0).getColor());
+        assertEquals(4, map.getSpawns().get(1).getX());
+    }
+
+    @Test
+    void testSpawnOnWallIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> GameMap.parse("bad", new StringReader("""
+                size 4 4
+                border
+                spawn 0 0
+                """)));
+    }
+
+    @Test
+    void testWallDistancesMatchWalkingTheBoard() throws Exception {
+        GameMap open = GameMap.parse("open", new StringReader("""
+                size 7 5
+                wall 3 0 1 3
+                wall 4 2 2 1
+                spawn 0 0
+                """));
+        for (GameMap map : new GameMap[]{GameMap.classic(), open}) {
+            Board board = new Board("1", map);
+            WallDistances walls = map.getWallDistances();
+            int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+            for (int y = 0; y < map.getHeight(); y++) {
+                for (int x = 0; x < map.getWidth(); x++) {
+                    if (board.isWall(x, y)) {
+                        continue;
+                    }
+                    for (int[] d : directions) {
+                        int free = 0;
+                        while (board.isInside(x + d[0] * (free + 1), y + d[1] * (free + 1))
+                                && !board.isWall(x + d[0] * (free + 1), y + d[1] * (free + 1))) {
+                            free++;
+                        }
+                        assertEquals(free, walls.distance(x, y, d[0], d[1]), map.getName() + " " + x + "," + y);
+                        assertEquals(board.isInside(x + d[0] * (free + 1), y + d[1] * (free + 1)),
+                                walls.endsAtWall(x, y, d[0], d[1]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCatalogLoadsResourceMaps() {
+        MatchProperties properties = new MatchProperties();
+        properties.setMap("arena-1000");
+        MapCatalog catalog = new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, properties);
+
+        assertTrue(catalog.getNames().contains(GameMap.CLASSIC));
+        assertEquals("arena-1000", catalog.getDefault().getName());
+        assertEquals(8, catalog.getDefault().getSpawns().size());
+        assertEquals(GameMap.classic(), catalog.get(null));
+        assertThrows(IllegalStateException.class, () -> catalog.get("missing"));
+    }
+}
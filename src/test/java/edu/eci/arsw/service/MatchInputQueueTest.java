@@ -0,0 +1,114 @@
+package edu.eci.arsw.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchCommand;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MatchInputQueueTest {
+
+    private MatchRegistry registry;
+    private Match match;
+
+    @BeforeEach
+    void setUp() {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(60_000);
+        properties.setMaxQueuedInputs(4);
+        registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+        match = registry.getOrCreate("1", Board::new);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void testInputsAreDrainedInArrivalOrder() {
+        match.enqueue(MatchCommand.shoot("Tank1", "b1"));
+        match.enqueue(MatchCommand.move("Tank2", 1, 1, 2, 1, 0));
+        match.enqueue(MatchCommand.shoot("Tank1", "b2"));
+
+        List<String> applied = new ArrayList<>();
+        int drained = match.drainInputs(command -> applied.add(command.getUsername() + ":" + command.getType()));
+
+        assertEquals(3, drained);
+        assertEquals(List.of("Tank1:SHOOT", "Tank2:MOVE", "Tank1:SHOOT"), applied);
+        assertEquals(0, match.getQueuedInputs());
+        assertEquals(3, match.getLastDrainCount());
+    }
+
+    @Test
+    void testInputsArrivingDuringDrainWaitForNextTick() {
+        match.enqueue(MatchCommand.shoot("Tank1", "b1"));
+
+        int drained = match.drainInputs(command -> match.enqueue(MatchCommand.shoot("Tank1", "b2")));
+
+        assertEquals(1, drained);
+        assertEquals(1, match.getQueuedInputs());
+    }
+
+    @Test
+    void testFullQueueDropsInputs() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(match.enqueue(MatchCommand.shoot("Tank1", "b" + i)));
+        }
+
+        assertFalse(match.enqueue(MatchCommand.shoot("Tank1", "b4")));
+        assertEquals(4, match.getQueuedInputs());
+        assertEquals(1, match.getDroppedInputs());
+    }
+
+    @Test
+    void testConcurrentProducersLoseNothing() throws InterruptedException {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(60_000);
+        properties.setMaxQueuedInputs(100_000);
+        MatchRegistry large = new MatchRegistry(properties, new SimpleMeterRegistry());
+        Match target = large.getOrCreate("1", Board::new);
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < 4; p++) {
+                producers.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 1_000; i++) {
+                        target.enqueue(MatchCommand.shoot("Tank1", "b"));
+                    }
+                });
+            }
+            start.countDown();
+            producers.shutdown();
+            assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(4_000, target.drainInputs(command -> { }));
+            assertEquals(0, target.getQueuedInputs());
+        } finally {
+            large.shutdown();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package edu.eci.arsw.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.Mockito.mock;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.journal.EventJournal;
+import edu.escuelaing.co.leotankcicos.journal.JournalRecord;
+import edu.escuelaing.co.leotankcicos.journal.MatchJournal;
+import edu.escuelaing.co.leotankcicos.journal.RecoveredMatch;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
+import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
+import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+import edu.escuelaing.co.leotankcicos.service.TankService;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MatchJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final SessionTokens sessionTokens = new SessionTokens("test-secret", false);
+    private final List<Server> servers = new ArrayList<>();
+
+    // Un arranque del servidor sobre el mismo directorio del diario
+    private final class Server {
+        private final MatchRegistry registry;
+        private final WriteBehindStore writeBehindStore;
+        private final MatchJournal journal;
+        private final TankService tankService;
+
+        private Server(int snapshotEvery) throws Exception {
+            MatchProperties properties = new MatchProperties();
+            properties.setWorkers(1);
+            properties.setTickMillis(60_000);
+            properties.setBulletStepTicks(1);
+            TankRepository tanks = mock(TankRepository.class);
+            BoardRepository boards = mock(BoardRepository.class);
+            registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+            writeBehindStore = new WriteBehindStore(tanks, boards, 60_000, 1_000);
+            journal = new MatchJournal(directory, 4_096, snapshotEvery);
+            tankService = new TankService(boards,
+                    new StateBroadcaster(mock(SimpMessagingTemplate.class), true, false, false, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry()),
+                    tanks, registry, writeBehindStore, sessionTokens,
+                    new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, properties), ClusterNode.standalone(), journal);
+            servers.add(this);
+        }
+
+        // Simula la caída: se apaga sin el flush del write-behind
+        private void crash() throws Exception {
+            registry.shutdown();
+            writeBehindStore.shutdown();
+            journal.close();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Server server : servers) {
+            server.crash();
+        }
+    }
+
+    @Test
+    void testJournalRollsSegmentsAndResumesSequenceAfterReopen() throws Exception {
+        Tank tank = new Tank(1, 2, "#fff", 0, "Tank1");
+        try (EventJournal journal = new EventJournal(directory, 256)) {
+            for (int i = 0; i < 20; i++) {
+                tank.setPosx(i);
+                journal.append(JournalRecord.move("1", tank));
+            }
+            assertTrue(journal.getSegmentCount() > 1);
+        }
+        try (EventJournal journal = new EventJournal(directory, 256)) {
+            assertEquals(20, journal.getLastSeq());
+            assertEquals(21, journal.append(JournalRecord.reset("1")));
+            List<Long> seqs = new ArrayList<>();
+            List<Integer> xs = new ArrayList<>();
+            journal.replay(15, (seq, record) -> {
+                seqs.add(seq);
+                xs.add(record.getX());
+            });
+            assertEquals(List.of(15L, 16L, 17L, 18L, 19L, 20L, 21L), seqs);
+            assertEquals(List.of(14, 15, 16, 17, 18, 19, 0), xs);
+        }
+    }
+
+    @Test
+    void testRestartRecoversTanksAndBulletsFromJournal() throws Exception {
+        Server first = new Server(1_000);
+        first.tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        first.tankService.saveTank("1", "Tank2", sessionTokens.hash("Tank2"));
+        first.tankService.updateTankPosition("Tank1", 1, 8, 2, 8, 0);
+        first.tankService.shoot("Tank1", "bullet-1");
+        Match match = first.registry.find("1");
+        first.tankService.tick(match);
+        first.crash();
+
+        Server second = new Server(1_000);
+        second.tankService.restoreMatches();
+        Match recovered = second.registry.find("1");
+        assertNotNull(recovered);
+        Tank tank1 = recovered.supply(() -> recovered.getTank("Tank1"));
+        assertEquals(2, tank1.getPosx());
+        assertEquals(8, tank1.getPosy());
+        assertEquals(0, tank1.getRotation());
+        assertEquals(tank1, recovered.supply(() -> recovered.getTankAt(2, 8)));
+        assertNotNull(recovered.supply(() -> recovered.getTank("Tank2")));
+        // La bala salió hacia la derecha desde (2,8) y avanzó un paso
+        assertEquals(1, (int) recovered.supply(() -> recovered.getLiveBullets().size()));
+        assertEquals(3, (int) recovered.supply(() -> recovered.getLiveBullets().get(0).getX()));
+        // El siguiente jugador recibe el tercer spawn, no el de Tank2
+        Tank tank3 = second.tankService.saveTank("1", "Tank3", sessionTokens.hash("Tank3"));
+        assertEquals(13, tank3.getPosx());
+        assertEquals(1, tank3.getPosy());
+    }
+
+    @Test
+    void testSnapshotsLetRecoveryReplayOnlyTheTail() throws Exception {
+        Server first = new Server(50);
+        first.tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        Match match = first.registry.find("1");
+        for (int i = 0; i < 500; i++) {
+            int x = i % 2 == 0 ? 2 : 1;
+            first.tankService.updateTankPosition("Tank1", 3 - x, 8, x, 8, 0);
+            first.tankService.tick(match);
+        }
+        first.tankService.updateTankPosition("Tank1", 1, 8, 2, 8, 180);
+        first.tankService.tick(match);
+        first.crash();
+
+        // Con segmentos de 4 KB, 500 movimientos ocupan varios; los anteriores al snapshot se borraron
+        try (EventJournal segments = new EventJournal(directory.resolve("segments"), 4_096)) {
+            assertTrue(segments.getSegmentCount() <= 2);
+        }
+        Server second = new Server(50);
+        Collection<RecoveredMatch> recovered = second.journal.recover();
+        assertEquals(1, recovered.size());
+        RecoveredMatch state = recovered.iterator().next();
+        assertEquals(502, state.getSeq());
+        Tank tank = state.getTanks().iterator().next();
+        assertEquals(2, tank.getPosx());
+        assertEquals(180, tank.getRotation());
+    }
+
+    // 500 movimientos en la partida "2" ocupan varios segmentos de 4 KB
+    private void moveBackAndForth(Server server, String username, Match match) {
+        for (int i = 0; i < 500; i++) {
+            int x = i % 2 == 0 ? 2 : 1;
+            server.tankService.updateTankPosition(username, 3 - x, 8, x, 8, 0);
+            server.tankService.tick(match);
+        }
+    }
+
+    private int segmentCount() throws Exception {
+        try (EventJournal segments = new EventJournal(directory.resolve("segments"), 4_096)) {
+            return segments.getSegmentCount();
+        }
+    }
+
+    @Test
+    void testFinishedMatchIsForgottenAndDoesNotHoldSegments() throws Exception {
+        Server first = new Server(50);
+        first.tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        first.tankService.handleWinner("1");
+        first.tankService.tick(first.registry.find("1"));
+        assertNull(first.registry.find("1"));
+
+        first.tankService.saveTank("2", "Tank2", sessionTokens.hash("Tank2"));
+        moveBackAndForth(first, "Tank2", first.registry.find("2"));
+        first.crash();
+
+        assertTrue(segmentCount() <= 2);
+        assertFalse(Files.exists(directory.resolve("snapshots").resolve("match-1.snap")));
+        Server second = new Server(50);
+        Collection<RecoveredMatch> recovered = second.journal.recover();
+        assertEquals(List.of("2"), recovered.stream().map(RecoveredMatch::getMatchId).toList());
+    }
+
+    @Test
+    void testIdleMatchIsSnapshottedAndDoesNotHoldSegments() throws Exception {
+        Server first = new Server(50);
+        first.tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        Match idle = first.registry.find("1");
+        first.tankService.saveTank("2", "Tank2", sessionTokens.hash("Tank2"));
+        Match busy = first.registry.find("2");
+        moveBackAndForth(first, "Tank2", busy);
+        // Sin registros nuevos durante un rato la partida quieta toma su snapshot y deja de frenar el borrado
+        for (int i = 0; i < 200; i++) {
+            first.tankService.tick(idle);
+        }
+        first.crash();
+
+        assertTrue(segmentCount() <= 2);
+        Server second = new Server(50);
+        second.tankService.restoreMatches();
+        Match recovered = second.registry.find("1");
+        assertNotNull(recovered);
+        assertNotNull(recovered.supply(() -> recovered.getTank("Tank1")));
+    }
+}
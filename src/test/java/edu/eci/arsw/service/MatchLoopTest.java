@@ -0,0 +1,55 @@
+package edu.eci.arsw.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import edu.escuelaing.co.leotankcicos.engine.MatchLoop;
+
+class MatchLoopTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testLoopRunsTicksUntilStopped() throws InterruptedException {
+        CountDownLatch ticks = new CountDownLatch(3);
+        MatchLoop loop = new MatchLoop("test-loop", executor, 5, ticks::countDown);
+
+        loop.start();
+        assertTrue(loop.isRunning());
+        assertTrue(ticks.await(2, TimeUnit.SECONDS));
+
+        loop.stop();
+        assertFalse(loop.isRunning());
+    }
+
+    @Test
+    void testLoopSurvivesFailingTick() throws InterruptedException {
+        CountDownLatch ticks = new CountDownLatch(2);
+        MatchLoop loop = new MatchLoop("test-loop", executor, 5, () -> {
+            ticks.countDown();
+            throw new IllegalStateException("boom");
+        });
+
+        loop.start();
+        assertTrue(ticks.await(2, TimeUnit.SECONDS));
+        loop.stop();
+    }
+
+    @Test
+    void testInvalidTickRate() {
+        assertThrows(IllegalArgumentException.class, () -> new MatchLoop("test-loop", executor, 0, () -> { }));
+    }
+}
@@ -0,0 +1,102 @@
+package edu.eci.arsw.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MatchRegistryTest {
+
+    private MatchRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(2);
+        properties.setTickMillis(60_000);
+        properties.setBulletStepTicks(1);
+        registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void testGetOrCreateReturnsSameMatch() {
+        Match first = registry.getOrCreate("a", Board::new);
+        Match again = registry.getOrCreate("a", Board::new);
+
+        assertSame(first, again);
+        assertEquals("a", first.getBoard().getId());
+        assertEquals(3, first.getMaxPlayers());
+    }
+
+    @Test
+    void testMatchesAreSpreadAcrossWorkers() {
+        Match a = registry.getOrCreate("a", Board::new);
+        Match b = registry.getOrCreate("b", Board::new);
+
+        assertNotSame(a.getWorker(), b.getWorker());
+        assertEquals(1, a.getWorker().getAssignedMatches());
+        assertEquals(1, b.getWorker().getAssignedMatches());
+    }
+
+    @Test
+    void testCallRunsOnOwnerThread() throws Exception {
+        Match match = registry.getOrCreate("a", Board::new);
+
+        assertTrue(match.call(() -> match.getWorker().isOwnerThread()));
+        // Llamadas anidadas desde el mismo hilo no deben bloquearse
+        assertTrue(match.call(() -> match.call(() -> match.getWorker().isOwnerThread())));
+    }
+
+    @Test
+    void testRemoveReleasesWorker() {
+        Match match = registry.getOrCreate("a", Board::new);
+        registry.remove("a");
+
+        assertNull(registry.find("a"));
+        assertEquals(0, match.getWorker().getAssignedMatches());
+    }
+
+    @Test
+    void testLosingCreationIsDiscarded() {
+        Match[] first = new Match[1];
+        // Otro hilo publica la partida mientras esta todavía se está cargando
+        Match match = registry.getOrCreate("a", Board::new, loading -> first[0] = registry.getOrCreate("a", Board::new));
+
+        assertSame(first[0], match);
+        assertEquals(1, match.getWorker().getAssignedMatches());
+        assertNotSame(match.getWorker(), registry.getOrCreate("b", Board::new).getWorker());
+    }
+
+    @Test
+    void testRestoredTanksAreBoundAndUnboundWithTheirMatch() {
+        Match match = registry.getOrCreate("a", Board::new, loading -> {
+            Tank tank = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+            loading.addTank(tank);
+            loading.placeTank(tank, 1, 8);
+        });
+        Match other = registry.getOrCreate("b", Board::new);
+        registry.bindPlayer("Tank2", other);
+
+        assertSame(match, registry.findByPlayer("Tank1"));
+        registry.remove("a");
+
+        assertNull(registry.findByPlayer("Tank1"));
+        assertSame(other, registry.findByPlayer("Tank2"));
+    }
+}
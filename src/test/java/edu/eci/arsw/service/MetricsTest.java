@@ -0,0 +1,102 @@
+package edu.eci.arsw.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.metrics.InboundMessageMetrics;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static Message<byte[]> stomp(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void testInboundDestinationsAreNormalized() {
+        InboundMessageMetrics metrics = new InboundMessageMetrics(meterRegistry);
+
+        metrics.preSend(stomp(StompCommand.SEND, "/app/Tank1/move"), null);
+        metrics.preSend(stomp(StompCommand.SEND, "/app/Tank2/move"), null);
+        metrics.preSend(stomp(StompCommand.SUBSCRIBE, "/topic/matches/7/state"), null);
+
+        assertEquals(2.0, meterRegistry.get("leotankcicos.stomp.inbound")
+                .tags("command", "SEND", "destination", "/app/*/move").counter().count());
+        assertEquals(1.0, meterRegistry.get("leotankcicos.stomp.inbound")
+                .tags("command", "SUBSCRIBE", "destination", "/topic/matches/*/state").counter().count());
+    }
+
+    @Test
+    void testClientChosenSegmentsDoNotCreateSeries() {
+        InboundMessageMetrics metrics = new InboundMessageMetrics(meterRegistry);
+
+        for (int i = 0; i < 50; i++) {
+            metrics.preSend(stomp(StompCommand.SUBSCRIBE, "/topic/spectate/7/client-" + i), null);
+            metrics.preSend(stomp(StompCommand.SUBSCRIBE, "/topic/matches/7/made-up-" + i), null);
+            metrics.preSend(stomp(StompCommand.SEND, "/app/Tank1/anything-" + i), null);
+        }
+
+        assertEquals(3, meterRegistry.find("leotankcicos.stomp.inbound").counters().size());
+        assertEquals(50.0, meterRegistry.get("leotankcicos.stomp.inbound")
+                .tags("command", "SUBSCRIBE", "destination", "/topic/spectate/*/*").counter().count());
+        assertEquals(50.0, meterRegistry.get("leotankcicos.stomp.inbound")
+                .tags("command", "SUBSCRIBE", "destination", "other").counter().count());
+        assertEquals(50.0, meterRegistry.get("leotankcicos.stomp.inbound")
+                .tags("command", "SEND", "destination", "other").counter().count());
+    }
+
+    @Test
+    void testBroadcastSendsAreTimedPerEvent() {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(60_000);
+        MatchRegistry registry = new MatchRegistry(properties, meterRegistry);
+        try {
+            Match match = registry.getOrCreate("1", Board::new);
+            StateBroadcaster broadcaster = new StateBroadcaster(mock(SimpMessagingTemplate.class), true, false, false, ClusterNode.standalone(), SpectatorHub.disabled(), meterRegistry);
+
+            broadcaster.movement(match, new Tank(1, 8, "#fa0a0a", 0, "Tank1"));
+
+            assertEquals(1, meterRegistry.get("leotankcicos.broadcast.send").tag("event", "movement").timer().count());
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void testTicksAreTimed() throws InterruptedException {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(5);
+        MatchRegistry registry = new MatchRegistry(properties, meterRegistry);
+        try {
+            registry.getOrCreate("1", Board::new);
+            Thread.sleep(100);
+
+            assertNotNull(meterRegistry.find("leotankcicos.match.tick").timer());
+            assertTrue(meterRegistry.get("leotankcicos.match.tick").timer().count() > 0);
+        } finally {
+            registry.shutdown();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package edu.eci.arsw.service;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+
+class SessionTokensTest {
+
+    private final SessionTokens sessionTokens = new SessionTokens("test-secret");
+
+    @Test
+    void testLoginHashMatchesHmacHex() {
+        // HMAC-SHA256("test-secret", "Tank1"), el mismo formato que calcula el cliente
+        String hash = sessionTokens.hash("Tank1");
+
+        assertEquals(64, hash.length());
+        assertTrue(sessionTokens.verifyLoginHash("Tank1", hash));
+        assertTrue(sessionTokens.verifyLoginHash("Tank1", hash.toUpperCase()));
+        assertFalse(sessionTokens.verifyLoginHash("Tank2", hash));
+        assertFalse(sessionTokens.verifyLoginHash("Tank1", "not-hex"));
+        assertFalse(sessionTokens.verifyLoginHash("Tank1", null));
+    }
+
+    @Test
+    void testTokenRoundTrip() {
+        String token = sessionTokens.issue("7", "Tank:1", 3);
+
+        SessionTokens.Claims claims = sessionTokens.verify(token);
+
+        assertNotNull(claims);
+        assertEquals("7", claims.getMatchId());
+        assertEquals("Tank:1", claims.getUsername());
+        assertEquals(3, claims.getSlot());
+    }
+
+    @Test
+    void testTamperedTokenIsRejected() {
+        String token = sessionTokens.issue("7", "Tank1", 3);
+        String forged = new SessionTokens("test-secret").issue("7", "Tank2", 3);
+        String mixed = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertNull(sessionTokens.verify(mixed));
+        assertNull(new SessionTokens("other-secret").verify(token));
+        assertNull(sessionTokens.verify("garbage"));
+        assertNull(sessionTokens.verify(null));
+    }
+
+    @Test
+    void testLoginHashIsNotAValidTokenSignature() {
+        String payload = sessionTokens.issue("7", "Tank1", 3).split("\\.")[0];
+        byte[] loginHash = HexFormat.of().parseHex(sessionTokens.hash("Tank1"));
+        String withLoginHash = payload + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Arrays.copyOf(loginHash, 16));
+
+        assertNull(sessionTokens.verify(withLoginHash));
+    }
+
+    @Test
+    void testMissingSecretFailsOnUse() {
+        SessionTokens unconfigured = new SessionTokens("");
+
+        assertThrows(IllegalStateException.class, () -> unconfigured.hash("Tank1"));
+    }
+}
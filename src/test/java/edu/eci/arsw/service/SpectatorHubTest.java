@@ -0,0 +1,215 @@
+package edu.eci.arsw.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.spectate.FrameRing;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SpectatorHubTest {
+
+    private static final String DESTINATION = SpectatorHub.SPECTATE_PREFIX + "1/viewer";
+
+    @TempDir
+    Path replays;
+
+    private final SimpMessagingTemplate msgt = mock(SimpMessagingTemplate.class);
+    private MatchRegistry registry;
+    private SpectatorHub hub;
+    private Match match;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(60_000);
+        registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+        hub = new SpectatorHub(msgt, true, 8, 4, 0, 256, replays.toString());
+        match = registry.getOrCreate("1", Board::new);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+        registry.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> sentEvents(String destination, int count) {
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(msgt, times(count)).send(eq(destination), messages.capture());
+        clearInvocations(msgt);
+        return messages.getAllValues().stream()
+                .map(message -> SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(SpectatorHub.EVENT_HEADER))
+                .toList();
+    }
+
+    @Test
+    void testRingDropsOldestFramesAndFindsLatestKeyframe() {
+        FrameRing ring = new FrameRing(4);
+        ring.publish(10, "state", true, new byte[0]);
+        ring.publish(20, "state", false, new byte[0]);
+        ring.publish(30, "state", true, new byte[0]);
+        ring.publish(40, "state", false, new byte[0]);
+        ring.publish(50, "state", false, new byte[0]);
+
+        assertNull(ring.get(0));
+        assertEquals(1, ring.getOldestSeq());
+        assertEquals(2, ring.findKeyframe(45));
+        assertEquals(1, ring.findKeyframe(25));
+    }
+
+    @Test
+    void testSpectatorStartsAtKeyframeAndRespectsDelay() {
+        hub.publish(match, "state", Map.of("n", 0));
+        hub.publishKeyframe(match, Map.of("n", 1));
+        hub.publish(match, "state", Map.of("n", 2));
+        long now = System.currentTimeMillis();
+
+        hub.watch("s1", DESTINATION, "1", 5_000);
+        hub.pump(now);
+        verify(msgt, never()).send(eq(DESTINATION), org.mockito.ArgumentMatchers.<Message<?>>any());
+
+        // Pasado el retraso recibe desde el keyframe; el delta anterior se descarta
+        hub.pump(now + 5_000);
+        assertEquals(List.of("state", "state"), sentEvents(DESTINATION, 2));
+    }
+
+    @Test
+    void testSlowSpectatorSkipsToLatestKeyframeInsteadOfBlockingPublisher() {
+        hub.watch("s1", DESTINATION, "1", 0);
+        hub.publishKeyframe(match, Map.of("n", 0));
+        // Más eventos que el anillo; el publicador nunca espera al espectador
+        for (int i = 1; i <= 20; i++) {
+            if (i % 4 == 0) {
+                hub.publishKeyframe(match, Map.of("n", i));
+            } else {
+                hub.publish(match, "state", Map.of("n", i));
+            }
+        }
+        hub.pump(System.currentTimeMillis());
+        // Desde el keyframe 20 no queda nada más: solo ese evento
+        assertEquals(1, sentEvents(DESTINATION, 1).size());
+    }
+
+    @Test
+    void testRoundIsRecordedAndPlayedBack() throws Exception {
+        hub.publishKeyframe(match, Map.of("n", 0));
+        hub.publish(match, "state", Map.of("n", 1));
+        hub.publish(match, "winner", new Tank(1, 8, "#fa0a0a", 0, "Tank1"));
+        hub.pump(System.currentTimeMillis());
+
+        List<String> recorded = hub.getReplays();
+        assertEquals(1, recorded.size());
+        assertNotNull(hub.getReplay(recorded.get(0)));
+        assertNull(hub.getReplay("../" + recorded.get(0)));
+
+        String destination = SpectatorHub.REPLAY_PREFIX + recorded.get(0) + "/viewer";
+        hub.playback("p1", destination, recorded.get(0));
+        long start = System.currentTimeMillis();
+        hub.pump(start);
+        hub.pump(start + 60_000);
+        hub.pump(start + 60_000);
+        List<String> events = sentEvents(destination, 4);
+        assertEquals(List.of("state", "state", "winner", SpectatorHub.REPLAY_END), events);
+        assertEquals(0, hub.getSpectatorCount());
+    }
+
+    @Test
+    void testBroadcasterFeedsSpectatorsWithoutTouchingPlayerTopics() {
+        StateBroadcaster broadcaster = new StateBroadcaster(msgt, false, false, false, ClusterNode.standalone(), hub, new SimpleMeterRegistry());
+        Tank tank = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        match.run(() -> {
+            match.addTank(tank);
+            match.placeTank(tank, 1, 8);
+            broadcaster.publishTick(match);
+            match.placeTank(tank, 2, 8);
+            match.getChanges().tankChanged("Tank1");
+            broadcaster.publishTick(match);
+        });
+        hub.watch("s1", DESTINATION, "1", 0);
+        hub.pump(System.currentTimeMillis());
+
+        // Snapshot inicial como keyframe y el delta del movimiento
+        assertEquals(List.of("state", "state"), sentEvents(DESTINATION, 2));
+        assertTrue(hub.isEnabled());
+    }
+
+    // Cuenta las veces que Jackson lo serializa
+    public static final class CountingPayload {
+        private final AtomicInteger serialized = new AtomicInteger();
+
+        public int getN() {
+            return serialized.incrementAndGet();
+        }
+    }
+
+    @Test
+    void testNothingIsSerializedWithoutSpectatorsAndKeyframesWaitForThePump() throws Exception {
+        SpectatorHub live = new SpectatorHub(msgt, true, 8, 4, 0, 256, null);
+        CountingPayload delta = new CountingPayload();
+        live.publish(match, "state", delta);
+        assertFalse(live.isActive(match));
+        assertFalse(live.needsKeyframe(match));
+        assertEquals(0, delta.serialized.get());
+        assertEquals(0, live.getFeedCount());
+
+        live.watch("s1", DESTINATION, "1", 0);
+        assertTrue(live.needsKeyframe(match));
+        CountingPayload keyframe = new CountingPayload();
+        live.publishKeyframe(match, keyframe);
+        assertEquals(0, keyframe.serialized.get());
+
+        live.pump(System.currentTimeMillis());
+        assertEquals(1, keyframe.serialized.get());
+        assertEquals(List.of("state"), sentEvents(DESTINATION, 1));
+
+        // Sin nadie mirando se suelta el anillo
+        live.stopWatching("s1");
+        assertEquals(0, live.getFeedCount());
+        live.shutdown();
+    }
+
+    @Test
+    void testEvictedMatchFeedIsRemovedAndItsRecordingClosed() throws Exception {
+        hub.publishKeyframe(match, Map.of("n", 0));
+        hub.publish(match, "state", Map.of("n", 1));
+        assertEquals(1, hub.getFeedCount());
+
+        hub.endFeed(match);
+        assertEquals(0, hub.getFeedCount());
+        hub.pump(System.currentTimeMillis());
+
+        assertEquals(1, hub.getReplays().size());
+    }
+}
@@ -0,0 +1,196 @@
+package edu.eci.arsw.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.broadcast.StateDelta;
+import edu.escuelaing.co.leotankcicos.broadcast.StateSnapshot;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.GameMap;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StateBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate msgt;
+
+    private MatchRegistry registry;
+    private StateBroadcaster broadcaster;
+    private Match match;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        MatchProperties properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(60_000);
+        properties.setBulletStepTicks(1);
+        registry = new MatchRegistry(properties, new SimpleMeterRegistry());
+        broadcaster = new StateBroadcaster(msgt, false, false, false, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry());
+        match = registry.getOrCreate("1", Board::new);
+        match.addTank(new Tank(1, 8, "#fa0a0a", 0, "Tank1"));
+        match.getBoard().putTank("Tank1", 1, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    private Object lastPublished() {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(msgt).convertAndSend(eq("/topic/matches/1/state"), payload.capture());
+        clearInvocations(msgt);
+        return payload.getValue();
+    }
+
+    @Test
+    void testNewBoardPublishesSnapshotFirst() {
+        broadcaster.publishTick(match);
+
+        StateSnapshot snapshot = assertInstanceOf(StateSnapshot.class, lastPublished());
+        assertEquals(1, snapshot.getSeq());
+        assertEquals("Tank1", snapshot.getBoxes()[8][1]);
+        assertEquals(1, snapshot.getTanks().size());
+    }
+
+    @Test
+    void testDeltaContainsOnlyChangedCells() {
+        broadcaster.publishTick(match);
+        lastPublished();
+
+        Tank tank = match.getTank("Tank1");
+        match.getBoard().clearBox(1, 8);
+        match.getBoard().putTank("Tank1", 2, 8);
+        tank.setPosx(2);
+        match.getChanges().tankChanged("Tank1");
+        broadcaster.publishTick(match);
+
+        StateDelta delta = assertInstanceOf(StateDelta.class, lastPublished());
+        assertEquals(2, delta.getSeq());
+        assertEquals(2, delta.getCells().size());
+        assertEquals("0", delta.getCells().get(0).getValue());
+        assertEquals("Tank1", delta.getCells().get(1).getValue());
+        assertEquals(List.of(tank), delta.getTanks());
+    }
+
+    @Test
+    void testNothingPublishedWithoutChanges() {
+        broadcaster.publishTick(match);
+        lastPublished();
+
+        broadcaster.publishTick(match);
+
+        verify(msgt, never()).convertAndSend(anyString(), any(Object.class));
+        assertEquals(1, match.getStateSeq());
+    }
+
+    @Test
+    void testResetPublishesSnapshotWithNextSeq() {
+        broadcaster.publishTick(match);
+        lastPublished();
+
+        match.getBoard().clearBoard();
+        broadcaster.publishTick(match);
+
+        StateSnapshot snapshot = assertInstanceOf(StateSnapshot.class, lastPublished());
+        assertEquals(2, snapshot.getSeq());
+        assertEquals("0", snapshot.getBoxes()[8][1]);
+    }
+
+    @Test
+    void testLegacyEventsCanBeDisabled() {
+        broadcaster.movement(match, match.getTank("Tank1"));
+        verify(msgt, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    /*Para el área de interés */
+    private Match arenaMatch(StateBroadcaster aoi, Tank... tanks) {
+        GameMap arena = new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, new MatchProperties()).get("arena-1000");
+        Match big = registry.getOrCreate("big", id -> new Board(id, arena));
+        for (Tank tank : tanks) {
+            big.addTank(tank);
+            big.placeTank(tank, tank.getPosx(), tank.getPosy());
+        }
+        aoi.publishTick(big);
+        clearInvocations(msgt);
+        return big;
+    }
+
+    @Test
+    void testMovementOnlyReachesNearbyPlayers() {
+        StateBroadcaster aoi = new StateBroadcaster(msgt, true, false, true, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry());
+        Tank near = new Tank(300, 300, "#fa0a0a", 0, "Near");
+        Tank neighbour = new Tank(318, 300, "#001ba1", 0, "Neighbour");
+        Tank far = new Tank(700, 700, "#f1c40f", 0, "Far");
+        Match big = arenaMatch(aoi, near, neighbour, far);
+
+        aoi.movement(big, near);
+
+        verify(msgt).convertAndSendToUser("Near", "/queue/matches/big/movement", near);
+        verify(msgt).convertAndSendToUser("Neighbour", "/queue/matches/big/movement", near);
+        verify(msgt, never()).convertAndSendToUser(eq("Far"), anyString(), any(Object.class));
+        verify(msgt, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void testDeltaIsFilteredPerRegion() {
+        StateBroadcaster aoi = new StateBroadcaster(msgt, true, false, true, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry());
+        Tank near = new Tank(300, 300, "#fa0a0a", 0, "Near");
+        Tank far = new Tank(700, 700, "#f1c40f", 0, "Far");
+        Match big = arenaMatch(aoi, near, far);
+
+        big.placeTank(near, 301, 300);
+        big.getChanges().tankChanged("Near");
+        aoi.publishTick(big);
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(msgt).convertAndSendToUser(eq("Near"), eq("/queue/matches/big/state"), payload.capture());
+        StateDelta delta = assertInstanceOf(StateDelta.class, payload.getValue());
+        assertEquals(List.of(near), delta.getTanks());
+        assertEquals(2, delta.getCells().size());
+        verify(msgt, never()).convertAndSendToUser(eq("Far"), anyString(), any(Object.class));
+    }
+
+    @Test
+    void testArrivingPlayerReceivesVisibleTanks() {
+        StateBroadcaster aoi = new StateBroadcaster(msgt, true, false, true, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry());
+        Tank mover = new Tank(300, 300, "#fa0a0a", 0, "Mover");
+        Tank idle = new Tank(325, 300, "#001ba1", 0, "Idle");
+        Match big = arenaMatch(aoi, mover, idle);
+
+        // Pasa de la región 18 a la 19, desde donde se ve la región del tanque quieto
+        big.placeTank(mover, 304, 300);
+        big.getChanges().tankChanged("Mover");
+        aoi.publishTick(big);
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(msgt).convertAndSendToUser(eq("Mover"), eq("/queue/matches/big/state"), payload.capture());
+        StateDelta delta = assertInstanceOf(StateDelta.class, payload.getValue());
+        assertTrue(delta.getTanks().contains(idle));
+    }
+}
@@ -23,6 +23,8 @@ import edu.escuelaing.co.exception.InvalidHashException;
 import edu.escuelaing.co.exception.RoomFullException;
 import edu.escuelaing.co.exception.TankExistsException;
 import edu.escuelaing.co.leotankcicos.controller.TankController;
+import edu.escuelaing.co.leotankcicos.engine.MatchNotFoundException;
+import edu.escuelaing.co.leotankcicos.engine.SerializedState;
 import edu.escuelaing.co.leotankcicos.model.Bullet;
 import edu.escuelaing.co.leotankcicos.model.Tank;
 import edu.escuelaing.co.leotankcicos.service.TankService;
@@ -57,7 +59,7 @@ class TankControllerTest {
         Map<String, Object> request = Map.of("username", username, "hash", hash);
 
         Tank mockTank = new Tank(1, 8, "#fa0a0a", 0,username);
-        when(tankService.saveTank(username, hash)).thenReturn(mockTank);
+        when(tankService.saveTank("1", username, hash)).thenReturn(mockTank);
 
         ResponseEntity<Tank> response = tankController.createTank(request, session);
 
@@ -80,7 +82,7 @@ class TankControllerTest {
     void testGetAllTanks() {
         Tank tank1 = new Tank(1, 8, "#fa0a0a", 0,"tank1");
         Tank tank2 = new Tank(1, 8, "#fa0a0a", 0,"tank2");
-        when(tankService.getAllTanks()).thenReturn(List.of(tank1, tank2));
+        when(tankService.getAllTanks("1")).thenReturn(List.of(tank1, tank2));
 
         ResponseEntity<List<Tank>> response = tankController.getAllTanks();
 
@@ -156,4 +158,27 @@ class TankControllerTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStateIsNotResentWhileSeqIsUnchanged() {
+        SerializedState state = new SerializedState(4, "\"abc-4\"", "{}".getBytes());
+        when(tankService.getSerializedState("1")).thenReturn(state);
+
+        ResponseEntity<byte[]> first = tankController.getState("1", null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals("\"abc-4\"", first.getHeaders().getETag());
+
+        ResponseEntity<byte[]> again = tankController.getState("1", "\"abc-3\", \"abc-4\"");
+        assertEquals(HttpStatus.NOT_MODIFIED, again.getStatusCode());
+        assertNull(again.getBody());
+    }
+
+    @Test
+    void testUnknownMatchIsNotFound() {
+        MatchNotFoundException missing = new MatchNotFoundException("9");
+        when(tankService.getStateSnapshot("9")).thenThrow(missing);
+
+        assertNull(tankController.subscribeState("9"));
+        assertEquals(HttpStatus.NOT_FOUND, tankController.handleMatchNotFound(missing).getStatusCode());
+    }
+}
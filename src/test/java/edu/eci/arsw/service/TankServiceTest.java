@@ -1,52 +1,107 @@
 package edu.eci.arsw.service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import static org.mockito.ArgumentMatchers.any;
-import org.mockito.InjectMocks;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import edu.escuelaing.co.exception.InvalidHashException;
+import edu.escuelaing.co.leotankcicos.auth.SessionTokens;
+import edu.escuelaing.co.leotankcicos.broadcast.BulletEnd;
+import edu.escuelaing.co.leotankcicos.broadcast.BulletState;
+import edu.escuelaing.co.leotankcicos.broadcast.InputAck;
+import edu.escuelaing.co.leotankcicos.broadcast.StateBroadcaster;
+import edu.escuelaing.co.leotankcicos.broadcast.StateDelta;
+import edu.escuelaing.co.leotankcicos.cluster.ClusterNode;
+import edu.escuelaing.co.leotankcicos.engine.BulletPool;
+import edu.escuelaing.co.leotankcicos.engine.MapCatalog;
+import edu.escuelaing.co.leotankcicos.engine.Match;
+import edu.escuelaing.co.leotankcicos.engine.MatchNotFoundException;
+import edu.escuelaing.co.leotankcicos.engine.MatchProperties;
+import edu.escuelaing.co.leotankcicos.engine.MatchRegistry;
+import edu.escuelaing.co.leotankcicos.engine.SerializedState;
+import edu.escuelaing.co.leotankcicos.engine.TimerWheel;
+import edu.escuelaing.co.leotankcicos.journal.MatchJournal;
 import edu.escuelaing.co.leotankcicos.model.Board;
 import edu.escuelaing.co.leotankcicos.model.Bullet;
 import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
 import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
-import edu.escuelaing.co.leotankcicos.repository.BulletRepository;
 import edu.escuelaing.co.leotankcicos.repository.TankRepository;
 import edu.escuelaing.co.leotankcicos.service.TankService;
+import edu.escuelaing.co.leotankcicos.spectate.SpectatorHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 class TankServiceTest {
 
     @Mock
     private TankRepository tankRepository;
     @Mock
-    private BulletRepository bulletRepository;
-    @Mock
     private BoardRepository boardRepository;
     @Mock
     private SimpMessagingTemplate msgt;
 
-    @InjectMocks
+    private MatchProperties properties;
+    private MatchRegistry matchRegistry;
+    private WriteBehindStore writeBehindStore;
     private TankService tankService;
+    // La mayoría de las pruebas mandan entradas sin token, por el nombre de la ruta
+    private final SessionTokens sessionTokens = new SessionTokens("test-secret", false);
     
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        reset(tankRepository, bulletRepository, boardRepository);
+        reset(tankRepository, boardRepository);
+        properties = new MatchProperties();
+        properties.setWorkers(1);
+        properties.setTickMillis(60_000);
+        properties.setBulletStepTicks(1);
+        matchRegistry = new MatchRegistry(properties, new SimpleMeterRegistry());
+        writeBehindStore = new WriteBehindStore(tankRepository, boardRepository, 60_000, 1_000);
+        tankService = new TankService(boardRepository, new StateBroadcaster(msgt, true, false, false, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry()), tankRepository, matchRegistry, writeBehindStore, sessionTokens,
+                new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, properties), ClusterNode.standalone(), MatchJournal.disabled());
+    }
+
+    @AfterEach
+    void tearDown() {
+        matchRegistry.shutdown();
+        writeBehindStore.shutdown();
+    }
+
+    // Los tanques persistidos se cargan en memoria al crear la partida
+    private void givenPersistedTanks(Tank... tanks) {
+        String matchId = tanks[0].getMatchId() != null ? tanks[0].getMatchId() : MatchRegistry.DEFAULT_MATCH_ID;
+        when(tankRepository.findByMatchId(matchId)).thenReturn(List.of(tanks));
+        tankService.getMatch(matchId);
     }
 
     /*Para GetTankByID */
@@ -54,7 +109,7 @@ class TankServiceTest {
     void testGetTankById_TankExists() {
         String name = "Tank1";
         Tank mockTank = new Tank(1, 8, "#fa0a0a", 0, name);
-        when(tankRepository.findById(name)).thenReturn(Optional.of(mockTank));
+        givenPersistedTanks(mockTank);
         Tank result = tankService.getTankById(name);
         assertNotNull(result);
         assertEquals(name, result.getName());
@@ -64,8 +119,6 @@ class TankServiceTest {
     void testGetTankById_TankNotFound() {
         String name = "NonExistingTank";
 
-        when(tankRepository.findById(name)).thenReturn(Optional.empty());
-
         Tank result = tankService.getTankById(name);
 
         assertNull(result);
@@ -78,15 +131,14 @@ class TankServiceTest {
         String bulletId = "bullet123";
         
         Tank mockTank = new Tank(1, 8, "#fa0a0a", 0, username);
-        when(tankRepository.findById(username)).thenReturn(Optional.of(mockTank));
+        givenPersistedTanks(mockTank);
 
-        Bullet mockBullet = new Bullet(bulletId, 1, 8, 0, false, username);
-        when(bulletRepository.save(any(Bullet.class))).thenReturn(mockBullet);
+        assertTrue(tankService.shoot(username, bulletId));
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        tankService.tick(match);
 
-        Bullet result = tankService.shoot(username, bulletId);
-
-        assertNotNull(result);
-        assertEquals(bulletId, result.getId());
+        assertEquals(1, match.getLiveBullets().size());
+        assertEquals(bulletId, match.getLiveBullets().get(0).getId());
     }
 
     @Test
@@ -94,31 +146,267 @@ class TankServiceTest {
         String username = "Tank1";
         String bulletId = "bullet123";
 
-        when(tankRepository.findById(username)).thenReturn(Optional.empty());
+        assertFalse(tankService.shoot(username, bulletId));
+    }
+    /*Para el login y los tokens de sesión */
+    @Test
+    void testSaveTankIssuesSessionToken() throws Exception {
+        Tank tank = tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
 
-        Bullet result = tankService.shoot(username, bulletId);
+        SessionTokens.Claims claims = sessionTokens.verify(tankService.issueSessionToken("1", "Tank1"));
+        assertNotNull(claims);
+        assertEquals("1", claims.getMatchId());
+        assertEquals("Tank1", claims.getUsername());
 
-        assertNull(result);
+        assertTrue(tankService.updateTankPosition(claims, "Tank1", 1, 8, 2, 8, 0));
+        tankService.tick(tankService.getMatch("1"));
+        assertEquals(2, tank.getPosx());
+    }
+
+    @Test
+    void testSaveTankRejectsInvalidHash() {
+        assertThrows(InvalidHashException.class, () -> tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank2")));
+        assertNull(tankService.getTankById("Tank1"));
+    }
+
+    @Test
+    void testSessionTokenOnlyMovesItsOwnTank() throws Exception {
+        tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        tankService.saveTank("1", "Tank2", sessionTokens.hash("Tank2"));
+        SessionTokens.Claims claims = sessionTokens.verify(tankService.issueSessionToken("1", "Tank1"));
+
+        assertFalse(tankService.updateTankPosition(claims, "Tank2", 13, 8, 12, 8, 0));
+        assertFalse(tankService.shoot(claims, "Tank2", "bullet123"));
+    }
+
+    @Test
+    void testInputsWithoutSessionAreRejectedByDefault() throws Exception {
+        TankService strict = new TankService(boardRepository, new StateBroadcaster(msgt, true, false, false, ClusterNode.standalone(), SpectatorHub.disabled(), new SimpleMeterRegistry()), tankRepository, matchRegistry, writeBehindStore, new SessionTokens("test-secret"),
+                new MapCatalog(new String[]{MapCatalog.DEFAULT_LOCATIONS}, properties), ClusterNode.standalone(), MatchJournal.disabled());
+        strict.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+
+        assertFalse(strict.updateTankPosition("Tank1", 1, 8, 2, 8, 0));
+        assertFalse(strict.shoot("Tank1", "bullet123"));
+    }
+
+    @Test
+    void testStaleSessionSlotIsIgnored() throws Exception {
+        Tank tank = tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        SessionTokens.Claims stale = new SessionTokens.Claims("1", "Tank1", 99);
+
+        assertTrue(tankService.updateTankPosition(stale, "Tank1", 1, 8, 2, 8, 0));
+        tankService.tick(tankService.getMatch("1"));
+
+        assertEquals(1, tank.getPosx());
+    }
+
+    @Test
+    void testTickAcknowledgesLastInputWithAuthoritativePosition() throws Exception {
+        tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        SessionTokens.Claims claims = sessionTokens.verify(tankService.issueSessionToken("1", "Tank1"));
+
+        assertTrue(tankService.updateTankPosition(claims, "Tank1", 1, 8, 2, 8, 0, 7));
+        assertTrue(tankService.updateTankPosition(claims, "Tank1", 2, 8, 3, 8, 0, 8));
+        tankService.tick(tankService.getMatch("1"));
+
+        // Una sola confirmación por tick, con la última entrada aplicada
+        verify(msgt).convertAndSendToUser(eq("Tank1"), eq("/queue/matches/1/ack"), argThat(payload ->
+                payload instanceof InputAck ack && ack.getSeq() == 8 && ack.getX() == 3 && ack.getY() == 8));
+        verify(msgt, never()).convertAndSendToUser(eq("Tank1"), eq("/queue/matches/1/ack"), argThat(payload ->
+                payload instanceof InputAck ack && ack.getSeq() == 7));
+    }
+
+    /*Para el estado consolidado */
+    @Test
+    void testSerializedStateIsCachedPerSeq() throws Exception {
+        tankService.saveTank("1", "Tank1", sessionTokens.hash("Tank1"));
+        Match match = tankService.getMatch("1");
+
+        // El jugador entró pero su casilla aún no salió en un delta: sin ETag
+        assertNull(tankService.getSerializedState("1").getEtag());
+
+        tankService.tick(match);
+        SerializedState first = tankService.getSerializedState("1");
+        assertNotNull(first.getEtag());
+        assertSame(first, tankService.getSerializedState("1"));
+        assertTrue(new String(first.getBody()).contains("\"Tank1\""));
+
+        tankService.updateTankPosition("Tank1", 1, 8, 2, 8, 0);
+        tankService.tick(match);
+        SerializedState moved = tankService.getSerializedState("1");
+        assertEquals(first.getSeq() + 1, moved.getSeq());
+        assertNotEquals(first.getEtag(), moved.getEtag());
+    }
+
+    /*Para el tick de simulación */
+    @Test
+    void testTick_AdvancesLiveBullets() {
+        String username = "Tank1";
+        Tank mockTank = new Tank(1, 8, "#fa0a0a", 0, username);
+        givenPersistedTanks(mockTank);
+
+        tankService.shoot(username, "bullet123");
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        assertEquals(0, match.getLiveBullets().size());
+        // El disparo se aplica al inicio del tick y la bala avanza en el mismo tick
+        tankService.tick(match);
+        Bullet bullet = match.getLiveBullets().get(0);
+        assertEquals(2, bullet.getX());
+        assertEquals(8, bullet.getY());
+
+        tankService.tick(match);
+        assertEquals(3, match.getLiveBullets().get(0).getX());
+        assertEquals(1, match.getLiveBullets().size());
+    }
+
+    @Test
+    void testBulletIsPublishedOnlyOnSpawnAndEnd() {
+        givenPersistedTanks(new Tank(1, 8, "#fa0a0a", 0, "Tank1"));
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        tankService.tick(match);
+        clearInvocations(msgt);
+
+        tankService.shoot("Tank1", "bullet123");
+        for (int i = 0; i < 20; i++) {
+            tankService.tick(match);
+        }
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(msgt, times(2)).convertAndSend(eq("/topic/matches/1/state"), payload.capture());
+        StateDelta spawned = assertInstanceOf(StateDelta.class, payload.getAllValues().get(0));
+        BulletState bullet = spawned.getBullets().get(0);
+        assertEquals(2, bullet.getX());
+        assertEquals(2, bullet.getTick());
+        assertEquals(1, bullet.getStepTicks());
+
+        // Recorre la fila 8 hasta la pared del borde en x = 14
+        StateDelta ended = assertInstanceOf(StateDelta.class, payload.getAllValues().get(1));
+        assertTrue(ended.getBullets().isEmpty());
+        BulletEnd end = ended.getEndedBullets().get(0);
+        assertEquals(13, end.getX());
+        assertEquals(BulletEnd.WALL, end.getReason());
+        // Llega a x = 13 en el tick 13 y choca al intentar el paso siguiente
+        assertEquals(14, end.getTick());
+        assertEquals(List.of("bullet123"), ended.getRemovedBullets());
     }
+
+    @Test
+    void testBulletPositionIsServedFromPool() {
+        givenPersistedTanks(new Tank(1, 8, "#fa0a0a", 0, "Tank1"));
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+
+        Bullet bullet = tankService.getBulletPosition("bullet123");
+        assertEquals(2, bullet.getX());
+        assertEquals("Tank1", bullet.getTankId());
+        assertNull(tankService.getBulletPosition("unknown"));
+    }
+
+    @Test
+    void testDeadBulletSlotIsReusedOnlyAfterPublishing() {
+        BulletPool pool = new BulletPool(2);
+        int first = pool.spawn("bullet1", "Tank1", 1, 8, 0, 1, 0);
+        pool.kill(first);
+        pool.compact();
+
+        // Retirada pero sin publicar: el delta todavía lee su id
+        int second = pool.spawn("bullet2", "Tank1", 1, 8, 0, 1, 0);
+        assertNotEquals(first, second);
+        assertEquals("bullet1", pool.getId(first));
+
+        pool.releaseRetired();
+        assertEquals(first, pool.spawn("bullet3", "Tank1", 1, 8, 0, 1, 0));
+        assertEquals(2, pool.size());
+        assertEquals(-1, pool.find("bullet1"));
+    }
+
+    @Test
+    void testIdleBulletOnlyWaitsForItsWall() {
+        givenPersistedTanks(new Tank(1, 8, "#fa0a0a", 0, "Tank1"), new Tank(13, 1, "#001ba1", 180, "Tank2"));
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+
+        // Nadie en la fila 8: el único evento es el choque con la pared en x = 14
+        assertEquals(1, match.getBulletTimers().size());
+        assertEquals(2, match.getLiveBullets().get(0).getX());
+
+        // El tanque que entra en la trayectoria agrega el paso en que la bala lo alcanza
+        tankService.updateTankPosition("Tank2", 13, 1, 13, 2, 90);
+        for (int y = 3; y <= 8; y++) {
+            tankService.updateTankPosition("Tank2", 13, y - 1, 13, y, 90);
+            tankService.tick(match);
+        }
+        assertTrue(match.getBulletTimers().size() > 1);
+        for (int i = 0; i < 10 && !match.getLiveBullets().isEmpty(); i++) {
+            tankService.tick(match);
+        }
+        assertNull(tankService.getTankById("Tank2"));
+    }
+
+    @Test
+    void testTimerWheelKeepsEntriesBeyondOneTurn() {
+        TimerWheel wheel = new TimerWheel(4);
+        wheel.schedule(2, 7, 1);
+        wheel.schedule(6, 8, 2);
+        List<Integer> fired = new ArrayList<>();
+
+        wheel.advance(2, (slot, serial) -> fired.add(slot));
+        assertEquals(List.of(7), fired);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(6, (slot, serial) -> fired.add(slot));
+        assertEquals(List.of(7, 8), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testTick_RemovesBulletOnWall() {
+        String username = "Tank1";
+        Tank mockTank = new Tank(1, 8, "#fa0a0a", 90, username);
+        givenPersistedTanks(mockTank);
+
+        tankService.shoot(username, "bullet123");
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        tankService.tick(match);
+
+        assertEquals(0, match.getLiveBullets().size());
+        assertNull(tankService.getBulletPosition("bullet123"));
+    }
+
     /*Para UpdatePosition */
     @Test
     void testUpdateTankPosition_Success() {
         String username = "Tank1";
-        int x = 1, y = 1, newX = 2, newY = 2, rotation = 90;
+        int x = 1, y = 1, newX = 1, newY = 2, rotation = 90;
         
         Tank mockTank = new Tank(x, y, "#fa0a0a", 0, username);
-        Board mockBoard = mock(Board.class);
-        when(mockBoard.getBoxes()).thenReturn(new String[5][5]);
-        when(tankRepository.findById(username)).thenReturn(Optional.of(mockTank));
-        when(boardRepository.findById(any(String.class))).thenReturn(Optional.of(mockBoard));
+        givenPersistedTanks(mockTank);
+
+        assertTrue(tankService.updateTankPosition(username, x, y, newX, newY, rotation));
+        // Hasta el siguiente tick el movimiento solo está en cola
+        assertEquals(x, mockTank.getPosx());
+
+        tankService.tick(tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID));
+
+        assertEquals(newX, mockTank.getPosx());
+        assertEquals(newY, mockTank.getPosy());
+        assertEquals(rotation, mockTank.getRotation());
+        verify(tankRepository, never()).save(any(Tank.class));
+
+        writeBehindStore.flush();
+        verify(tankRepository).saveAll(argThat((Iterable<Tank> tanks) -> tanks.iterator().next().getPosx() == newX));
+    }
 
-        Tank updatedTank = tankService.updateTankPosition(username, x, y, newX, newY, rotation);
+    @Test
+    void testUpdateTankPosition_InvalidCoordinates() {
+        Tank mockTank = new Tank(1, 1, "#fa0a0a", 0, "Tank1");
+        givenPersistedTanks(mockTank);
 
-        assertNotNull(updatedTank);
-        assertEquals(newX, updatedTank.getPosx());
-        assertEquals(newY, updatedTank.getPosy());
-        assertEquals(rotation, updatedTank.getRotation());
-        verify(tankRepository).save(mockTank);
+        assertThrows(IllegalArgumentException.class, () -> tankService.updateTankPosition("Tank1", 1, 1, 15, 1, 0));
     }
 
     @Test
@@ -126,36 +414,59 @@ class TankServiceTest {
         String username = "NonExistingTank";
         int x = 1, y = 1, newX = 2, newY = 2, rotation = 90;
 
-        when(tankRepository.findById(username)).thenReturn(Optional.empty());
-
-        Tank result = tankService.updateTankPosition(username, x, y, newX, newY, rotation);
-
-        assertNull(result, "Expected null when tank is not found");
+        assertFalse(tankService.updateTankPosition(username, x, y, newX, newY, rotation),
+                "Expected false when tank is not found");
     }
 
     @Test
     void testUpdateTankPosition_BoxAlreadyOccupied() {
         String username = "Tank1";
-        int x = 1, y = 1, newX = 2, newY = 2, rotation = 90;
-    
-        Tank mockTank = new Tank(x, y, "#fa0a0a", 0, username);
-        Board mockBoard = mock(Board.class);
-        String[][] boxes = new String[5][5];
-        boxes[newY][newX] = "otherTank"; // La posición ya está ocupada
-    
-        when(mockBoard.getBoxes()).thenReturn(boxes);
-        when(tankRepository.findById(username)).thenReturn(Optional.of(mockTank));
-        when(boardRepository.findById(any(String.class))).thenReturn(Optional.of(mockBoard));
-    
-        // Llamamos al método y verificamos que el tanque no se mueve (devuelve el tanque original)
-        tankService.updateTankPosition(username, x, y, newX, newY, rotation);
-    
-        // Verificamos que el tanque no cambió de posición
-        assertNotEquals(x, mockTank.getPosx());
-        assertNotEquals(y, mockTank.getPosy());
-    
-        // Verificamos las interacciones
-        verify(tankRepository).findById(username);
+        Tank mockTank = new Tank(1, 1, "#fa0a0a", 0, username);
+        Tank other = new Tank(1, 2, "#001ba1", 0, "Tank2");
+        givenPersistedTanks(mockTank, other);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+
+        // La casilla es de otro tanque: el movimiento se descarta
+        tankService.updateTankPosition(username, 1, 1, 1, 2, 90);
+        tankService.tick(match);
+
+        assertEquals(1, mockTank.getPosy());
+        assertSame(other, match.getTankAt(1, 2));
+        assertSame(mockTank, match.getTankAt(1, 1));
+        // El movimiento se resuelve en memoria, sin consultar MongoDB
+        verify(tankRepository, never()).findById(username);
+    }
+
+    @Test
+    void testMoveIntoWallOrTooFarIsRejected() {
+        Tank tank = new Tank(1, 1, "#fa0a0a", 0, "Tank1");
+        givenPersistedTanks(tank);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+
+        tankService.updateTankPosition("Tank1", 1, 1, 1, 0, -90);
+        tankService.updateTankPosition("Tank1", 1, 1, 3, 1, 0);
+        tankService.tick(match);
+
+        assertEquals(1, tank.getPosx());
+        assertEquals(1, tank.getPosy());
+        assertTrue(match.getBoard().isWall(1, 0));
+    }
+
+    @Test
+    void testRotationIsNormalizedToCardinalDirections() {
+        Tank tank = new Tank(1, 1, "#fa0a0a", 0, "Tank1");
+        givenPersistedTanks(tank);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+
+        tankService.updateTankPosition("Tank1", 1, 1, 1, 1, 270);
+        tankService.tick(match);
+        assertEquals(-90, tank.getRotation());
+
+        tankService.updateTankPosition("Tank1", 1, 1, 1, 1, -180);
+        tankService.tick(match);
+        assertEquals(180, tank.getRotation());
+
+        assertThrows(IllegalArgumentException.class, () -> tankService.updateTankPosition("Tank1", 1, 1, 1, 1, 45));
     }
     
 
@@ -164,32 +475,307 @@ class TankServiceTest {
     /* Para el Reset  */
     @Test
     void testReset() {
+        tankService.getMatch("1");
 
-        tankService.reset();
-        verify(tankRepository).deleteAll();
-        verify(bulletRepository).deleteAll();
-        verify(boardRepository).save(any(Board.class));
+        tankService.reset("1");
+        writeBehindStore.flush();
+        verify(tankRepository).deleteByMatchId("1");
+        verify(boardRepository).saveAll(any());
         assertDoesNotThrow(() -> {
-            tankService.reset();
+            tankService.reset("1");
         });
     }
 
     @Test
     void testBoardReset() {
-        tankService.reset();
-        verify(boardRepository).save(any(Board.class));
+        tankService.getMatch("1");
+        tankService.reset("1");
+        writeBehindStore.flush();
+        verify(boardRepository).saveAll(any());
     }
     
     @Test
     void testTankRepositoryReset() {
-        tankService.reset();
-        verify(tankRepository).deleteAll();
+        tankService.getMatch("1");
+        tankService.reset("1");
+        writeBehindStore.flush();
+        verify(tankRepository).deleteByMatchId("1");
+    }
+
+    @Test
+    void testResetClearsBullets() {
+        givenPersistedTanks(new Tank(1, 8, "#fa0a0a", 0, "Tank1"));
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(tankService.getMatch("1"));
+
+        tankService.reset("1");
+
+        assertTrue(tankService.getMatch("1").getLiveBullets().isEmpty());
+        assertNull(tankService.getBulletPosition("bullet123"));
+    }
+
+    @Test
+    void testResetOnlyAffectsItsMatch() {
+        tankService.getMatch("1");
+        tankService.getMatch("2");
+        tankService.reset("2");
+        writeBehindStore.flush();
+        verify(tankRepository).deleteByMatchId("2");
+        verify(tankRepository, never()).deleteByMatchId("1");
+    }
+
+    @Test
+    void testReadsDoNotCreateMatches() {
+        assertThrows(MatchNotFoundException.class, () -> tankService.getAllTanks("9"));
+        assertThrows(MatchNotFoundException.class, () -> tankService.getBoardBoxes("9"));
+        assertThrows(MatchNotFoundException.class, () -> tankService.getStateSnapshot("9"));
+        assertThrows(MatchNotFoundException.class, () -> tankService.getSerializedState("9"));
+        assertThrows(MatchNotFoundException.class, () -> tankService.reset("9"));
+        assertDoesNotThrow(() -> tankService.handleWinner("9"));
+
+        assertNull(matchRegistry.find("9"));
+        assertTrue(matchRegistry.getMatches().isEmpty());
+    }
+
+    @Test
+    void testFinishedMatchIsEvictedAtEndOfTick() {
+        givenPersistedTanks(new Tank(1, 8, "#fa0a0a", 0, "Tank1"), new Tank(2, 8, "#001ba1", 0, "Tank2"));
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+
+        assertTrue(match.isEvicted());
+        assertNull(matchRegistry.find(MatchRegistry.DEFAULT_MATCH_ID));
+        assertNull(tankService.getTankById("Tank1"));
+        assertEquals(0, match.getWorker().getAssignedMatches());
+    }
+
+    @Test
+    void testEmptyMatchIsEvictedAfterTimeout() {
+        Match match = tankService.getMatch("5");
+        tankService.tick(match);
+        assertSame(match, matchRegistry.find("5"));
+
+        properties.setEmptyTimeoutMillis(0);
+        Match idle = tankService.getMatch("6");
+        tankService.tick(idle);
+
+        assertSame(match, matchRegistry.find("5"));
+        assertNull(matchRegistry.find("6"));
+    }
+
+    @Test
+    void testJoinAfterEvictionCreatesNewMatch() throws Exception {
+        properties.setEmptyTimeoutMillis(0);
+        Match evicted = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        tankService.tick(evicted);
+
+        tankService.saveTank(MatchRegistry.DEFAULT_MATCH_ID, "Tank1", sessionTokens.hash("Tank1"));
+
+        Match match = matchRegistry.find(MatchRegistry.DEFAULT_MATCH_ID);
+        assertNotSame(evicted, match);
+        assertNotNull(match.getTank("Tank1"));
+    }
+
+    @Test
+    void testEvictedMatchIsDeletedFromMongo() {
+        properties.setEmptyTimeoutMillis(0);
+        Match idle = tankService.getMatch("6");
+        tankService.tick(idle);
+
+        tankService.flushState();
+
+        verify(tankRepository).deleteByMatchId("6");
+        verify(boardRepository).deleteAllById(List.of("6"));
+    }
+
+    @Test
+    void testRestoreReusesLoadedBoards() {
+        Board board = new Board("3");
+        when(boardRepository.findAll()).thenReturn(List.of(board));
+
+        tankService.restoreMatches();
+
+        assertSame(board, matchRegistry.find("3").getBoard());
+        verify(boardRepository, never()).findById(any(String.class));
     }
 
+    /*Para varias partidas */
     @Test
-    void testBulletRepositoryReset() {
-        tankService.reset();
-        verify(bulletRepository).deleteAll();
+    void testMatchesHaveIndependentBoards() {
+        Match first = tankService.getMatch("1");
+        Match second = tankService.getMatch("2");
+
+        first.getBoard().putTank("Tank1", 1, 8);
+
+        assertNotSame(first.getBoard(), second.getBoard());
+        assertEquals("0", second.getBoard().getValue(1, 8));
+        assertEquals("/topic/matches/2/movement", second.topic("movement"));
+    }
+
+    @Test
+    void testMoveIsPublishedOnTankMatchTopic() {
+        String username = "Tank1";
+        Tank mockTank = new Tank(1, 8, "#fa0a0a", 0, username);
+        mockTank.setMatchId("7");
+        givenPersistedTanks(mockTank);
+
+        tankService.updateTankPosition(username, 1, 8, 2, 8, 0);
+        tankService.tick(tankService.getMatch("7"));
+
+        verify(msgt).convertAndSend("/topic/matches/7/movement", mockTank);
+        assertEquals(username, tankService.getBoardBoxes("7")[8][2]);
+    }
+
+    @Test
+    void testCollisionRemovesTankInMemory() {
+        Tank shooter = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        Tank target = new Tank(2, 8, "#001ba1", 0, "Tank2");
+        Tank other = new Tank(13, 1, "#f1c40f", 0, "Tank3");
+        givenPersistedTanks(shooter, target, other);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        match.getBoard().putTank("Tank2", 2, 8);
+
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+
+        assertNull(tankService.getTankById("Tank2"));
+        assertEquals(2, tankService.getAllTanks(MatchRegistry.DEFAULT_MATCH_ID).size());
+        verify(tankRepository, never()).deleteById(any());
+
+        writeBehindStore.flush();
+        verify(tankRepository).deleteAllById(List.of("Tank2"));
+    }
+
+    @Test
+    void testFastBulletHitsTankInsideSweptSegment() {
+        properties.setBulletSpeed(3);
+        Tank shooter = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        Tank target = new Tank(3, 8, "#001ba1", 0, "Tank2");
+        Tank other = new Tank(13, 1, "#f1c40f", 0, "Tank3");
+        givenPersistedTanks(shooter, target, other);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        match.placeTank(target, 3, 8);
+
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+
+        assertNull(tankService.getTankById("Tank2"));
+        assertTrue(match.getLiveBullets().isEmpty());
+        verify(msgt).convertAndSend(argThat((String topic) -> topic.endsWith("/collisionResult")), any(Object.class));
+    }
+
+    @Test
+    void testFastBulletStopsAtWall() {
+        properties.setBulletSpeed(8);
+        Tank shooter = new Tank(1, 1, "#fa0a0a", 0, "Tank1");
+        givenPersistedTanks(shooter);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+
+        // Hay una pared en (7, 1): la bala no debe saltarla
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+
+        assertTrue(match.getLiveBullets().isEmpty());
+        assertNull(tankService.getBulletPosition("bullet123"));
+    }
+
+    @Test
+    void testBulletHitsTankThatMovedOntoItsCell() {
+        Tank shooter = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        Tank target = new Tank(3, 8, "#001ba1", 0, "Tank2");
+        Tank other = new Tank(13, 1, "#f1c40f", 0, "Tank3");
+        givenPersistedTanks(shooter, target, other);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        match.placeTank(target, 3, 8);
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+        assertEquals(2, match.getLiveBullets().get(0).getX());
+
+        // El tanque entra en la casilla de la bala en vez de esperarla
+        tankService.updateTankPosition("Tank2", 3, 8, 2, 8, 180);
+        tankService.tick(match);
+
+        assertNull(tankService.getTankById("Tank2"));
+    }
+
+    /*Para la compensación de latencia */
+    private Match givenTargetDodgingFastBullet(long maxRewindMillis) {
+        properties.setBulletSpeed(3);
+        properties.setMaxRewindMillis(maxRewindMillis);
+        Tank shooter = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        Tank target = new Tank(3, 8, "#001ba1", 0, "Tank2");
+        Tank other = new Tank(13, 1, "#f1c40f", 0, "Tank3");
+        givenPersistedTanks(shooter, target, other);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        match.placeTank(target, 3, 8);
+        tankService.tick(match);
+        return match;
+    }
+
+    @Test
+    void testShotIsResolvedAgainstWhatTheShooterSaw() {
+        Match match = givenTargetDodgingFastBullet(240_000);
+        long seenSeq = match.getStateSeq();
+
+        // El objetivo se aparta en el mismo tick en que llega el disparo hecho sobre el estado anterior
+        tankService.updateTankPosition("Tank2", 3, 8, 3, 7, -90);
+        tankService.shoot(null, "Tank1", "bullet123", seenSeq);
+        tankService.tick(match);
+
+        assertNull(tankService.getTankById("Tank2"));
+        assertEquals("0", tankService.getBoardBoxes(MatchRegistry.DEFAULT_MATCH_ID)[7][3]);
+        assertTrue(match.getLiveBullets().isEmpty());
+    }
+
+    @Test
+    void testShotWithoutViewOrWindowUsesCurrentBoard() {
+        Match match = givenTargetDodgingFastBullet(0);
+
+        tankService.updateTankPosition("Tank2", 3, 8, 3, 7, -90);
+        tankService.shoot(null, "Tank1", "bullet123", match.getStateSeq());
+        tankService.tick(match);
+
+        assertNotNull(tankService.getTankById("Tank2"));
+        assertEquals(4, match.getLiveBullets().get(0).getX());
+    }
+
+    @Test
+    void testMoveClearsServerSideCell() {
+        Tank tank = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        givenPersistedTanks(tank);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        match.placeTank(tank, 1, 8);
+
+        // El cliente reporta una posición vieja; se libera la casilla real
+        tankService.updateTankPosition("Tank1", 3, 8, 2, 8, 0);
+        tankService.tick(match);
+
+        assertEquals("0", match.getBoard().getValue(1, 8));
+        assertEquals("0", match.getBoard().getValue(3, 8));
+        assertSame(tank, match.getTankAt(2, 8));
+        assertNull(match.getTankAt(1, 8));
+    }
+
+    @Test
+    void testCellIndexFollowsMovesAndRemovals() {
+        Tank shooter = new Tank(1, 8, "#fa0a0a", 0, "Tank1");
+        Tank target = new Tank(3, 8, "#001ba1", 0, "Tank2");
+        Tank other = new Tank(13, 1, "#f1c40f", 0, "Tank3");
+        givenPersistedTanks(shooter, target, other);
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        match.placeTank(shooter, 1, 8);
+        match.placeTank(target, 3, 8);
+
+        tankService.updateTankPosition("Tank2", 3, 8, 2, 8, 0);
+        tankService.shoot("Tank1", "bullet123");
+        tankService.tick(match);
+
+        assertNull(match.getTankAt(2, 8));
+        assertNull(match.getTankAt(3, 8));
+        assertEquals(2, match.getTankCount());
+        assertEquals("0", match.getBoard().getValue(2, 8));
     }
 
     /*Para HandleWinner */
@@ -198,7 +784,7 @@ class TankServiceTest {
         String winner = "Tank1";
         Tank mockTank = new Tank(1, 1, "#fa0a0a", 0, winner);
 
-        when(tankRepository.findById(winner)).thenReturn(Optional.of(mockTank));
+        givenPersistedTanks(mockTank);
 
     }
 
@@ -206,9 +792,7 @@ class TankServiceTest {
     void testHandleWinner_TankNotFound() {
         String winner = "NonExistingTank";
 
-        when(tankRepository.findById(winner)).thenReturn(Optional.empty());
-
-        assertDoesNotThrow((Executable) () -> tankService.handleWinner());
+        assertDoesNotThrow((Executable) () -> tankService.handleWinner("1"));
     }
 
     @Test
@@ -218,20 +802,17 @@ class TankServiceTest {
         String bulletId2 = "bullet2";
 
         Tank mockTank = new Tank(1, 1, "#fa0a0a", 0, username);
-        when(tankRepository.findById(username)).thenReturn(Optional.of(mockTank));
-
-        Bullet mockBullet1 = new Bullet(bulletId1, 1, 1, 0, false, username);
-        Bullet mockBullet2 = new Bullet(bulletId2, 1, 1, 0, false, username);
-
-        when(bulletRepository.save(any(Bullet.class))).thenReturn(mockBullet1).thenReturn(mockBullet2);
+        givenPersistedTanks(mockTank);
 
-        Bullet result1 = tankService.shoot(username, bulletId1);
-        Bullet result2 = tankService.shoot(username, bulletId2);
+        assertTrue(tankService.shoot(username, bulletId1));
+        assertTrue(tankService.shoot(username, bulletId2));
+        Match match = tankService.getMatch(MatchRegistry.DEFAULT_MATCH_ID);
+        tankService.tick(match);
 
-        assertNotNull(result1);
-        assertNotNull(result2);
-        assertEquals(bulletId1, result1.getId());
-        assertEquals(bulletId2, result2.getId());
+        // Se aplican en el orden en que llegaron
+        assertEquals(2, match.getLiveBullets().size());
+        assertEquals(bulletId1, match.getLiveBullets().get(0).getId());
+        assertEquals(bulletId2, match.getLiveBullets().get(1).getId());
     }
 
 }
@@ -0,0 +1,107 @@
+package edu.eci.arsw.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import org.mockito.MockitoAnnotations;
+
+import edu.escuelaing.co.leotankcicos.model.Board;
+import edu.escuelaing.co.leotankcicos.model.Tank;
+import edu.escuelaing.co.leotankcicos.persistence.WriteBehindStore;
+import edu.escuelaing.co.leotankcicos.repository.BoardRepository;
+import edu.escuelaing.co.leotankcicos.repository.TankRepository;
+
+class WriteBehindStoreTest {
+
+    @Mock
+    private TankRepository tankRepository;
+    @Mock
+    private BoardRepository boardRepository;
+
+    private WriteBehindStore store;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        store = new WriteBehindStore(tankRepository, boardRepository, 60_000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void testChangesToSameTankAreCoalesced() {
+        Tank tank = new Tank(1, 1, "#fa0a0a", 0, "Tank1");
+        store.tankChanged(tank.copy());
+        tank.setPosx(2);
+        store.tankChanged(tank.copy());
+        tank.setPosx(3);
+        store.tankChanged(tank.copy());
+
+        assertEquals(1, store.getPendingCount());
+        store.flush();
+
+        verify(tankRepository).saveAll(argThat((Iterable<Tank> tanks) -> {
+            List<Tank> list = (List<Tank>) tanks;
+            return list.size() == 1 && list.get(0).getPosx() == 3;
+        }));
+        assertEquals(1, store.getLastBatchSize());
+        assertEquals(0, store.getPendingCount());
+    }
+
+    @Test
+    void testBoardSnapshotIsTakenOncePerFlush() {
+        int[] snapshots = {0};
+        for (int i = 0; i < 5; i++) {
+            store.boardChanged("1", () -> {
+                snapshots[0]++;
+                return new Board("1");
+            });
+        }
+        store.flush();
+
+        assertEquals(1, snapshots[0]);
+        verify(boardRepository).saveAll(any());
+    }
+
+    @Test
+    void testRemovalCancelsPendingSave() {
+        store.tankChanged(new Tank(1, 1, "#fa0a0a", 0, "Tank1"));
+        store.tankRemoved("Tank1");
+        store.flush();
+
+        verify(tankRepository, never()).saveAll(any());
+        verify(tankRepository).deleteAllById(List.of("Tank1"));
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        doThrow(new IllegalStateException("mongo down")).when(tankRepository).saveAll(any());
+        store.tankChanged(new Tank(1, 1, "#fa0a0a", 0, "Tank1"));
+
+        assertThrows(IllegalStateException.class, store::flush);
+        assertEquals(1, store.getFailedFlushCount());
+        assertEquals(1, store.getPendingCount());
+    }
+
+    @Test
+    void testDirtyThresholdTriggersFlush() {
+        for (int i = 0; i < 100; i++) {
+            store.tankChanged(new Tank(1, 1, "#fa0a0a", 0, "Tank" + i));
+        }
+        verify(tankRepository, timeout(2000)).saveAll(any());
+    }
+}